@@ -0,0 +1,28 @@
+package com.datadog.task;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Run the JMH benchmarks with the gc profiler enabled, so the allocation rate of the ingest path is reported next to
+ * the throughput. Run it with:
+ * <pre>
+ * mvn -P benchmark test-compile exec:exec -Dbenchmark.args="-f 1 LogParser"
+ * </pre>
+ * The arguments are standard JMH command line options. Maven passes the whole -Dbenchmark.args value as one
+ * argument, a single argument is split on whitespace.
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        final String[] options = args.length == 1 ? args[0].trim().split("\\s+") : args;
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(options))
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
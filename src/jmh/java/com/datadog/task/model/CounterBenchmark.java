@@ -0,0 +1,65 @@
+package com.datadog.task.model;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link Counter#topK(int)} and {@link Counter#merge(Counter)} over counters with a growing number of distinct items.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class CounterBenchmark {
+
+    @Param({"100", "10000", "100000"})
+    private int distinctItems;
+
+    @Param({"5"})
+    private int k;
+
+    @Param({Counter.EXACT, Counter.APPROXIMATE})
+    private String counterType;
+
+    private Supplier<Counter> counterFactory;
+
+    private Counter counter;
+
+    @Setup
+    public void setUp() {
+        counterFactory = Counter.newFactory(counterType, 1000);
+        counter = counterFactory.get();
+        for (int i = 0; i < distinctItems; i++) {
+            final String item = "10.0." + (i >> 8) + "." + (i & 0xff);
+            // a skewed distribution, a few items are much more frequent than the others
+            for (int j = distinctItems / (i + 1); j >= 0; j = j > 64 ? j >> 1 : j - 1) {
+                counter.increase(item);
+            }
+        }
+    }
+
+    @Benchmark
+    public Object topK() {
+        return counter.topK(k);
+    }
+
+    @Benchmark
+    public Object merge() {
+        final Counter merged = counterFactory.get();
+        merged.merge(counter);
+        return merged;
+    }
+}
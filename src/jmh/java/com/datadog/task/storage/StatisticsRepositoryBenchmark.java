@@ -0,0 +1,164 @@
+package com.datadog.task.storage;
+
+import com.datadog.task.model.Counter;
+import com.datadog.task.model.LogRecord;
+import com.datadog.task.model.LogRecord.LogRecordBuilder;
+import java.time.Instant;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The ingest path ({@link StatisticsRepository#addRecord(LogRecord)} with 1..N writer threads) and the read paths
+ * ({@link StatisticsRepository#getAggregatedStatics(int)}, {@link StatisticsRepository#getTotalRequests(int)}) over a
+ * full 120 slots window with high cardinality sections and client IPs.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class StatisticsRepositoryBenchmark {
+
+    private static final int WINDOW_SIZE = 120;
+
+    // the ring buffer repository aggregating the whole window incrementally
+    private static final String INCREMENTAL = "incremental";
+
+    private static final int RECORDS_PER_WRITER = 4096;
+
+    @State(Scope.Benchmark)
+    public static class Ingest {
+
+        @Param({StatisticsRepository.RING_BUFFER, StatisticsRepository.STRIPED})
+        private String repositoryType;
+
+        private StatisticsRepository repository;
+
+        @Setup(Level.Iteration)
+        public void setUp() {
+            repository = newRepository(repositoryType);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Writer {
+
+        private LogRecord[] records;
+
+        private int index;
+
+        // the repository drops records outside of the window, keep the timestamps fresh for every iteration.
+        @Setup(Level.Iteration)
+        public void setUp() {
+            records = randomRecords(new Random(), RECORDS_PER_WRITER, Instant.now().getEpochSecond(), 1, 1000, 10000);
+        }
+
+        LogRecord next() {
+            final LogRecord record = records[index];
+            index = index + 1 == records.length ? 0 : index + 1;
+            return record;
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class FullWindow {
+
+        @Param({"1000", "100000"})
+        private int cardinality;
+
+        @Param({"1000"})
+        private int recordsPerSecond;
+
+        @Param({StatisticsRepository.RING_BUFFER, StatisticsRepository.STRIPED, INCREMENTAL})
+        private String repositoryType;
+
+        private StatisticsRepository repository;
+
+        @Setup(Level.Iteration)
+        public void setUp() {
+            repository = newRepository(repositoryType);
+            final Random random = new Random(42L);
+            final long now = Instant.now().getEpochSecond();
+            for (LogRecord record : randomRecords(random, WINDOW_SIZE * recordsPerSecond, now, WINDOW_SIZE,
+                    cardinality / 10, cardinality)) {
+                repository.addRecord(record);
+            }
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void addRecord1(Ingest ingest, Writer writer) {
+        ingest.repository.addRecord(writer.next());
+    }
+
+    @Benchmark
+    @Threads(2)
+    public void addRecord2(Ingest ingest, Writer writer) {
+        ingest.repository.addRecord(writer.next());
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void addRecord4(Ingest ingest, Writer writer) {
+        ingest.repository.addRecord(writer.next());
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public void addRecordMax(Ingest ingest, Writer writer) {
+        ingest.repository.addRecord(writer.next());
+    }
+
+    @Benchmark
+    public Object getAggregatedStatics(FullWindow window) {
+        return window.repository.getAggregatedStatics(WINDOW_SIZE);
+    }
+
+    @Benchmark
+    public long getTotalRequests(FullWindow window) {
+        return window.repository.getTotalRequests(WINDOW_SIZE);
+    }
+
+    private static StatisticsRepository newRepository(String type) {
+        switch (type) {
+            case StatisticsRepository.STRIPED:
+                return new StripedStatisticsRepository(WINDOW_SIZE);
+            case INCREMENTAL:
+                return new RingBufferStatisticsRepository(WINDOW_SIZE, Counter.newFactory(Counter.EXACT, 0),
+                        WINDOW_SIZE);
+            default:
+                return new RingBufferStatisticsRepository(WINDOW_SIZE);
+        }
+    }
+
+    private static LogRecord[] randomRecords(Random random, int size, long now, int seconds, int sections,
+            int clientIps) {
+        final LogRecord[] records = new LogRecord[size];
+        for (int i = 0; i < size; i++) {
+            final String section = "/section" + random.nextInt(sections);
+            final int clientIp = random.nextInt(clientIps);
+            records[i] = LogRecordBuilder.aLogRecord()
+                    .withTimestamp(now - random.nextInt(seconds))
+                    .withRequest(section + "/index.html")
+                    .withSection(section)
+                    .withClientIp("10." + (clientIp >> 16 & 0xff) + "." + (clientIp >> 8 & 0xff) + "." + (clientIp & 0xff))
+                    .withAuth("user" + random.nextInt(100))
+                    .build();
+        }
+        return records;
+    }
+}
@@ -0,0 +1,78 @@
+package com.datadog.task.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Parse the lines of the real access log in src/test/resources, one line per operation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class LogParserBenchmark {
+
+    private String[] lines;
+
+    private byte[][] lineBytes;
+
+    private int index;
+
+    @Setup
+    public void setUp() throws IOException {
+        final List<String> allLines = new ArrayList<>();
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(
+                LogParserBenchmark.class.getResourceAsStream("/access.log"), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                allLines.add(line);
+            }
+        }
+        lines = allLines.toArray(new String[0]);
+        lineBytes = new byte[lines.length][];
+        for (int i = 0; i < lines.length; i++) {
+            lineBytes[i] = lines[i].getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    @Benchmark
+    public void parse(Blackhole blackhole) {
+        blackhole.consume(LogParser.parse(nextLine()));
+    }
+
+    @Benchmark
+    public void parseBytes(Blackhole blackhole) {
+        final byte[] line = lineBytes[index];
+        index = index + 1 == lines.length ? 0 : index + 1;
+        blackhole.consume(LogParser.parse(line, 0, line.length));
+    }
+
+    @Benchmark
+    public void parseWithGrok(Blackhole blackhole) {
+        blackhole.consume(LogParser.parseWithGrok(nextLine()));
+    }
+
+    private String nextLine() {
+        final String line = lines[index];
+        index = index + 1 == lines.length ? 0 : index + 1;
+        return line;
+    }
+}
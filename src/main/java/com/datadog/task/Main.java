@@ -1,10 +1,14 @@
 package com.datadog.task;
 
 import com.datadog.task.controller.HttpTrafficLogMonitor;
+import com.datadog.task.http.MetricsHttpServer;
 import com.datadog.task.util.Config;
+import com.datadog.task.view.AsyncLineWriter;
 import com.datadog.task.view.LanternConsole;
+import com.datadog.task.view.NdjsonReporter;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Paths;
 import org.apache.commons.configuration2.ex.ConfigurationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -13,21 +17,67 @@ public class Main {
 
     private static final Logger log = LoggerFactory.getLogger(Main.class);
 
+    private static final String HEADLESS_ARGUMENT = "--headless";
+
     public static void main(String[] args) throws IOException, ConfigurationException, InterruptedException {
+        boolean headless = false;
+        String propertiesFilePath = null;
+        for (String arg : args) {
+            if (HEADLESS_ARGUMENT.equals(arg)) {
+                headless = true;
+            } else {
+                propertiesFilePath = arg;
+            }
+        }
         Config config = null;
-        if (args.length == 0) {
+        if (propertiesFilePath == null) {
             log.info("use default properties");
             try(InputStream inputStream = Main.class.getResourceAsStream("/default.properties")) {
                 config = new Config(inputStream);
             }
         } else {
-            log.info("use provided properties file {}", args[0]);
-            config = new Config(args[0]);
+            log.info("use provided properties file {}", propertiesFilePath);
+            config = new Config(propertiesFilePath);
         }
         HttpTrafficLogMonitor httpTrafficLogMonitor = new HttpTrafficLogMonitor(config);
         httpTrafficLogMonitor.initialize();
+        MetricsHttpServer metricsHttpServer = null;
+        if (config.isHttpEnabled()) {
+            metricsHttpServer = new MetricsHttpServer(config.getHttpHost(), config.getHttpPort(),
+                    httpTrafficLogMonitor);
+            metricsHttpServer.start();
+        }
+        if (headless || config.isHeadlessEnabled()) {
+            startHeadless(config, httpTrafficLogMonitor, metricsHttpServer);
+            return;
+        }
         LanternConsole console = new LanternConsole(100, 30, httpTrafficLogMonitor);
         console.start();
+        if (metricsHttpServer != null) {
+            metricsHttpServer.close();
+        }
         httpTrafficLogMonitor.close();
     }
+
+    /**
+     * Report as newline delimited JSON until the process is stopped, the threads of the monitor keep it running after
+     * the main thread returns and a shutdown hook closes everything.
+     */
+    private static void startHeadless(Config config, HttpTrafficLogMonitor httpTrafficLogMonitor,
+            MetricsHttpServer metricsHttpServer) {
+        final AsyncLineWriter writer = config.getHeadlessOutput().isEmpty()
+                ? new AsyncLineWriter(System.out, config.getHeadlessQueueCapacity())
+                : new AsyncLineWriter(Paths.get(config.getHeadlessOutput()), config.getHeadlessOutputMaxBytes(),
+                        config.getHeadlessOutputMaxFiles(), config.getHeadlessQueueCapacity());
+        final NdjsonReporter reporter = new NdjsonReporter(httpTrafficLogMonitor, writer);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            reporter.close();
+            if (metricsHttpServer != null) {
+                metricsHttpServer.close();
+            }
+            httpTrafficLogMonitor.close();
+        }, "shutdown"));
+        reporter.start();
+        log.info("run headless, stop with SIGTERM or Ctrl-C");
+    }
 }
@@ -0,0 +1,48 @@
+package com.datadog.task;
+
+import com.datadog.task.controller.LogReplayer;
+import com.datadog.task.util.Config;
+import java.io.BufferedOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.file.Paths;
+import org.apache.commons.configuration2.ex.ConfigurationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Replay an archived access log and its rotated segments offline, usage: Replay &lt;access log&gt; [properties file].
+ */
+public class Replay {
+
+    private static final Logger log = LoggerFactory.getLogger(Replay.class);
+
+    public static void main(String[] args) throws IOException, ConfigurationException {
+        if (args.length == 0) {
+            System.err.println("Usage: Replay <access log> [properties file]");
+            System.exit(1);
+        }
+        Config config = null;
+        if (args.length == 1) {
+            log.info("use default properties");
+            try (InputStream inputStream = Replay.class.getResourceAsStream("/default.properties")) {
+                config = new Config(inputStream);
+            }
+        } else {
+            log.info("use provided properties file {}", args[1]);
+            config = new Config(args[1]);
+        }
+        // the reports are written at the speed of the replay, do not flush every line
+        final PrintStream out = new PrintStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out),
+                1 << 16), false);
+        final LogReplayer logReplayer = new LogReplayer(config, out);
+        final long start = System.nanoTime();
+        logReplayer.replay(Paths.get(args[0]));
+        out.flush();
+        log.info("replayed {} records in {} ms", logReplayer.getRecordNumber(),
+                (System.nanoTime() - start) / 1_000_000L);
+    }
+}
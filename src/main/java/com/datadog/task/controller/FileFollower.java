@@ -0,0 +1,369 @@
+package com.datadog.task.controller;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Objects;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Follow a growing file with a {@link FileChannel}, like "tail -F". Every {@link #poll()} reads everything appended
+ * since the last call into one reusable buffer, scans it for newlines and hands each line to the
+ * {@link LogLineHandler} as a slice of the buffer, so no object is created per line by the follower itself.
+ * <p>
+ * Rotation is detected by the file key (the inode on unix): when another file appears at the path, the old file is
+ * still read until it stays quiet for a whole poll, so the lines its writer appends until it reopens the path are
+ * not lost, and is read to its end once more before switching. A file which becomes shorter than the read position
+ * has been truncated and is read again from the beginning. After an error the file is reopened at the next poll and
+ * resumes from the checkpoint, like after a restart.
+ * <p>
+ * The {@link #getCheckpoint()} is the offset after the last line handed over. A follower which
+ * {@link #resumeFrom(FileOffset) resumes} from the checkpoint of a previous run skips the lines already handed over,
+ * and if the file has been rotated meanwhile, first reads the rest of the rotated segment which still has the
+ * checkpointed file key. This class is not thread safe, {@link #poll()} is expected to be called periodically by one
+ * thread at a time, only the progress counters and the checkpoint may be read by other threads.
+ */
+public class FileFollower implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(FileFollower.class);
+
+    private static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+
+    private static final int MAX_BUFFER_SIZE = 64 << 20;
+
+    private final Path path;
+
+    private final LogLineHandler handler;
+
+    private final int maxBufferSize;
+
+    private ByteBuffer buffer;
+
+    // a line longer than the max buffer size is being dropped, the input is skipped up to its newline
+    private boolean skippingLine;
+
+    private FileChannel channel;
+
+    private Object fileKey;
+
+    // another file has appeared at the path, the old one is drained until a poll reads nothing from it
+    private boolean rotationPending;
+
+    // the checkpoint of a previous run or of the channel closed by an error, applied when the file is opened
+    private FileOffset resumeOffset;
+
+    private volatile FileOffset checkpoint;
+
+    // the position of the next read in the file, the buffer may still hold an incomplete line before it.
+    private volatile long position;
+
+    // the lines handed over and the bytes read since the follower was created, written by the polling thread
+    private volatile long lineNumber;
+
+    private volatile long byteNumber;
+
+    public FileFollower(Path path, LogLineHandler handler) {
+        this(path, handler, DEFAULT_BUFFER_SIZE);
+    }
+
+    public FileFollower(Path path, LogLineHandler handler, int bufferSize) {
+        this(path, handler, bufferSize, MAX_BUFFER_SIZE);
+    }
+
+    @VisibleForTesting
+    FileFollower(Path path, LogLineHandler handler, int bufferSize, int maxBufferSize) {
+        this.path = path;
+        this.handler = handler;
+        this.maxBufferSize = Math.max(bufferSize, maxBufferSize);
+        this.buffer = ByteBuffer.allocate(bufferSize);
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    public long getByteNumber() {
+        return byteNumber;
+    }
+
+    /**
+     * Return the identity of the file read and the offset after the last line handed over, null before the file is
+     * opened.
+     */
+    public FileOffset getCheckpoint() {
+        return checkpoint;
+    }
+
+    /**
+     * Resume from the checkpoint of a previous run instead of the beginning of the file, must be called before the
+     * first poll.
+     */
+    public void resumeFrom(FileOffset offset) {
+        this.resumeOffset = offset;
+    }
+
+    /**
+     * Return how many bytes of the file at the path have not been read yet, it may be inaccurate right after a
+     * rotation.
+     */
+    public long getLagInBytes() {
+        try {
+            return Math.max(0L, Files.size(path) - position);
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+
+    /**
+     * Read all the complete lines appended to the file since the last poll.
+     */
+    public void poll() {
+        try {
+            if (channel == null && !open()) {
+                return;
+            }
+            final long read = readToEnd();
+            checkRotation(read);
+        } catch (IOException e) {
+            log.warn("Error while reading {}, reopen it in the next poll: {}", path, e.getMessage());
+            // the lines handed over are not read again, nor lost if the file is rotated meanwhile
+            if (channel != null && checkpoint != null) {
+                resumeOffset = checkpoint;
+            }
+            closeChannel();
+        }
+    }
+
+    /**
+     * Hand over the last line even if it does not end with a newline, for a file which is known to be complete.
+     */
+    public void flush() {
+        handleTail();
+        buffer.clear();
+        checkpoint = new FileOffset(fileKeyString(), position);
+    }
+
+    @Override
+    public void close() {
+        closeChannel();
+    }
+
+    private boolean open() throws IOException {
+        final BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        fileKey = attributes.fileKey();
+        rotationPending = false;
+        position = 0L;
+        buffer.clear();
+        // a line dropped before an error is still dropped when the same file is resumed
+        final boolean skipping = skippingLine;
+        skippingLine = false;
+        if (resumeOffset != null) {
+            skippingLine = resume(resumeOffset, attributes.size()) && skipping;
+            resumeOffset = null;
+        }
+        checkpoint = new FileOffset(fileKeyString(), position);
+        log.info("Start following {} at byte {}", path, position);
+        return true;
+    }
+
+    /**
+     * Move to the offset if the file is the one checkpointed, or drain the rest of the rotated segment which is.
+     *
+     * @return true if the file is resumed at the offset.
+     */
+    private boolean resume(FileOffset offset, long size) {
+        if (offset.matches(fileKeyString(), size)) {
+            position = offset.getOffset();
+            return true;
+        }
+        if (offset.getFileKey() == null) {
+            log.warn("{} is shorter than its checkpoint, read it from the beginning", path);
+            return false;
+        }
+        // the file has been rotated since the checkpoint, its rest may be in a rotated segment
+        try {
+            for (Path segment : LogSegmentReader.rotationChain(path)) {
+                final Object segmentKey = Files.readAttributes(segment, BasicFileAttributes.class).fileKey();
+                if (segmentKey != null && offset.getFileKey().equals(segmentKey.toString())) {
+                    drainSegment(segment, offset.getOffset());
+                    return false;
+                }
+            }
+            log.warn("The file checkpointed for {} is gone, read the new file from the beginning", path);
+        } catch (IOException e) {
+            log.warn("Error while reading the rotated segments of {}: {}", path, e.getMessage());
+        }
+        return false;
+    }
+
+    private void drainSegment(Path segment, long offset) throws IOException {
+        try (FileChannel segmentChannel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            segmentChannel.position(offset);
+            final long lines = LogSegmentReader.read(Channels.newInputStream(segmentChannel), handler,
+                    buffer.capacity());
+            lineNumber += lines;
+            log.info("Read the last {} lines of {} rotated away from {}", lines, segment, path);
+        }
+    }
+
+    private String fileKeyString() {
+        return fileKey == null ? null : fileKey.toString();
+    }
+
+    /**
+     * Read the channel to its end and return the number of bytes read.
+     */
+    private long readToEnd() throws IOException {
+        long total = 0L;
+        while (true) {
+            if (!buffer.hasRemaining()) {
+                growBuffer();
+            }
+            final int read = channel.read(buffer, position);
+            if (read <= 0) {
+                return total;
+            }
+            position += read;
+            byteNumber += read;
+            total += read;
+            handleLines();
+        }
+    }
+
+    /**
+     * Hand over the complete lines in the buffer and move the incomplete tail to the head of the buffer.
+     */
+    private void handleLines() {
+        final byte[] bytes = buffer.array();
+        final int end = buffer.position();
+        int lineStart = 0;
+        int lines = 0;
+        int i = 0;
+        if (skippingLine) {
+            while (i < end && bytes[i] != '\n') {
+                i++;
+            }
+            if (i == end) {
+                buffer.clear();
+                checkpoint = new FileOffset(fileKeyString(), position);
+                return;
+            }
+            skippingLine = false;
+            lineStart = ++i;
+        }
+        for (; i < end; i++) {
+            if (bytes[i] == '\n') {
+                if (handleLine(bytes, lineStart, i)) {
+                    lines++;
+                }
+                lineStart = i + 1;
+            }
+        }
+        // one volatile write per read instead of one per line
+        lineNumber += lines;
+        buffer.limit(end);
+        buffer.position(lineStart);
+        buffer.compact();
+        checkpoint = new FileOffset(fileKeyString(), position - buffer.position());
+    }
+
+    /**
+     * Hand over the incomplete line at the head of the buffer, unless it is the rest of a dropped line.
+     */
+    private void handleTail() {
+        if (skippingLine) {
+            skippingLine = false;
+        } else if (handleLine(buffer.array(), 0, buffer.position())) {
+            lineNumber++;
+        }
+    }
+
+    private boolean handleLine(byte[] bytes, int start, int end) {
+        if (end > start && bytes[end - 1] == '\r') {
+            end--;
+        }
+        if (end > start) {
+            handler.handle(bytes, start, end - start);
+            return true;
+        }
+        return false;
+    }
+
+    private void growBuffer() {
+        if (buffer.capacity() >= maxBufferSize) {
+            log.warn("Drop a line longer than {} bytes in {}", maxBufferSize, path);
+            buffer.clear();
+            skippingLine = true;
+            return;
+        }
+        final ByteBuffer newBuffer = ByteBuffer.allocate((int) Math.min(maxBufferSize, buffer.capacity() * 2L));
+        buffer.flip();
+        newBuffer.put(buffer);
+        buffer = newBuffer;
+    }
+
+    private void checkRotation(long read) throws IOException {
+        final BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            // rotated but the new file is not created yet, keep the old one.
+            return;
+        }
+        if (!Objects.equals(fileKey, attributes.fileKey())) {
+            if (!rotationPending) {
+                log.info("{} has been rotated, drain the old file until it is quiet", path);
+                rotationPending = true;
+                return;
+            }
+            // the writer may still append to the old file until it reopens the path
+            if (read > 0 || readToEnd() > 0) {
+                return;
+            }
+            // the old file has been read to its end, the last line may not end with a newline.
+            log.info("{} has been rotated, switch to the new file", path);
+            handleTail();
+            closeChannel();
+            open();
+            readToEnd();
+        } else if (attributes.size() < position) {
+            log.info("{} has been truncated", path);
+            position = 0L;
+            buffer.clear();
+            skippingLine = false;
+            checkpoint = new FileOffset(fileKeyString(), 0L);
+            readToEnd();
+        }
+    }
+
+    private void closeChannel() {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.warn("Error while closing {}", path, e);
+        }
+        channel = null;
+    }
+}
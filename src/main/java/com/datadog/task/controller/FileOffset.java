@@ -0,0 +1,62 @@
+package com.datadog.task.controller;
+
+import java.util.Objects;
+
+/**
+ * The identity of a file and the byte offset up to which it has been handed over, the offset is always at the start
+ * of a line. The identity is the file key, the inode on unix, so a file rotated away or replaced at the same path is
+ * told apart from the file which was read. Where the file system has no file key, only the size of the file tells if
+ * the offset still fits.
+ */
+public final class FileOffset {
+
+    // null if the file system has no file key
+    private final String fileKey;
+
+    private final long offset;
+
+    public FileOffset(String fileKey, long offset) {
+        this.fileKey = fileKey;
+        this.offset = offset;
+    }
+
+    /**
+     * Return the file key as a string, e.g. "(dev=803,ino=1234)", or null if the file system has none.
+     */
+    public String getFileKey() {
+        return fileKey;
+    }
+
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * Return whether this offset belongs to the file with the given key and size.
+     */
+    public boolean matches(String fileKey, long size) {
+        return Objects.equals(this.fileKey, fileKey) && offset <= size;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        final FileOffset that = (FileOffset) o;
+        return offset == that.offset && Objects.equals(fileKey, that.fileKey);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(fileKey, offset);
+    }
+
+    @Override
+    public String toString() {
+        return offset + " " + fileKey;
+    }
+}
@@ -0,0 +1,61 @@
+package com.datadog.task.controller;
+
+import java.nio.file.Path;
+
+/**
+ * The progress of a {@link LogReader} on one file, as of the last status update.
+ */
+public class FileStatus {
+
+    private final Path path;
+
+    private final long lineNumber;
+
+    private final long byteNumber;
+
+    private final long lagInBytes;
+
+    private final double linesPerSec;
+
+    public FileStatus(Path path, long lineNumber, long byteNumber, long lagInBytes, double linesPerSec) {
+        this.path = path;
+        this.lineNumber = lineNumber;
+        this.byteNumber = byteNumber;
+        this.lagInBytes = lagInBytes;
+        this.linesPerSec = linesPerSec;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Return the number of lines read since the reader started.
+     */
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    public long getByteNumber() {
+        return byteNumber;
+    }
+
+    /**
+     * Return how many bytes were written to the file but not read yet.
+     */
+    public long getLagInBytes() {
+        return lagInBytes;
+    }
+
+    /**
+     * Return the lines read per second since the previous status update.
+     */
+    public double getLinesPerSec() {
+        return linesPerSec;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d lines, %.1f lines/s, lag %d bytes", path, lineNumber, linesPerSec, lagInBytes);
+    }
+}
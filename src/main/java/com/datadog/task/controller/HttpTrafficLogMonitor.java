@@ -1,34 +1,101 @@
 package com.datadog.task.controller;
 
+import com.datadog.task.metrics.MetricsRegistry;
+import com.datadog.task.model.StatisticsSnapshot;
+import com.datadog.task.storage.InstrumentedStatisticsRepository;
 import com.datadog.task.storage.StatisticsRepository;
+import com.datadog.task.storage.WindowClock;
+import com.datadog.task.storage.WindowStateStore;
 import com.datadog.task.util.Config;
 import com.google.common.eventbus.EventBus;
+import java.nio.file.Paths;
+import java.time.Clock;
+import java.util.List;
 
 public class HttpTrafficLogMonitor extends LifeCycle {
 
     private final LogReader logReader;
 
+    private final LogPipeline logPipeline;
+
+    private final WindowSnapshotter windowSnapshotter;
+
     private final StatisticsCollector statisticsCollector;
 
     private final TrafficAlert trafficAlert;
 
     private final EventBus eventBus;
 
+    private final MetricsRegistry metrics;
+
     public HttpTrafficLogMonitor(Config configuration) {
+        this(configuration, Clock.systemDefaultZone());
+    }
+
+    /**
+     * Construct a monitor whose repository, collector and alert share the given clock.
+     */
+    public HttpTrafficLogMonitor(Config configuration, Clock clock) {
         this.eventBus = new EventBus();
-        StatisticsRepository statisticsRepository = new StatisticsRepository(configuration.getTimeWindowSizeInSec());
-        this.logReader = new LogReader(configuration.getFilePath(), statisticsRepository, eventBus);
+        this.metrics = new MetricsRegistry();
+        final WindowClock windowClock = WindowClock.newClock(configuration.getStatisticsTime(),
+                configuration.getAllowedLatenessInSec(), clock);
+        StatisticsRepository statisticsRepository = new InstrumentedStatisticsRepository(
+                StatisticsRepository.create(configuration, windowClock), metrics);
+        final ReadCheckpoint checkpoint = configuration.getCheckpointPath().isEmpty() ? null
+                : new ReadCheckpoint(Paths.get(configuration.getCheckpointPath()));
+        if (configuration.isPipelineEnabled()) {
+            this.logPipeline = new LogPipeline(configuration.getPipelineQueueCapacity(),
+                    configuration.getPipelineBatchSize(), configuration.getPipelineBatchMaxLatencyInMs(),
+                    configuration.getPipelineParserThreads(), statisticsRepository, eventBus, metrics);
+            this.logReader = new LogReader(configuration.getFilePaths(), configuration.getLogFileFollower(),
+                    new LogReader.PipelineLineHandler(logPipeline), configuration.getLogFileReaderThreads(),
+                    checkpoint);
+        } else {
+            this.logPipeline = null;
+            this.logReader = new LogReader(configuration.getFilePaths(), configuration.getLogFileFollower(),
+                    new LogReader.RepositoryLineHandler(statisticsRepository, eventBus, metrics),
+                    configuration.getLogFileReaderThreads(), checkpoint);
+        }
+        this.windowSnapshotter = configuration.getSnapshotPath().isEmpty() ? null
+                : new WindowSnapshotter(statisticsRepository,
+                        new WindowStateStore(Paths.get(configuration.getSnapshotPath())),
+                        checkpoint == null ? null : logReader, configuration.getSnapshotIntervalInSec());
         this.statisticsCollector = new StatisticsCollector(configuration.getStatisticIntervalInSec(),
-                configuration.getStatisticsTopK(), statisticsRepository);
+                configuration.getStatisticsTopK(), statisticsRepository, clock);
         this.trafficAlert = new TrafficAlert(configuration.getAlertThresholdPerSec(),
                 configuration.getTimeWindowSizeInSec(),
-                statisticsRepository);
+                statisticsRepository, clock, metrics);
+        metrics.counter(MetricsRegistry.LINES_READ, logReader::getLineNumber);
+        metrics.counter(MetricsRegistry.BYTES_READ, logReader::getByteNumber);
+        metrics.gauge(MetricsRegistry.LAG_IN_BYTES, logReader::getLagInBytes);
     }
 
     public String getStatisticsMessage() {
         return statisticsCollector.getStatisticsMessage();
     }
 
+    /**
+     * Return the statistics of the last report interval, null before the first report.
+     */
+    public StatisticsSnapshot getStatisticsSnapshot() {
+        return statisticsCollector.getStatisticsSnapshot();
+    }
+
+    /**
+     * Return the throughput and the lag of every log file followed.
+     */
+    public List<FileStatus> getFileStatuses() {
+        return logReader.getFileStatuses();
+    }
+
+    /**
+     * Return the metrics the monitor keeps about itself.
+     */
+    public MetricsRegistry getMetrics() {
+        return metrics;
+    }
+
     public boolean inAlert() {
         return trafficAlert.inAlert();
     }
@@ -37,8 +104,21 @@ public class HttpTrafficLogMonitor extends LifeCycle {
         return trafficAlert.getAlertMessage();
     }
 
+    /**
+     * Register a listener of the transitions of the alert, see {@link TrafficAlert#register(Object)}.
+     */
+    public void registerAlertListener(Object listener) {
+        trafficAlert.register(listener);
+    }
+
     @Override
     void doInitialize() {
+        if (windowSnapshotter != null) {
+            windowSnapshotter.initialize();
+        }
+        if (logPipeline != null) {
+            logPipeline.initialize();
+        }
         logReader.initialize();
         statisticsCollector.initialize();
         trafficAlert.initialize();
@@ -48,6 +128,12 @@ public class HttpTrafficLogMonitor extends LifeCycle {
     @Override
     void doClose() {
         logReader.close();
+        if (logPipeline != null) {
+            logPipeline.close();
+        }
+        if (windowSnapshotter != null) {
+            windowSnapshotter.close();
+        }
         statisticsCollector.close();
         trafficAlert.close();
     }
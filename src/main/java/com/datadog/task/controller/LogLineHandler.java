@@ -0,0 +1,44 @@
+package com.datadog.task.controller;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Receive the lines read by a {@link LogReader}.
+ */
+public interface LogLineHandler {
+
+    /**
+     * Handle one line without its line terminator.
+     *
+     * @param logLine the raw log line.
+     */
+    void handle(String logLine);
+
+    /**
+     * Handle one line held in a slice of a buffer, without its line terminator. The buffer is reused once the method
+     * returns, an implementation must not keep a reference to it.
+     *
+     * @param bytes  the buffer holds the line.
+     * @param offset the offset of the first byte of the line.
+     * @param length the length of the line in bytes.
+     */
+    default void handle(byte[] bytes, int offset, int length) {
+        handle(new String(bytes, offset, length, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Return the number of lines handed over so far. A line is counted before it is queued, so the count read after a
+     * line has been handed over covers it. A handler which applies the lines as it receives them returns 0.
+     */
+    default long getOfferedLines() {
+        return 0L;
+    }
+
+    /**
+     * Return the number of lines applied so far, the lines are applied in the order they were counted by
+     * {@link #getOfferedLines()}. A handler which applies the lines as it receives them returns 0.
+     */
+    default long getAppliedLines() {
+        return 0L;
+    }
+}
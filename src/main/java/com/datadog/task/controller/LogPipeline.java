@@ -0,0 +1,358 @@
+package com.datadog.task.controller;
+
+import com.datadog.task.metrics.InstrumentedLogParser;
+import com.datadog.task.metrics.MetricsRegistry;
+import com.datadog.task.model.LogRecord;
+import com.datadog.task.model.NewLogReceivedEvent;
+import com.datadog.task.storage.StatisticsRepository;
+import com.google.common.base.Preconditions;
+import com.google.common.eventbus.EventBus;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A bounded queue between the log reader and the repository. The reader thread only enqueues the raw bytes of the
+ * lines, the pipeline cuts them into micro-batches: a batch is complete when it reaches the batch size or when its
+ * first line has waited for the max latency. Each batch is added with one call to
+ * {@link StatisticsRepository#addRecords(List)} and posts one {@link NewLogReceivedEvent}, so the traffic alert is
+ * evaluated once per batch instead of once per line. When the queue is full the reader blocks.
+ * <p>
+ * With one parser thread the batches are parsed and added by the pipeline thread itself. With more, the batches are
+ * parsed in parallel by a pool of parser threads and handed over to a single aggregator thread in the order they were
+ * read, through a bounded queue of pending results. The repository places every record in the slot of its own
+ * timestamp, so a record parsed late still lands in the right second as long as it is inside the time window.
+ * <p>
+ * The pipeline counts the lines offered and the lines applied, parsed and added or dropped, so a caller can
+ * {@link #awaitApplied(long) wait} until the lines it offered are in the repository, or check whether they are with
+ * {@link #getAppliedLines()}.
+ */
+public class LogPipeline extends LifeCycle {
+
+    private static final Logger log = LoggerFactory.getLogger(LogPipeline.class);
+
+    // how long the pipeline threads wait for work before checking whether they should stop
+    private static final long IDLE_POLL_IN_MS = 100L;
+
+    private final BlockingQueue<byte[]> queue;
+
+    private final int batchSize;
+
+    private final long maxLatencyInNanos;
+
+    private final int parserThreads;
+
+    private final StatisticsRepository statisticsRepository;
+
+    private final EventBus eventBus;
+
+    private final ExecutorService executorService;
+
+    // parsed batches in the order they were read, only used with more than one parser thread
+    private final BlockingQueue<ParsedBatch> parsedBatches;
+
+    private final ExecutorService parserService;
+
+    private final ExecutorService aggregatorService;
+
+    private final InstrumentedLogParser parser;
+
+    // counted before a line is queued, so it is never behind the position of a line in the queue
+    private final AtomicLong offeredLines;
+
+    // the lines applied, written under the monitor of the pipeline
+    private volatile long appliedLines;
+
+    private volatile boolean running;
+
+    private volatile boolean batching;
+
+    /**
+     * Construct a new LogPipeline which parses on the pipeline thread.
+     *
+     * @param queueCapacity        the max number of lines waiting to be parsed.
+     * @param batchSize            the max number of lines in a batch.
+     * @param maxLatencyInMillis   the max time a line waits for its batch to be flushed.
+     * @param statisticsRepository the statistic repository stores all statistics.
+     * @param eventBus             the event bus to post a {@link NewLogReceivedEvent} per batch.
+     */
+    public LogPipeline(int queueCapacity, int batchSize, long maxLatencyInMillis,
+            StatisticsRepository statisticsRepository, EventBus eventBus) {
+        this(queueCapacity, batchSize, maxLatencyInMillis, 1, statisticsRepository, eventBus);
+    }
+
+    /**
+     * Construct a new LogPipeline.
+     *
+     * @param queueCapacity        the max number of lines waiting to be parsed.
+     * @param batchSize            the max number of lines in a batch.
+     * @param maxLatencyInMillis   the max time a line waits for its batch to be flushed.
+     * @param parserThreads        the number of threads parsing the batches.
+     * @param statisticsRepository the statistic repository stores all statistics.
+     * @param eventBus             the event bus to post a {@link NewLogReceivedEvent} per batch.
+     */
+    public LogPipeline(int queueCapacity, int batchSize, long maxLatencyInMillis, int parserThreads,
+            StatisticsRepository statisticsRepository, EventBus eventBus) {
+        this(queueCapacity, batchSize, maxLatencyInMillis, parserThreads, statisticsRepository, eventBus,
+                new MetricsRegistry());
+    }
+
+    /**
+     * Construct a new LogPipeline which counts the lines parsed into the given metrics.
+     *
+     * @param queueCapacity        the max number of lines waiting to be parsed.
+     * @param batchSize            the max number of lines in a batch.
+     * @param maxLatencyInMillis   the max time a line waits for its batch to be flushed.
+     * @param parserThreads        the number of threads parsing the batches.
+     * @param statisticsRepository the statistic repository stores all statistics.
+     * @param eventBus             the event bus to post a {@link NewLogReceivedEvent} per batch.
+     * @param metrics              the metrics of the monitor.
+     */
+    public LogPipeline(int queueCapacity, int batchSize, long maxLatencyInMillis, int parserThreads,
+            StatisticsRepository statisticsRepository, EventBus eventBus, MetricsRegistry metrics) {
+        Preconditions.checkArgument(batchSize > 0, "Batch size should be a positive number.");
+        Preconditions.checkArgument(parserThreads > 0, "Parser threads should be a positive number.");
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.maxLatencyInNanos = TimeUnit.MILLISECONDS.toNanos(maxLatencyInMillis);
+        this.parserThreads = parserThreads;
+        this.statisticsRepository = statisticsRepository;
+        this.eventBus = eventBus;
+        this.parser = new InstrumentedLogParser(metrics);
+        this.offeredLines = new AtomicLong();
+        this.executorService = Executors.newSingleThreadExecutor();
+        if (parserThreads > 1) {
+            this.parsedBatches = new ArrayBlockingQueue<>(parserThreads * 2);
+            this.parserService = Executors.newFixedThreadPool(parserThreads,
+                    new ThreadFactoryBuilder().setNameFormat("log-parser-%d").setDaemon(true).build());
+            this.aggregatorService = Executors.newSingleThreadExecutor();
+        } else {
+            this.parsedBatches = null;
+            this.parserService = null;
+            this.aggregatorService = null;
+        }
+    }
+
+    /**
+     * Enqueue one raw log line, block if the queue is full.
+     *
+     * @param logLine the raw log line.
+     */
+    public void offer(String logLine) {
+        put(logLine.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Enqueue one raw log line held in a slice of a buffer, block if the queue is full. The line is copied, the buffer
+     * can be reused once the method returns.
+     *
+     * @param bytes  the buffer holds the UTF-8 log line.
+     * @param offset the offset of the first byte of the line.
+     * @param length the length of the line in bytes.
+     */
+    public void offer(byte[] bytes, int offset, int length) {
+        put(Arrays.copyOfRange(bytes, offset, offset + length));
+    }
+
+    private void put(byte[] logLine) {
+        offeredLines.incrementAndGet();
+        try {
+            queue.put(logLine);
+        } catch (InterruptedException e) {
+            offeredLines.decrementAndGet();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Return the number of lines offered so far. A line is counted before it is queued, so the count read after a
+     * line has been offered covers it, and every line counted has been applied once {@link #getAppliedLines()}
+     * reaches the count.
+     */
+    public long getOfferedLines() {
+        return offeredLines.get();
+    }
+
+    /**
+     * Return the number of lines applied so far, in the order they were offered.
+     */
+    public long getAppliedLines() {
+        return appliedLines;
+    }
+
+    /**
+     * Wait until every line offered so far has been applied, the lines offered meanwhile are not waited for.
+     *
+     * @param timeoutInMillis the max time to wait.
+     * @return false if the lines were not applied in time.
+     * @throws InterruptedException if the thread is interrupted while waiting.
+     */
+    public synchronized boolean awaitApplied(long timeoutInMillis) throws InterruptedException {
+        final long offered = offeredLines.get();
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutInMillis);
+        while (appliedLines < offered) {
+            final long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return false;
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        return true;
+    }
+
+    @Override
+    void doInitialize() {
+        running = true;
+        batching = true;
+        if (parserThreads > 1) {
+            aggregatorService.execute(this::aggregate);
+        }
+        executorService.execute(this::run);
+    }
+
+    @Override
+    void doClose() {
+        running = false;
+        // stop in the order of the data flow, so every queued line is still added
+        shutdown(executorService);
+        if (parserThreads > 1) {
+            batching = false;
+            shutdown(parserService);
+            shutdown(aggregatorService);
+        }
+    }
+
+    private void shutdown(ExecutorService service) {
+        service.shutdown();
+        try {
+            service.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (final InterruptedException e) {
+            log.error("Error while stopping the pipeline threads");
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        List<byte[]> lines = new ArrayList<>(batchSize);
+        final List<LogRecord> records = new ArrayList<>(batchSize);
+        try {
+            while (running || !queue.isEmpty()) {
+                if (!nextBatch(lines)) {
+                    continue;
+                }
+                if (parserThreads > 1) {
+                    final List<byte[]> batch = lines;
+                    parsedBatches.put(new ParsedBatch(batch.size(),
+                            parserService.submit(() -> parse(batch, new ArrayList<>(batch.size())))));
+                    lines = new ArrayList<>(batchSize);
+                    continue;
+                }
+                try {
+                    apply(parse(lines, records));
+                } catch (RuntimeException e) {
+                    log.error("Failed to process a batch of {} lines", lines.size(), e);
+                } finally {
+                    applied(lines.size());
+                    lines.clear();
+                    records.clear();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Take the parsed batches in the order they were read and add them to the repository.
+     */
+    private void aggregate() {
+        try {
+            while (batching || !parsedBatches.isEmpty()) {
+                final ParsedBatch parsed = parsedBatches.poll(IDLE_POLL_IN_MS, TimeUnit.MILLISECONDS);
+                if (parsed == null) {
+                    continue;
+                }
+                try {
+                    apply(parsed.records.get());
+                } catch (ExecutionException | RuntimeException e) {
+                    log.error("Failed to process a batch", e);
+                } finally {
+                    applied(parsed.lineNumber);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Collect the next batch of lines, wait for the max latency after the first line at most.
+     *
+     * @return false if no line arrived.
+     */
+    private boolean nextBatch(List<byte[]> lines) throws InterruptedException {
+        final byte[] first = queue.poll(IDLE_POLL_IN_MS, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return false;
+        }
+        lines.add(first);
+        final long deadline = System.nanoTime() + maxLatencyInNanos;
+        while (lines.size() < batchSize) {
+            if (queue.drainTo(lines, batchSize - lines.size()) > 0) {
+                continue;
+            }
+            final long remaining = deadline - System.nanoTime();
+            final byte[] line = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+            if (line == null) {
+                break;
+            }
+            lines.add(line);
+        }
+        return true;
+    }
+
+    private List<LogRecord> parse(List<byte[]> lines, List<LogRecord> records) {
+        for (byte[] line : lines) {
+            final Optional<LogRecord> logRecord = parser.parse(line, 0, line.length);
+            logRecord.ifPresent(records::add);
+        }
+        return records;
+    }
+
+    private void apply(List<LogRecord> records) {
+        if (!records.isEmpty()) {
+            statisticsRepository.addRecords(records);
+            eventBus.post(new NewLogReceivedEvent());
+        }
+    }
+
+    private synchronized void applied(int lines) {
+        appliedLines += lines;
+        notifyAll();
+    }
+
+    private static class ParsedBatch {
+
+        private final int lineNumber;
+
+        private final Future<List<LogRecord>> records;
+
+        private ParsedBatch(int lineNumber, Future<List<LogRecord>> records) {
+            this.lineNumber = lineNumber;
+            this.records = records;
+        }
+    }
+}
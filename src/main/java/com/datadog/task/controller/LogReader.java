@@ -1,82 +1,681 @@
 package com.datadog.task.controller;
 
+import com.datadog.task.metrics.InstrumentedLogParser;
+import com.datadog.task.metrics.MetricsRegistry;
 import com.datadog.task.model.LogRecord;
 import com.datadog.task.model.NewLogReceivedEvent;
 import com.datadog.task.storage.StatisticsRepository;
-import com.datadog.task.util.LogParser;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Preconditions;
 import com.google.common.eventbus.EventBus;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.io.File;
-import java.time.Instant;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
 import org.apache.commons.io.input.Tailer;
 import org.apache.commons.io.input.TailerListenerAdapter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Follow one or more log files and hand every line to a {@link LogLineHandler}. With the {@link #NIO} follower the
+ * reader accepts a list of paths and glob patterns (e.g. "/var/log/nginx/*.access.log"): every matching file is
+ * followed by its own {@link FileFollower}, all of them polled on one small shared pool and feeding the same handler,
+ * so the parsing and aggregation downstream are shared by all the files. The globs are scanned again every second for
+ * new files, and a file which no longer matches in two scans in a row is dropped as soon as it is drained. A matching
+ * gzip file is an archived segment, it is read once with the {@link LogSegmentReader} on a thread of its own, so a
+ * large segment does not delay the polls of the live files. A segment is known by its file key and size rather than
+ * its path, so a numbered rotation which renames access.log.2.gz to access.log.3.gz does not read it again, and a
+ * segment is only read once it has not been modified for a scan interval, when its compression is complete. The globs
+ * should not match the rotated uncompressed files which would be read again.
+ * <p>
+ * Every {@value #STATUS_INTERVAL_IN_SEC} seconds the reader records the throughput and the lag of every file, see
+ * {@link #getFileStatuses()}.
+ * <p>
+ * With a {@link ReadCheckpoint} the offset of every followed file, and the identity of every compressed segment read,
+ * are saved every second and when the reader is closed. On startup every file resumes from its checkpoint and the
+ * segments already read are skipped, so a restart does not read a large file again and hands over at most the lines
+ * of the last second before a crash twice. The tailer follower cannot start at an offset and ignores the checkpoint.
+ * <p>
+ * The offsets only cover the lines the handler has applied, and the followers are never paused for a checkpoint:
+ * after every poll the offset a follower reached is recorded with the number of lines offered to the handler by then,
+ * and it is published once the handler has applied that many lines, see {@link #captureCheckpoint(Runnable)}. A
+ * {@link WindowSnapshotter} saves the checkpoint with every snapshot of the window instead, so the restored window
+ * holds every line before the resumed offsets.
+ */
 public class LogReader extends LifeCycle {
 
+    /**
+     * Follow the file with a {@link FileFollower}.
+     */
+    public static final String NIO = "nio";
+
+    /**
+     * Follow the file with the commons-io {@link Tailer}, only one file is supported.
+     */
+    public static final String TAILER = "tailer";
+
     private static final Logger log = LoggerFactory.getLogger(LogReader.class);
 
-    private final String filePath;
+    private static final long POLL_INTERVAL_IN_MS = 5L;
+
+    private static final long RESCAN_INTERVAL_IN_MS = 1000L;
+
+    private static final long STATUS_INTERVAL_IN_SEC = 10L;
+
+    private static final long CHECKPOINT_INTERVAL_IN_SEC = 1L;
+
+    private static final String GLOB_CHARACTERS = "*?[{";
+
+    private static final String COMPRESSED_SUFFIX = ".gz";
+
+    private final List<String> filePatterns;
+
+    private final String followerType;
+
+    private final LogLineHandler handler;
+
+    private final ScheduledExecutorService executorService;
+
+    private final ExecutorService segmentService;
+
+    private final Map<Path, FileFollower> fileFollowers;
+
+    // the offsets recorded by the poll task of every follower, until the handler has applied their lines
+    private final Map<Path, AppliedOffsets> appliedOffsets;
+
+    private final Map<Path, ScheduledFuture<?>> pollTasks;
+
+    // the followed files which did not match in the last scan, only used by the scan task
+    private final Set<Path> missingPaths;
+
+    // the followed files which did not match in two scans in a row, dropped once drained
+    private final Set<Path> vanishedPaths;
+
+    // guards the progress of the followers dropped with their removal, so the sums of the progress never go back
+    private final Object droppedLock;
 
-    private final StatisticsRepository statisticsRepository;
+    private long droppedLineNumber;
 
-    private final ExecutorService executorService;
+    private long droppedByteNumber;
 
-    private final EventBus eventBus;
+    // the identities of the compressed segments being read or read
+    private final Set<FileOffset> segments;
+
+    // the absolute path where every compressed segment read completely was last seen, by identity
+    private final Map<FileOffset, Path> readSegments;
+
+    // the lines offered to the handler when every compressed segment had been read, by identity
+    private final Map<FileOffset, Long> segmentOfferedLines;
+
+    private final ReadCheckpoint checkpoint;
+
+    private volatile boolean checkpointScheduled;
+
+    // the offsets loaded from the checkpoint, by absolute path
+    private volatile Map<Path, FileOffset> resumeOffsets;
+
+    // the line numbers of the previous status update, only used by the status task
+    private final Map<Path, Long> previousLineNumbers;
+
+    private final AtomicReference<List<FileStatus>> fileStatuses;
+
+    private long previousStatusTime;
 
     private Tailer tailer;
 
+    /**
+     * Construct a reader which parses every line and adds it to the repository on the reader thread.
+     */
     public LogReader(String filePath, StatisticsRepository statisticsRepository, EventBus eventBus) {
-        this.filePath = filePath;
-        this.statisticsRepository = statisticsRepository;
-        this.executorService = Executors.newSingleThreadExecutor();
-        this.eventBus = eventBus;
+        this(filePath, NIO, new RepositoryLineHandler(statisticsRepository, eventBus));
+    }
+
+    /**
+     * Construct a reader which hands the raw lines over to a {@link LogPipeline}.
+     */
+    public LogReader(String filePath, LogPipeline logPipeline) {
+        this(filePath, NIO, new PipelineLineHandler(logPipeline));
+    }
+
+    /**
+     * Construct a reader.
+     *
+     * @param filePath     the file to follow.
+     * @param followerType {@link #NIO} or {@link #TAILER}.
+     * @param handler      the handler of every line.
+     */
+    public LogReader(String filePath, String followerType, LogLineHandler handler) {
+        this(Collections.singletonList(filePath), followerType, handler, 1);
+    }
+
+    /**
+     * Construct a reader of many files.
+     *
+     * @param filePatterns the files to follow, paths or glob patterns.
+     * @param followerType {@link #NIO}, or {@link #TAILER} for a single path.
+     * @param handler      the handler of every line, called concurrently for different files.
+     * @param threads      the number of threads polling the files.
+     */
+    public LogReader(List<String> filePatterns, String followerType, LogLineHandler handler, int threads) {
+        this(filePatterns, followerType, handler, threads, null);
+    }
+
+    /**
+     * Construct a reader of many files which resumes from a checkpoint.
+     *
+     * @param filePatterns the files to follow, paths or glob patterns.
+     * @param followerType {@link #NIO}, or {@link #TAILER} for a single path.
+     * @param handler      the handler of every line, called concurrently for different files.
+     * @param threads      the number of threads polling the files.
+     * @param checkpoint   where the read offsets are saved, null to always read the files from the beginning.
+     */
+    public LogReader(List<String> filePatterns, String followerType, LogLineHandler handler, int threads,
+            ReadCheckpoint checkpoint) {
+        if (!NIO.equals(followerType) && !TAILER.equals(followerType)) {
+            throw new IllegalArgumentException("Unknown log follower " + followerType);
+        }
+        Preconditions.checkArgument(!filePatterns.isEmpty(), "No log file to follow.");
+        Preconditions.checkArgument(threads > 0, "Reader threads should be a positive number.");
+        if (TAILER.equals(followerType) && (filePatterns.size() > 1 || isGlob(filePatterns.get(0)))) {
+            throw new IllegalArgumentException("The tailer follower only follows one file");
+        }
+        this.filePatterns = filePatterns;
+        this.followerType = followerType;
+        this.handler = handler;
+        this.executorService = Executors.newScheduledThreadPool(threads,
+                new ThreadFactoryBuilder().setNameFormat("log-reader-%d").build());
+        this.segmentService = Executors.newSingleThreadExecutor(
+                new ThreadFactoryBuilder().setNameFormat("log-segment-%d").build());
+        this.fileFollowers = new ConcurrentHashMap<>();
+        this.appliedOffsets = new ConcurrentHashMap<>();
+        this.pollTasks = new ConcurrentHashMap<>();
+        this.missingPaths = new HashSet<>();
+        this.vanishedPaths = ConcurrentHashMap.newKeySet();
+        this.droppedLock = new Object();
+        this.segments = ConcurrentHashMap.newKeySet();
+        this.readSegments = new ConcurrentHashMap<>();
+        this.segmentOfferedLines = new ConcurrentHashMap<>();
+        this.checkpoint = checkpoint;
+        this.checkpointScheduled = true;
+        this.resumeOffsets = Collections.emptyMap();
+        this.previousLineNumbers = new HashMap<>();
+        this.fileStatuses = new AtomicReference<>(Collections.emptyList());
     }
 
     @Override
     void doInitialize() {
-        log.info("Create log tailer for file {}", filePath);
-        final File file = new File(filePath);
-        tailer = new Tailer(file, new LogTailerListener(statisticsRepository, eventBus), 5L);
-        executorService.execute(tailer);
+        if (TAILER.equals(followerType)) {
+            final String filePath = filePatterns.get(0);
+            log.info("Create log tailer for file {}", filePath);
+            tailer = new Tailer(new File(filePath), new HandlerTailerListener(handler), POLL_INTERVAL_IN_MS);
+            executorService.execute(tailer);
+            return;
+        }
+        if (checkpoint != null) {
+            try {
+                resumeOffsets = checkpoint.load();
+                log.info("Resume from the checkpoint {} of {} files", checkpoint.getPath(), resumeOffsets.size());
+                resumeOffsets.forEach((path, offset) -> {
+                    if (path.getFileName().toString().endsWith(COMPRESSED_SUFFIX)) {
+                        segmentOfferedLines.put(offset, 0L);
+                        readSegments.put(offset, path);
+                        segments.add(offset);
+                    }
+                });
+            } catch (IOException e) {
+                log.warn("Cannot load the checkpoint {}, read the files from the beginning: {}", checkpoint.getPath(),
+                        e.getMessage());
+            }
+            if (checkpointScheduled) {
+                executorService.scheduleWithFixedDelay(this::saveCheckpoint, CHECKPOINT_INTERVAL_IN_SEC,
+                        CHECKPOINT_INTERVAL_IN_SEC, TimeUnit.SECONDS);
+            }
+        }
+        followNewFiles();
+        if (filePatterns.stream().anyMatch(LogReader::isGlob)) {
+            executorService.scheduleWithFixedDelay(this::followNewFiles, RESCAN_INTERVAL_IN_MS, RESCAN_INTERVAL_IN_MS,
+                    TimeUnit.MILLISECONDS);
+        }
+        previousStatusTime = System.nanoTime();
+        executorService.scheduleAtFixedRate(this::updateFileStatuses, STATUS_INTERVAL_IN_SEC, STATUS_INTERVAL_IN_SEC,
+                TimeUnit.SECONDS);
     }
 
     @Override
     void doClose() {
-        tailer.stop();
+        if (tailer != null) {
+            tailer.stop();
+        }
         executorService.shutdown();
+        segmentService.shutdown();
         try {
             executorService.awaitTermination(10, TimeUnit.SECONDS);
+            segmentService.awaitTermination(10, TimeUnit.SECONDS);
         } catch (final InterruptedException e) {
             log.error("Error while stopping the scheduler thread pool");
             Thread.currentThread().interrupt();
         }
+        fileFollowers.values().forEach(FileFollower::close);
+        if (checkpoint != null && tailer == null && checkpointScheduled) {
+            saveCheckpoint();
+        }
+    }
+
+    /**
+     * Return the number of lines read from all the files followed.
+     */
+    public long getLineNumber() {
+        synchronized (droppedLock) {
+            return droppedLineNumber + fileFollowers.values().stream().mapToLong(FileFollower::getLineNumber).sum();
+        }
+    }
+
+    /**
+     * Return the number of bytes read from all the files followed.
+     */
+    public long getByteNumber() {
+        synchronized (droppedLock) {
+            return droppedByteNumber + fileFollowers.values().stream().mapToLong(FileFollower::getByteNumber).sum();
+        }
     }
 
-    public static class LogTailerListener extends TailerListenerAdapter {
+    /**
+     * Return how many bytes of all the files followed have not been read yet.
+     */
+    public long getLagInBytes() {
+        return fileFollowers.values().stream().mapToLong(FileFollower::getLagInBytes).sum();
+    }
+
+    /**
+     * Return the throughput and the lag of every file followed, as of the last status update.
+     */
+    public List<FileStatus> getFileStatuses() {
+        return fileStatuses.get();
+    }
+
+    /**
+     * Start following the files which match the patterns and are not followed yet, called by one thread at a time.
+     */
+    private void followNewFiles() {
+        final Set<Path> paths = resolve(filePatterns);
+        final Set<FileOffset> resolvedSegments = new HashSet<>();
+        for (Path path : paths) {
+            if (path.getFileName().toString().endsWith(COMPRESSED_SUFFIX)) {
+                final FileOffset identity = segmentIdentity(path);
+                if (identity == null) {
+                    continue;
+                }
+                resolvedSegments.add(identity);
+                if (readSegments.containsKey(identity)) {
+                    // renamed by a rotation since it was read
+                    readSegments.put(identity, path.toAbsolutePath());
+                } else if (segments.add(identity)) {
+                    segmentService.execute(() -> readSegment(path, identity));
+                }
+            } else if (!fileFollowers.containsKey(path)) {
+                log.info("Create log follower for file {}", path);
+                final FileFollower fileFollower = new FileFollower(path, handler);
+                final FileOffset resumeOffset = resumeOffsets.get(path.toAbsolutePath());
+                if (resumeOffset != null) {
+                    fileFollower.resumeFrom(resumeOffset);
+                }
+                final AppliedOffsets offsets = new AppliedOffsets(resumeOffset);
+                appliedOffsets.put(path, offsets);
+                fileFollowers.put(path, fileFollower);
+                pollTasks.put(path, executorService.scheduleWithFixedDelay(() -> poll(fileFollower, offsets), 0L,
+                        POLL_INTERVAL_IN_MS, TimeUnit.MILLISECONDS));
+            }
+        }
+        // forget the segments deleted or renamed out of the patterns
+        readSegments.keySet().removeIf(identity -> !resolvedSegments.contains(identity) && segments.remove(identity));
+        segmentOfferedLines.keySet().retainAll(readSegments.keySet());
+        // a file missing from one scan may be in the middle of a rotation, the new file has not been created yet
+        for (Path path : fileFollowers.keySet()) {
+            if (paths.contains(path)) {
+                missingPaths.remove(path);
+                vanishedPaths.remove(path);
+            } else if (!missingPaths.add(path)) {
+                vanishedPaths.add(path);
+            }
+        }
+    }
+
+    private void poll(FileFollower fileFollower, AppliedOffsets offsets) {
+        final long byteNumber = fileFollower.getByteNumber();
+        fileFollower.poll();
+        final FileOffset offset = fileFollower.getCheckpoint();
+        if (offset != null) {
+            offsets.record(offset, handler.getOfferedLines(), handler.getAppliedLines());
+        }
+        if (fileFollower.getByteNumber() == byteNumber && vanishedPaths.contains(fileFollower.getPath())) {
+            drop(fileFollower);
+        }
+    }
+
+    /**
+     * Stop following a file which no longer matches and has been drained, called by its own poll task.
+     */
+    private void drop(FileFollower fileFollower) {
+        final Path path = fileFollower.getPath();
+        log.info("{} no longer matches, stop following it", path);
+        fileFollower.flush();
+        fileFollower.close();
+        synchronized (droppedLock) {
+            droppedLineNumber += fileFollower.getLineNumber();
+            droppedByteNumber += fileFollower.getByteNumber();
+            fileFollowers.remove(path);
+        }
+        appliedOffsets.remove(path);
+        vanishedPaths.remove(path);
+        pollTasks.remove(path).cancel(false);
+    }
+
+    /**
+     * Return the file key and the size of a compressed segment, null if it is gone or may still be written.
+     */
+    private FileOffset segmentIdentity(Path path) {
+        try {
+            final BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            final boolean rescanned = filePatterns.stream().anyMatch(LogReader::isGlob);
+            if (rescanned && System.currentTimeMillis() - attributes.lastModifiedTime().toMillis()
+                    < RESCAN_INTERVAL_IN_MS) {
+                return null;
+            }
+            // without a file key, the path stands for it
+            final String fileKey = attributes.fileKey() == null ? path.toAbsolutePath().toString()
+                    : attributes.fileKey().toString();
+            return new FileOffset(fileKey, attributes.size());
+        } catch (IOException e) {
+            log.debug("Cannot read the attributes of {}: {}", path, e.getMessage());
+            return null;
+        }
+    }
+
+    private void readSegment(Path path, FileOffset identity) {
+        try {
+            final long lines = LogSegmentReader.read(path, handler, LogSegmentReader.DEFAULT_BUFFER_SIZE);
+            log.info("Read {} lines from {}", lines, path);
+            segmentOfferedLines.put(identity, handler.getOfferedLines());
+            readSegments.put(identity, path.toAbsolutePath());
+        } catch (IOException e) {
+            log.warn("Error while reading {}: {}", path, e.getMessage());
+        }
+    }
+
+    /**
+     * Leave the checkpoint to the caller of {@link #captureCheckpoint(Runnable)}, which saves it when what the action
+     * captured is saved. Must be called before the reader is initialized.
+     */
+    void disableCheckpointSchedule() {
+        checkpointScheduled = false;
+    }
+
+    /**
+     * Run the action, e.g. a snapshot of the window, and capture the offsets of the lines the handler had applied
+     * before it, without pausing the followers. The state the action captures holds every line before the offsets,
+     * and may also hold the lines of the last poll of a file, which are read again from the offsets. A compressed
+     * segment is only checkpointed once it has been read completely and its lines have been applied.
+     *
+     * @param action the action to run once the applied lines are counted.
+     * @return the offsets of the files followed and the identities of the segments read, a file whose lines have not
+     *         been applied yet keeps the offset it resumes from.
+     */
+    public Map<Path, FileOffset> captureCheckpoint(Runnable action) {
+        final long appliedLines = handler.getAppliedLines();
+        action.run();
+        final Map<Path, FileOffset> offsets = new HashMap<>();
+        readSegments.forEach((identity, path) -> {
+            if (segmentOfferedLines.getOrDefault(identity, Long.MAX_VALUE) <= appliedLines) {
+                offsets.put(path, identity);
+            }
+        });
+        appliedOffsets.forEach((path, followerOffsets) -> {
+            final FileOffset offset = followerOffsets.publish(appliedLines);
+            if (offset != null) {
+                offsets.put(path.toAbsolutePath(), offset);
+            }
+        });
+        return offsets;
+    }
+
+    /**
+     * Save offsets captured by {@link #captureCheckpoint(Runnable)}.
+     */
+    public synchronized void saveCheckpoint(Map<Path, FileOffset> offsets) {
+        try {
+            checkpoint.save(offsets);
+        } catch (IOException e) {
+            log.warn("Cannot save the checkpoint {}: {}", checkpoint.getPath(), e.getMessage());
+        }
+    }
+
+    @VisibleForTesting
+    void saveCheckpoint() {
+        saveCheckpoint(captureCheckpoint(() -> { }));
+    }
+
+    @VisibleForTesting
+    void updateFileStatuses() {
+        final long now = System.nanoTime();
+        final double elapsedInSec = (now - previousStatusTime) / 1e9;
+        previousStatusTime = now;
+        final List<FileStatus> statuses = new ArrayList<>(fileFollowers.size());
+        for (FileFollower fileFollower : fileFollowers.values()) {
+            final long lineNumber = fileFollower.getLineNumber();
+            final Long previousLineNumber = previousLineNumbers.put(fileFollower.getPath(), lineNumber);
+            final double linesPerSec = previousLineNumber == null || elapsedInSec <= 0 ? 0.0
+                    : (lineNumber - previousLineNumber) / elapsedInSec;
+            final FileStatus status = new FileStatus(fileFollower.getPath(), lineNumber, fileFollower.getByteNumber(),
+                    fileFollower.getLagInBytes(), linesPerSec);
+            log.debug("{}", status);
+            statuses.add(status);
+        }
+        previousLineNumbers.keySet().retainAll(fileFollowers.keySet());
+        statuses.sort(Comparator.comparing(FileStatus::getPath));
+        fileStatuses.set(Collections.unmodifiableList(statuses));
+    }
+
+    /**
+     * Resolve the patterns into the files to follow: a plain path is kept even if the file does not exist yet, a glob
+     * is expanded to the regular files it matches.
+     */
+    @VisibleForTesting
+    static Set<Path> resolve(List<String> filePatterns) {
+        final Set<Path> paths = new LinkedHashSet<>();
+        for (String pattern : filePatterns) {
+            if (!isGlob(pattern)) {
+                paths.add(Paths.get(pattern));
+                continue;
+            }
+            // walk from the longest directory without glob characters, as deep as the pattern goes
+            final int firstGlob = indexOfGlob(pattern);
+            final int separator = pattern.lastIndexOf('/', firstGlob);
+            final String directory = separator < 0 ? "" : pattern.substring(0, Math.max(separator, 1));
+            final Path base = Paths.get(directory);
+            final String relative = pattern.substring(separator + 1);
+            final int maxDepth = relative.contains("**") ? Integer.MAX_VALUE : relative.split("/").length;
+            final PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+            try (Stream<Path> files = Files.walk(base, maxDepth)) {
+                files.filter(matcher::matches).filter(Files::isRegularFile).sorted().forEach(paths::add);
+            } catch (IOException | UncheckedIOException e) {
+                log.debug("Cannot list the files of {}: {}", pattern, e.getMessage());
+            }
+        }
+        return paths;
+    }
+
+    private static boolean isGlob(String pattern) {
+        return indexOfGlob(pattern) >= 0;
+    }
+
+    private static int indexOfGlob(String pattern) {
+        for (int i = 0; i < pattern.length(); i++) {
+            if (GLOB_CHARACTERS.indexOf(pattern.charAt(i)) >= 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public static class RepositoryLineHandler implements LogLineHandler {
 
         private final StatisticsRepository statisticsRepository;
 
         private final EventBus eventBus;
 
-        public LogTailerListener(StatisticsRepository statisticsRepository, EventBus eventBus) {
+        private final InstrumentedLogParser parser;
+
+        public RepositoryLineHandler(StatisticsRepository statisticsRepository, EventBus eventBus) {
+            this(statisticsRepository, eventBus, new MetricsRegistry());
+        }
+
+        /**
+         * Construct a handler which counts the lines parsed into the given metrics.
+         */
+        public RepositoryLineHandler(StatisticsRepository statisticsRepository, EventBus eventBus,
+                MetricsRegistry metrics) {
             this.statisticsRepository = statisticsRepository;
             this.eventBus = eventBus;
+            this.parser = new InstrumentedLogParser(metrics);
         }
 
         @Override
         public void handle(String logLine) {
-            final Optional<LogRecord> logRecord = LogParser.parse(logLine);
+            add(parser.parse(logLine));
+        }
+
+        @Override
+        public void handle(byte[] bytes, int offset, int length) {
+            add(parser.parse(bytes, offset, length));
+        }
 
+        private void add(Optional<LogRecord> logRecord) {
             logRecord.ifPresent(l -> {
-                log.debug("Latest log time {}", Instant.ofEpochSecond(l.getTimestamp()));
+                log.debug("Latest log time {}", l.getTimestamp());
                 eventBus.post(new NewLogReceivedEvent());
                 statisticsRepository.addRecord(l);
             });
         }
     }
+
+    public static class PipelineLineHandler implements LogLineHandler {
+
+        private final LogPipeline logPipeline;
+
+        public PipelineLineHandler(LogPipeline logPipeline) {
+            this.logPipeline = logPipeline;
+        }
+
+        @Override
+        public void handle(String logLine) {
+            logPipeline.offer(logLine);
+        }
+
+        @Override
+        public void handle(byte[] bytes, int offset, int length) {
+            logPipeline.offer(bytes, offset, length);
+        }
+
+        @Override
+        public long getOfferedLines() {
+            return logPipeline.getOfferedLines();
+        }
+
+        @Override
+        public long getAppliedLines() {
+            return logPipeline.getAppliedLines();
+        }
+    }
+
+    /**
+     * The offsets a follower reached after its polls, each with the number of lines offered to the handler by then,
+     * kept until the handler has applied that many lines. Recorded by the poll task of the follower and published by
+     * the checkpoint.
+     */
+    private static final class AppliedOffsets {
+
+        // in the order of the polls, guarded by the monitor
+        private final Deque<PendingOffset> pendingOffsets;
+
+        // the last offset whose lines have been applied, guarded by the monitor
+        private FileOffset appliedOffset;
+
+        private AppliedOffsets(FileOffset resumeOffset) {
+            this.pendingOffsets = new ArrayDeque<>();
+            this.appliedOffset = resumeOffset;
+        }
+
+        private synchronized void record(FileOffset offset, long offeredLines, long appliedLines) {
+            publish(appliedLines);
+            final PendingOffset last = pendingOffsets.peekLast();
+            if (last != null && last.offset.equals(offset)) {
+                return;
+            }
+            // a later offset with the same line count replaces the previous one
+            if (last != null && last.offeredLines == offeredLines) {
+                pendingOffsets.pollLast();
+            }
+            pendingOffsets.addLast(new PendingOffset(offset, offeredLines));
+        }
+
+        private synchronized FileOffset publish(long appliedLines) {
+            while (!pendingOffsets.isEmpty() && pendingOffsets.peekFirst().offeredLines <= appliedLines) {
+                appliedOffset = pendingOffsets.pollFirst().offset;
+            }
+            return appliedOffset;
+        }
+    }
+
+    private static final class PendingOffset {
+
+        private final FileOffset offset;
+
+        private final long offeredLines;
+
+        private PendingOffset(FileOffset offset, long offeredLines) {
+            this.offset = offset;
+            this.offeredLines = offeredLines;
+        }
+    }
+
+    private static class HandlerTailerListener extends TailerListenerAdapter {
+
+        private final LogLineHandler handler;
+
+        private HandlerTailerListener(LogLineHandler handler) {
+            this.handler = handler;
+        }
+
+        @Override
+        public void handle(String logLine) {
+            handler.handle(logLine);
+        }
+    }
 }
@@ -0,0 +1,172 @@
+package com.datadog.task.controller;
+
+import com.datadog.task.model.LogRecord;
+import com.datadog.task.model.NewLogReceivedEvent;
+import com.datadog.task.storage.StatisticsRepository;
+import com.datadog.task.storage.WindowClock;
+import com.datadog.task.util.Config;
+import com.datadog.task.util.LogParser;
+import com.datadog.task.util.SimulatedClock;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Replay an archived access log as fast as it can be read, and print the statistics reports and the alert transitions
+ * the monitor would have produced in real time.
+ * <p>
+ * The repository, the collector and the alert share a {@link SimulatedClock} and nothing is scheduled: the replay
+ * reads the rotated segments and the file sequentially with a large buffer and, whenever the timestamp of the records
+ * moves to a new second, moves the clock second by second and runs the ticks itself,
+ * {@link TrafficAlert#checkRecovery()} every second and {@link StatisticsCollector#collect()} every report interval.
+ * So the repository sees every record at the time it was written, and drops the same records as in real time. This
+ * class is not thread safe.
+ */
+public class LogReplayer implements LogLineHandler {
+
+    private static final int BUFFER_SIZE = 8 << 20;
+
+    private static final DateTimeFormatter DATE_TIME_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")
+            .withZone(ZoneId.systemDefault());
+
+    private static final NewLogReceivedEvent NEW_LOG_RECEIVED_EVENT = new NewLogReceivedEvent();
+
+    private final StatisticsRepository statisticsRepository;
+
+    private final StatisticsCollector statisticsCollector;
+
+    private final TrafficAlert trafficAlert;
+
+    private final int intervalInSec;
+
+    private final PrintStream out;
+
+    private final SimulatedClock clock;
+
+    // the second of the latest record, the ticks up to this second have run
+    private long currentSecond;
+
+    private long nextReportSecond;
+
+    private boolean inAlert;
+
+    private long recordNumber;
+
+    private long reportNumber;
+
+    /**
+     * Construct a replayer.
+     *
+     * @param configuration the configuration of the monitor, the repository always runs in processing time.
+     * @param out           where the reports and the alert transitions are printed.
+     */
+    public LogReplayer(Config configuration, PrintStream out) {
+        this.clock = new SimulatedClock(Instant.EPOCH);
+        this.statisticsRepository = StatisticsRepository.create(configuration, WindowClock.processingTime(clock));
+        this.statisticsCollector = new StatisticsCollector(configuration.getStatisticIntervalInSec(),
+                configuration.getStatisticsTopK(), statisticsRepository, clock);
+        this.trafficAlert = new TrafficAlert(configuration.getAlertThresholdPerSec(),
+                configuration.getTimeWindowSizeInSec(), statisticsRepository, clock);
+        this.intervalInSec = configuration.getStatisticIntervalInSec();
+        this.out = out;
+        this.currentSecond = Long.MIN_VALUE;
+    }
+
+    /**
+     * Replay the rotated segments of the file from the oldest, plain or gzip compressed, then the file itself. The
+     * last report covers the last interval of the file.
+     *
+     * @param path the access log.
+     * @throws IOException if neither the file nor any rotated segment exists, or a segment cannot be read.
+     */
+    public void replay(Path path) throws IOException {
+        final List<Path> segments = LogSegmentReader.rotationChain(path);
+        if (segments.isEmpty()) {
+            throw new NoSuchFileException(path.toString());
+        }
+        for (Path segment : segments) {
+            LogSegmentReader.read(segment, this, BUFFER_SIZE);
+        }
+        if (currentSecond != Long.MIN_VALUE) {
+            report();
+        }
+    }
+
+    public long getRecordNumber() {
+        return recordNumber;
+    }
+
+    public long getReportNumber() {
+        return reportNumber;
+    }
+
+    @Override
+    public void handle(String logLine) {
+        LogParser.parse(logLine).ifPresent(this::replay);
+    }
+
+    @Override
+    public void handle(byte[] bytes, int offset, int length) {
+        LogParser.parse(bytes, offset, length).ifPresent(this::replay);
+    }
+
+    private void replay(LogRecord record) {
+        if (record.getTimestamp() != null) {
+            advanceTo(record.getTimestamp());
+        }
+        statisticsRepository.addRecord(record);
+        trafficAlert.checkTraffic(NEW_LOG_RECEIVED_EVENT);
+        checkAlertTransition();
+        recordNumber++;
+    }
+
+    /**
+     * Run the ticks of the seconds elapsed before the given second, a record older than the current second does not
+     * move the time back.
+     */
+    private void advanceTo(long second) {
+        if (currentSecond == Long.MIN_VALUE) {
+            currentSecond = second;
+            nextReportSecond = second + intervalInSec;
+            clock.setEpochSecond(second);
+            return;
+        }
+        while (currentSecond < second) {
+            currentSecond++;
+            clock.setEpochSecond(currentSecond);
+            trafficAlert.checkRecovery();
+            checkAlertTransition();
+            if (currentSecond >= nextReportSecond) {
+                report();
+                nextReportSecond += intervalInSec;
+            }
+        }
+    }
+
+    private void report() {
+        statisticsCollector.collect();
+        out.println(formatTime() + " " + statisticsCollector.getStatisticsMessage());
+        reportNumber++;
+    }
+
+    private void checkAlertTransition() {
+        if (inAlert == trafficAlert.inAlert()) {
+            return;
+        }
+        inAlert = trafficAlert.inAlert();
+        if (inAlert) {
+            out.println(formatTime() + " " + trafficAlert.getAlertMessage());
+        } else {
+            out.println(formatTime() + " High traffic alert recovered");
+        }
+    }
+
+    private String formatTime() {
+        return "[" + DATE_TIME_FORMATTER.format(clock.instant()) + "]";
+    }
+}
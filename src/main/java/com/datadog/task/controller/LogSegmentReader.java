@@ -0,0 +1,224 @@
+package com.datadog.task.controller;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Read complete log segments, e.g. the files rotated away from the followed path, plain or gzip compressed. A gzip
+ * segment is decompressed while it is read, so no temporary file is written, and the lines are handed to the
+ * {@link LogLineHandler} as slices of one large buffer like the {@link FileFollower} does. The compression is detected
+ * by the magic number of the file, not by its name.
+ */
+public class LogSegmentReader {
+
+    private static final Logger log = LoggerFactory.getLogger(LogSegmentReader.class);
+
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+
+    private static final int MAX_BUFFER_SIZE = 64 << 20;
+
+    private static final int GZIP_BUFFER_SIZE = 64 << 10;
+
+    private static final byte[] GZIP_MAGIC = {(byte) 0x1f, (byte) 0x8b};
+
+    private static final byte[] ZSTD_MAGIC = {(byte) 0x28, (byte) 0xb5, (byte) 0x2f, (byte) 0xfd};
+
+    // logrotate names: access.log.1, access.log.2.gz, or with dateext access.log-20200101.gz
+    private static final Pattern ROTATED_SUFFIX = Pattern.compile("([.-])(\\d+)(\\.gz)?");
+
+    private LogSegmentReader() {
+    }
+
+    /**
+     * Return the rotated segments of a log file and the file itself, from the oldest to the newest: the dated
+     * segments by date, then the numbered segments from the highest number, then the file.
+     *
+     * @param path the current log file, it does not have to exist.
+     * @return the segments which exist.
+     * @throws IOException if the directory cannot be listed.
+     */
+    public static List<Path> rotationChain(Path path) throws IOException {
+        final Path directory = path.toAbsolutePath().getParent();
+        final String name = path.getFileName().toString();
+        final List<Path> dated = new ArrayList<>();
+        final List<Path> numbered = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> {
+                final String fileName = file.getFileName().toString();
+                if (!fileName.startsWith(name)) {
+                    return;
+                }
+                final Matcher matcher = ROTATED_SUFFIX.matcher(fileName.substring(name.length()));
+                if (matcher.matches()) {
+                    ("-".equals(matcher.group(1)) ? dated : numbered).add(file);
+                }
+            });
+        }
+        dated.sort(Comparator.comparing(file -> rotationNumber(file, name)));
+        numbered.sort(Comparator.comparing((Path file) -> rotationNumber(file, name)).reversed());
+        final List<Path> chain = new ArrayList<>(dated);
+        chain.addAll(numbered);
+        if (Files.isRegularFile(path)) {
+            chain.add(path.toAbsolutePath());
+        }
+        return chain;
+    }
+
+    private static long rotationNumber(Path file, String name) {
+        final Matcher matcher = ROTATED_SUFFIX.matcher(file.getFileName().toString().substring(name.length()));
+        return matcher.matches() ? Long.parseLong(matcher.group(2)) : 0L;
+    }
+
+    /**
+     * Read a whole segment, the last line does not have to end with a newline.
+     *
+     * @param path       the segment, plain or gzip compressed.
+     * @param handler    the handler of every line.
+     * @param bufferSize the initial size of the line buffer.
+     * @return the number of lines read.
+     * @throws IOException if the segment cannot be read or is compressed with an unsupported format.
+     */
+    public static long read(Path path, LogLineHandler handler, int bufferSize) throws IOException {
+        try (InputStream inputStream = open(path)) {
+            log.info("Read log segment {}", path);
+            return read(inputStream, handler, bufferSize);
+        }
+    }
+
+    /**
+     * Open a segment, a gzip segment is decompressed on the fly.
+     */
+    static InputStream open(Path path) throws IOException {
+        final byte[] magic = new byte[ZSTD_MAGIC.length];
+        final int length;
+        try (InputStream inputStream = Files.newInputStream(path)) {
+            length = readFully(inputStream, magic);
+        }
+        if (startsWith(magic, length, ZSTD_MAGIC)) {
+            throw new IOException("zstd compressed log segments are not supported: " + path);
+        }
+        final InputStream inputStream = Files.newInputStream(path);
+        if (startsWith(magic, length, GZIP_MAGIC)) {
+            // concatenated gzip members are read one after the other
+            return new GZIPInputStream(inputStream, GZIP_BUFFER_SIZE);
+        }
+        return inputStream;
+    }
+
+    /**
+     * Split a stream into lines, handed over as slices of one buffer which only grows for a line longer than it.
+     */
+    static long read(InputStream inputStream, LogLineHandler handler, int bufferSize) throws IOException {
+        return read(inputStream, handler, bufferSize, MAX_BUFFER_SIZE);
+    }
+
+    /**
+     * Split a stream into lines, a line longer than the max buffer size is dropped as a whole.
+     */
+    @VisibleForTesting
+    static long read(InputStream inputStream, LogLineHandler handler, int bufferSize, int maxBufferSize)
+            throws IOException {
+        byte[] buffer = new byte[bufferSize];
+        long lines = 0L;
+        // buffer[0, end) holds the bytes read, buffer[0, scanned) has no newline
+        int end = 0;
+        int scanned = 0;
+        // a line longer than the max buffer size is being dropped, the input is skipped up to its newline
+        boolean skippingLine = false;
+        while (true) {
+            if (end == buffer.length) {
+                if (buffer.length >= maxBufferSize) {
+                    log.warn("Drop a line longer than {} bytes", maxBufferSize);
+                    end = 0;
+                    scanned = 0;
+                    skippingLine = true;
+                } else {
+                    buffer = Arrays.copyOf(buffer, (int) Math.min(maxBufferSize, buffer.length * 2L));
+                }
+            }
+            final int read = inputStream.read(buffer, end, buffer.length - end);
+            if (read < 0) {
+                break;
+            }
+            end += read;
+            int lineStart = 0;
+            int i = scanned;
+            if (skippingLine) {
+                while (i < end && buffer[i] != '\n') {
+                    i++;
+                }
+                if (i == end) {
+                    end = 0;
+                    scanned = 0;
+                    continue;
+                }
+                skippingLine = false;
+                lineStart = ++i;
+            }
+            for (; i < end; i++) {
+                if (buffer[i] == '\n') {
+                    if (handleLine(handler, buffer, lineStart, i)) {
+                        lines++;
+                    }
+                    lineStart = i + 1;
+                }
+            }
+            // move the incomplete line to the head of the buffer
+            System.arraycopy(buffer, lineStart, buffer, 0, end - lineStart);
+            end -= lineStart;
+            scanned = end;
+        }
+        if (!skippingLine && handleLine(handler, buffer, 0, end)) {
+            lines++;
+        }
+        return lines;
+    }
+
+    private static boolean handleLine(LogLineHandler handler, byte[] bytes, int start, int end) {
+        if (end > start && bytes[end - 1] == '\r') {
+            end--;
+        }
+        if (end > start) {
+            handler.handle(bytes, start, end - start);
+            return true;
+        }
+        return false;
+    }
+
+    private static int readFully(InputStream inputStream, byte[] bytes) throws IOException {
+        int length = 0;
+        while (length < bytes.length) {
+            final int read = inputStream.read(bytes, length, bytes.length - length);
+            if (read < 0) {
+                break;
+            }
+            length += read;
+        }
+        return length;
+    }
+
+    private static boolean startsWith(byte[] bytes, int length, byte[] prefix) {
+        if (length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (bytes[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,95 @@
+package com.datadog.task.controller;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A small properties file which maps every file read to its {@link FileOffset}, one line "path=offset file key" per
+ * file. The file is replaced atomically: the offsets are written and synced to a temporary file in the same directory
+ * which is then moved over the checkpoint, so a crash leaves either the previous or the new checkpoint, never a
+ * partial one. This class is not thread safe, one thread should save the checkpoint at a time.
+ */
+public class ReadCheckpoint {
+
+    private static final Logger log = LoggerFactory.getLogger(ReadCheckpoint.class);
+
+    private final Path path;
+
+    private final Path temporaryPath;
+
+    public ReadCheckpoint(Path path) {
+        this.path = path.toAbsolutePath();
+        this.temporaryPath = this.path.resolveSibling(this.path.getFileName() + ".tmp");
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Load the offsets of the previous run, an unreadable entry is skipped.
+     *
+     * @return the offsets by absolute path, empty if there is no checkpoint.
+     * @throws IOException if the checkpoint cannot be read.
+     */
+    public Map<Path, FileOffset> load() throws IOException {
+        final Properties properties = new Properties();
+        try (InputStream inputStream = Files.newInputStream(path)) {
+            properties.load(inputStream);
+        } catch (NoSuchFileException e) {
+            return new HashMap<>();
+        }
+        final Map<Path, FileOffset> offsets = new HashMap<>();
+        for (String file : properties.stringPropertyNames()) {
+            final String value = properties.getProperty(file).trim();
+            final int separator = value.indexOf(' ');
+            try {
+                final long offset = Long.parseLong(separator < 0 ? value : value.substring(0, separator));
+                final String fileKey = separator < 0 ? null : value.substring(separator + 1);
+                offsets.put(Paths.get(file), new FileOffset(fileKey, offset));
+            } catch (NumberFormatException e) {
+                log.warn("Skip the invalid checkpoint of {}: {}", file, value);
+            }
+        }
+        return offsets;
+    }
+
+    /**
+     * Replace the checkpoint with the given offsets.
+     *
+     * @param offsets the offsets by absolute path.
+     * @throws IOException if the checkpoint cannot be written.
+     */
+    public void save(Map<Path, FileOffset> offsets) throws IOException {
+        final Properties properties = new Properties();
+        offsets.forEach((file, offset) -> properties.setProperty(file.toString(),
+                offset.getFileKey() == null ? Long.toString(offset.getOffset()) : offset.toString()));
+        try (FileChannel channel = FileChannel.open(temporaryPath, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            final OutputStream outputStream = Channels.newOutputStream(channel);
+            properties.store(outputStream, "log read offsets");
+            outputStream.flush();
+            channel.force(true);
+        }
+        try {
+            Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -1,8 +1,12 @@
 package com.datadog.task.controller;
 
 import com.datadog.task.model.AggregatedStatistics;
+import com.datadog.task.model.StatisticsSnapshot;
+import com.datadog.task.model.StatisticsSnapshot.TopItems;
 import com.datadog.task.storage.StatisticsRepository;
 import com.google.common.annotations.VisibleForTesting;
+import java.time.Clock;
+import java.time.Instant;
 import java.util.List;
 import java.util.Map.Entry;
 import java.util.concurrent.Executors;
@@ -15,6 +19,9 @@ import org.slf4j.LoggerFactory;
 
 /**
  * A class that collect statistics from {@link StatisticsRepository} for last n seconds at fixed interval n seconds.
+ * Every collection publishes an immutable {@link StatisticsSnapshot}, the readers of the statistics only read the
+ * latest snapshot and never query the repository. Nothing is formatted at collection, the text message is only built
+ * when it is asked for, once per snapshot.
  */
 public class StatisticsCollector extends LifeCycle {
 
@@ -28,22 +35,54 @@ public class StatisticsCollector extends LifeCycle {
 
     private final int topK;
 
-    private final AtomicReference<String> statisticsMessage;
+    private final AtomicReference<StatisticsSnapshot> statisticsSnapshot;
+
+    private final Clock clock;
+
+    private volatile Instant collectedTime;
+
+    // the message of the latest snapshot formatted so far, replaced when a newer snapshot is formatted
+    private volatile FormattedMessage formattedMessage;
 
     public StatisticsCollector(int intervalInSec, int topK, StatisticsRepository statisticsRepository) {
+        this(intervalInSec, topK, statisticsRepository, Clock.systemDefaultZone());
+    }
+
+    /**
+     * Construct a collector which stamps the statistics with the time of the given clock.
+     *
+     * @param intervalInSec        the report interval, the statistics cover the last interval.
+     * @param topK                 the number of sections, auths and client IPs reported.
+     * @param statisticsRepository the statistic repository stores all statistics
+     * @param clock                the clock shared with the repository.
+     */
+    public StatisticsCollector(int intervalInSec, int topK, StatisticsRepository statisticsRepository, Clock clock) {
         this.intervalInSec = intervalInSec;
         this.statisticsRepository = statisticsRepository;
         this.executorService = Executors.newSingleThreadScheduledExecutor();
         this.topK = topK;
-        this.statisticsMessage = new AtomicReference<>();
+        this.statisticsSnapshot = new AtomicReference<>();
+        this.clock = clock;
     }
 
     @Override
     void doInitialize() {
-        executorService.scheduleAtFixedRate(() -> {
-            AggregatedStatistics statistics = statisticsRepository.getAggregatedStatics(intervalInSec);
-            statisticsMessage.set(formatMessage(statistics));
-        }, 0L, intervalInSec, TimeUnit.SECONDS);
+        executorService.scheduleAtFixedRate(this::collect, 0L, intervalInSec, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Collect the statistics of the last interval into a new snapshot, called every interval by the scheduler or by
+     * a replay.
+     */
+    public void collect() {
+        final Instant now = clock.instant();
+        AggregatedStatistics statistics = statisticsRepository.getAggregatedStatics(intervalInSec);
+        final StatisticsSnapshot previous = statisticsSnapshot.get();
+        final StatisticsSnapshot snapshot = StatisticsSnapshot.of(previous == null ? 1L : previous.getGeneration() + 1,
+                now, intervalInSec, statistics, topK,
+                statisticsRepository.getDroppedLateRecords(), statisticsRepository.getDroppedFutureRecords());
+        statisticsSnapshot.set(snapshot);
+        collectedTime = now;
     }
 
     @Override
@@ -57,21 +96,71 @@ public class StatisticsCollector extends LifeCycle {
         }
     }
 
+    /**
+     * Return the statistics of the last collection as text, null before the first one. The message is formatted on
+     * the first call after a collection and the same string is returned until the next one.
+     */
     public String getStatisticsMessage() {
-        return statisticsMessage.get();
+        final StatisticsSnapshot snapshot = statisticsSnapshot.get();
+        if (snapshot == null) {
+            return null;
+        }
+        final FormattedMessage formatted = formattedMessage;
+        if (formatted != null && formatted.generation == snapshot.getGeneration()) {
+            return formatted.message;
+        }
+        // two readers may both format a new snapshot, they build the same message
+        final String message = formatMessage(snapshot) + formatDroppedRecords(snapshot);
+        formattedMessage = new FormattedMessage(snapshot.getGeneration(), message);
+        return message;
+    }
+
+    /**
+     * Return the statistics of the last collection, null before the first one.
+     */
+    public StatisticsSnapshot getStatisticsSnapshot() {
+        return statisticsSnapshot.get();
+    }
+
+    /**
+     * Return the time of the last collection, null before the first one.
+     */
+    public Instant getCollectedTime() {
+        return collectedTime;
     }
 
     @VisibleForTesting
     String formatMessage(AggregatedStatistics statistics) {
+        return formatMessage(StatisticsSnapshot.of(0L, clock.instant(), intervalInSec, statistics, topK, 0L, 0L));
+    }
+
+    private String formatMessage(StatisticsSnapshot statistics) {
         final String messageTemplate = "Traffic statistic in last %d second:\n" +
                 "Total Requests: %d, QPS: %.2f\n" +
-                "Top %d sections:\n%s" +
-                "Top %d auth:\n%s" +
-                "Top %d client IP:\n%s";
-        return String.format(messageTemplate, intervalInSec, statistics.getTotalRequest(), statistics.getQps(), topK,
-                formatEntries(statistics.getSectionCounter().topK(topK)), topK,
-                formatEntries(statistics.getAuthCounter().topK(topK)),
-                topK, formatEntries(statistics.getClientIpCounter().topK(topK)));
+                "Top %d sections%s:\n%s" +
+                "Top %d auth%s:\n%s" +
+                "Top %d client IP%s:\n%s";
+        return String.format(messageTemplate, intervalInSec, statistics.getTotalRequests(), statistics.getQps(), topK,
+                formatErrorBound(statistics.getSections()),
+                formatEntries(statistics.getSections().getEntries()), topK,
+                formatErrorBound(statistics.getAuths()),
+                formatEntries(statistics.getAuths().getEntries()), topK,
+                formatErrorBound(statistics.getClientIps()),
+                formatEntries(statistics.getClientIps().getEntries()));
+    }
+
+    private String formatDroppedRecords(StatisticsSnapshot statistics) {
+        final long late = statistics.getDroppedLateRecords();
+        final long future = statistics.getDroppedFutureRecords();
+        if (late == 0L && future == 0L) {
+            return "";
+        }
+        return String.format("Dropped records: %d too late, %d from the future\n", late, future);
+    }
+
+    private String formatErrorBound(TopItems topItems) {
+        final long errorBound = topItems.getErrorBound();
+        return errorBound == 0L ? "" : " (approximate, counts may be over by " + errorBound + ")";
     }
 
     private String formatEntries(List<Entry<String, Integer>> entries) {
@@ -81,4 +170,16 @@ public class StatisticsCollector extends LifeCycle {
         return entries.stream().map(e -> e.getKey() + ": " + e.getValue())
                 .collect(Collectors.joining("\n\t", "\t", "\n"));
     }
+
+    private static final class FormattedMessage {
+
+        private final long generation;
+
+        private final String message;
+
+        private FormattedMessage(long generation, String message) {
+            this.generation = generation;
+            this.message = message;
+        }
+    }
 }
@@ -1,9 +1,14 @@
 package com.datadog.task.controller;
 
+import com.datadog.task.metrics.LatencyHistogram;
+import com.datadog.task.metrics.MetricsRegistry;
+import com.datadog.task.model.AlertEvent;
 import com.datadog.task.model.NewLogReceivedEvent;
 import com.datadog.task.storage.StatisticsRepository;
 import com.google.common.eventbus.AllowConcurrentEvents;
+import com.google.common.eventbus.EventBus;
 import com.google.common.eventbus.Subscribe;
+import java.time.Clock;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
@@ -19,6 +24,10 @@ import org.slf4j.LoggerFactory;
  * Whenever there is a new log, this class check the total traffic for a time window. If the total traffic for the past
  * N seconds exceeds a threshold on average, it will generate an alert message. Whenever the total traffic drops again
  * below that threshold on average for the past N seconds, it will clear the alert message.
+ * <p>
+ * Every transition is also posted as an {@link AlertEvent} to the listeners {@link #register(Object) registered}, so a
+ * listener sees an alert which fires and recovers between two of its reads. The transitions are posted on an event bus
+ * of their own while the transition is made, in the order they happened.
  */
 public class TrafficAlert extends LifeCycle {
 
@@ -39,6 +48,12 @@ public class TrafficAlert extends LifeCycle {
 
     private final ScheduledExecutorService executorService;
 
+    private final Clock clock;
+
+    private final LatencyHistogram evaluationLatency;
+
+    private final EventBus alertEventBus;
+
     /**
      * Construct a new TrafficAlert.
      *
@@ -47,12 +62,50 @@ public class TrafficAlert extends LifeCycle {
      * @param statisticsRepository the statistic repository stores all statistics
      */
     public TrafficAlert(int thresholdPerSec, int timeWindowInSec, StatisticsRepository statisticsRepository) {
+        this(thresholdPerSec, timeWindowInSec, statisticsRepository, Clock.systemDefaultZone());
+    }
+
+    /**
+     * Construct a new TrafficAlert which stamps the alerts with the time of the given clock.
+     *
+     * @param thresholdPerSec      traffic alter threshold per second
+     * @param timeWindowInSec      the size of time window in second.
+     * @param statisticsRepository the statistic repository stores all statistics
+     * @param clock                the clock shared with the repository, e.g. a {@link
+     *                             com.datadog.task.util.SimulatedClock} in a replay.
+     */
+    public TrafficAlert(int thresholdPerSec, int timeWindowInSec, StatisticsRepository statisticsRepository,
+            Clock clock) {
+        this(thresholdPerSec, timeWindowInSec, statisticsRepository, clock, new MetricsRegistry());
+    }
+
+    /**
+     * Construct a new TrafficAlert which records the latency of every evaluation into the given metrics.
+     *
+     * @param thresholdPerSec      traffic alter threshold per second
+     * @param timeWindowInSec      the size of time window in second.
+     * @param statisticsRepository the statistic repository stores all statistics
+     * @param clock                the clock shared with the repository.
+     * @param metrics              the metrics of the monitor.
+     */
+    public TrafficAlert(int thresholdPerSec, int timeWindowInSec, StatisticsRepository statisticsRepository,
+            Clock clock, MetricsRegistry metrics) {
         this.thresholdPerSec = thresholdPerSec;
         this.timeWindowInSec = timeWindowInSec;
         this.statisticsRepository = statisticsRepository;
         this.inAlert = new AtomicBoolean();
         this.executorService = Executors.newSingleThreadScheduledExecutor();
         this.alertMessage = new AtomicReference<>();
+        this.clock = clock;
+        this.evaluationLatency = metrics.histogram(MetricsRegistry.ALERT_LATENCY);
+        this.alertEventBus = new EventBus("alert");
+    }
+
+    /**
+     * Register a listener of the {@link AlertEvent}s, called on the thread which made the transition.
+     */
+    public void register(Object listener) {
+        alertEventBus.register(listener);
     }
 
     @Subscribe
@@ -61,15 +114,38 @@ public class TrafficAlert extends LifeCycle {
         if (inAlert.get()) {
             return;
         }
+        final long start = System.nanoTime();
         final long totalRequests = statisticsRepository.getTotalRequests(timeWindowInSec);
+        evaluationLatency.recordSince(start);
         log.debug("total requests {}", totalRequests);
-        if (totalRequests >= thresholdPerSec * timeWindowInSec && inAlert
-                .compareAndSet(false, true)) {
-            log.info("High traffic generated, total request {}", totalRequests);
-            alertMessage.set(String.format("High traffic generated an alert - hits = %d, triggered at %s",
-                    totalRequests,
-                    DATE_TIME_FORMATTER.format(Instant.now())));
+        if (totalRequests >= thresholdPerSec * timeWindowInSec) {
+            fire(totalRequests);
+        }
+    }
+
+    private synchronized void fire(long totalRequests) {
+        if (inAlert.get()) {
+            return;
         }
+        log.info("High traffic generated, total request {}", totalRequests);
+        final Instant time = clock.instant();
+        final String message = String.format("High traffic generated an alert - hits = %d, triggered at %s",
+                totalRequests, DATE_TIME_FORMATTER.format(time));
+        alertMessage.set(message);
+        inAlert.set(true);
+        alertEventBus.post(new AlertEvent(true, time, message));
+    }
+
+    private synchronized void recover(long totalRequests) {
+        if (!inAlert.get()) {
+            return;
+        }
+        log.info("High traffic ended, total request {}", totalRequests);
+        final Instant time = clock.instant();
+        inAlert.set(false);
+        alertEventBus.post(new AlertEvent(false, time, String.format(
+                "High traffic alert recovered - hits = %d, recovered at %s", totalRequests,
+                DATE_TIME_FORMATTER.format(time))));
     }
 
     public boolean inAlert() {
@@ -83,16 +159,22 @@ public class TrafficAlert extends LifeCycle {
     @Override
     void doInitialize() {
         //launch a thread try to reset the alert every second.
-        executorService.scheduleAtFixedRate(() -> {
-            if (inAlert.get()) {
-                final long totalRequests = statisticsRepository.getTotalRequests(timeWindowInSec);
-                log.debug("total requests {}", totalRequests);
-                if (totalRequests < thresholdPerSec * timeWindowInSec) {
-                    log.info("High traffic ended, total request {}", totalRequests);
-                    inAlert.set(false);
-                }
+        executorService.scheduleAtFixedRate(this::checkRecovery, 0, 1L, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Reset the alert if the traffic dropped below the threshold, called every second by the scheduler or by a replay.
+     */
+    public void checkRecovery() {
+        if (inAlert.get()) {
+            final long start = System.nanoTime();
+            final long totalRequests = statisticsRepository.getTotalRequests(timeWindowInSec);
+            evaluationLatency.recordSince(start);
+            log.debug("total requests {}", totalRequests);
+            if (totalRequests < thresholdPerSec * timeWindowInSec) {
+                recover(totalRequests);
             }
-        }, 0, 1L, TimeUnit.SECONDS);
+        }
     }
 
     @Override
@@ -0,0 +1,109 @@
+package com.datadog.task.controller;
+
+import com.datadog.task.model.Statistic;
+import com.datadog.task.storage.StatisticsRepository;
+import com.datadog.task.storage.WindowStateStore;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Restore the window of the repository from the {@link WindowStateStore} when it is initialized, then save the window
+ * at a fixed interval and once more when it is closed. It should be initialized before the log files are read and
+ * closed after the last record has been added.
+ * <p>
+ * With a {@link LogReader} which keeps a checkpoint, the snapshotter also saves the checkpoint of the reader: the
+ * window is captured with the offsets of the lines applied before it, then the window is saved before the offsets.
+ * A restart resumes reading right after the lines of the restored window, or a little earlier when the window also
+ * holds the lines of the last poll. A crash between the two saves only reads the lines of the last interval twice.
+ */
+public class WindowSnapshotter extends LifeCycle {
+
+    private static final Logger log = LoggerFactory.getLogger(WindowSnapshotter.class);
+
+    private final StatisticsRepository statisticsRepository;
+
+    private final WindowStateStore windowStateStore;
+
+    private final LogReader logReader;
+
+    private final int intervalInSec;
+
+    private final ScheduledExecutorService executorService;
+
+    public WindowSnapshotter(StatisticsRepository statisticsRepository, WindowStateStore windowStateStore,
+            int intervalInSec) {
+        this(statisticsRepository, windowStateStore, null, intervalInSec);
+    }
+
+    /**
+     * Construct a snapshotter which saves the checkpoint of the reader with the window.
+     *
+     * @param statisticsRepository the repository whose window is saved.
+     * @param windowStateStore     where the window is saved.
+     * @param logReader            the reader feeding the repository, null if it keeps no checkpoint.
+     * @param intervalInSec        the interval between two snapshots.
+     */
+    public WindowSnapshotter(StatisticsRepository statisticsRepository, WindowStateStore windowStateStore,
+            LogReader logReader, int intervalInSec) {
+        this.statisticsRepository = statisticsRepository;
+        this.windowStateStore = windowStateStore;
+        this.logReader = logReader;
+        if (logReader != null) {
+            logReader.disableCheckpointSchedule();
+        }
+        this.intervalInSec = intervalInSec;
+        this.executorService = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("window-snapshot-%d").build());
+    }
+
+    @Override
+    void doInitialize() {
+        try {
+            final int seconds = windowStateStore.restore(statisticsRepository);
+            log.info("Restored {} seconds of the window from {}", seconds, windowStateStore.getPath());
+        } catch (IOException e) {
+            log.warn("Cannot restore the window from {}, start with an empty window: {}", windowStateStore.getPath(),
+                    e.getMessage());
+        }
+        executorService.scheduleWithFixedDelay(this::save, intervalInSec, intervalInSec, TimeUnit.SECONDS);
+    }
+
+    @Override
+    void doClose() {
+        executorService.shutdown();
+        try {
+            executorService.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (final InterruptedException e) {
+            log.error("Error while stopping the scheduler thread pool");
+            Thread.currentThread().interrupt();
+        }
+        save();
+    }
+
+    private void save() {
+        try {
+            if (logReader == null) {
+                final int seconds = windowStateStore.save(statisticsRepository);
+                log.debug("Saved {} seconds of the window to {}", seconds, windowStateStore.getPath());
+                return;
+            }
+            final AtomicReference<List<Statistic>> window = new AtomicReference<>();
+            final Map<Path, FileOffset> offsets = logReader.captureCheckpoint(
+                    () -> window.set(statisticsRepository.snapshot()));
+            final int seconds = windowStateStore.save(window.get());
+            logReader.saveCheckpoint(offsets);
+            log.debug("Saved {} seconds of the window to {}", seconds, windowStateStore.getPath());
+        } catch (IOException e) {
+            log.warn("Cannot save the window to {}: {}", windowStateStore.getPath(), e.getMessage());
+        }
+    }
+}
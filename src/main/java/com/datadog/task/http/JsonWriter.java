@@ -0,0 +1,140 @@
+package com.datadog.task.http;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * A minimal streaming JSON writer into a {@link StringBuilder}. It only tracks where a comma is needed, the caller is
+ * expected to write well formed documents: a name before every value of an object, no name inside an array. A NaN or
+ * infinite number is written as null. This class is not thread safe.
+ */
+public class JsonWriter {
+
+    private final StringBuilder builder;
+
+    // whether the current object or array already has a member, one entry per nesting level
+    private final Deque<Boolean> hasMember;
+
+    // a name has just been written, the next value must not be preceded by a comma
+    private boolean afterName;
+
+    public JsonWriter() {
+        this.builder = new StringBuilder(1024);
+        this.hasMember = new ArrayDeque<>();
+    }
+
+    public JsonWriter beginObject() {
+        beforeValue();
+        builder.append('{');
+        hasMember.push(false);
+        return this;
+    }
+
+    public JsonWriter endObject() {
+        hasMember.pop();
+        builder.append('}');
+        return this;
+    }
+
+    public JsonWriter beginArray() {
+        beforeValue();
+        builder.append('[');
+        hasMember.push(false);
+        return this;
+    }
+
+    public JsonWriter endArray() {
+        hasMember.pop();
+        builder.append(']');
+        return this;
+    }
+
+    public JsonWriter name(String name) {
+        beforeValue();
+        appendString(name);
+        builder.append(':');
+        afterName = true;
+        return this;
+    }
+
+    public JsonWriter value(String value) {
+        beforeValue();
+        if (value == null) {
+            builder.append("null");
+        } else {
+            appendString(value);
+        }
+        return this;
+    }
+
+    public JsonWriter value(long value) {
+        beforeValue();
+        builder.append(value);
+        return this;
+    }
+
+    public JsonWriter value(double value) {
+        beforeValue();
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            builder.append("null");
+        } else {
+            builder.append(value);
+        }
+        return this;
+    }
+
+    public JsonWriter value(boolean value) {
+        beforeValue();
+        builder.append(value);
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return builder.toString();
+    }
+
+    private void beforeValue() {
+        if (afterName) {
+            afterName = false;
+            return;
+        }
+        if (!hasMember.isEmpty()) {
+            if (hasMember.pop()) {
+                builder.append(',');
+            }
+            hasMember.push(true);
+        }
+    }
+
+    private void appendString(String value) {
+        builder.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    builder.append("\\\"");
+                    break;
+                case '\\':
+                    builder.append("\\\\");
+                    break;
+                case '\n':
+                    builder.append("\\n");
+                    break;
+                case '\r':
+                    builder.append("\\r");
+                    break;
+                case '\t':
+                    builder.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        builder.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        builder.append(c);
+                    }
+            }
+        }
+        builder.append('"');
+    }
+}
@@ -0,0 +1,190 @@
+package com.datadog.task.http;
+
+import com.datadog.task.metrics.LatencyHistogram;
+import com.datadog.task.metrics.MetricsRegistry;
+import com.datadog.task.model.StatisticsSnapshot;
+import com.datadog.task.model.StatisticsSnapshot.TopItems;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Format the latest statistics, the alert state and the metrics of the monitor in the Prometheus text exposition
+ * format and in JSON. Only immutable snapshots are read, nothing is aggregated here.
+ */
+public final class MetricsFormatter {
+
+    private static final String PREFIX = "http_traffic_";
+
+    private static final String MONITOR_PREFIX = "http_traffic_monitor_";
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private MetricsFormatter() {
+    }
+
+    /**
+     * Format in the Prometheus text format 0.0.4.
+     *
+     * @param statistics the statistics of the last report interval, null before the first report.
+     * @param inAlert    whether the high traffic alert is on.
+     * @param metrics    the metrics of the monitor.
+     * @return the metrics, one sample per line.
+     */
+    public static String toPrometheus(StatisticsSnapshot statistics, boolean inAlert, MetricsRegistry metrics) {
+        final StringBuilder builder = new StringBuilder(4096);
+        metric(builder, PREFIX + "alert_active", "gauge", "Whether the high traffic alert is on.");
+        sample(builder, PREFIX + "alert_active", "", inAlert ? 1 : 0);
+        if (statistics != null) {
+            metric(builder, PREFIX + "report_generation", "counter", "Reports collected since the start.");
+            sample(builder, PREFIX + "report_generation", "", statistics.getGeneration());
+            metric(builder, PREFIX + "report_timestamp_seconds", "gauge", "When the last report was collected.");
+            sample(builder, PREFIX + "report_timestamp_seconds", "",
+                    statistics.getCollectedTime().toEpochMilli() / 1e3);
+            metric(builder, PREFIX + "report_requests", "gauge", "Requests in the last report interval.");
+            sample(builder, PREFIX + "report_requests", "", statistics.getTotalRequests());
+            metric(builder, PREFIX + "report_qps", "gauge", "Requests per second in the last report interval.");
+            sample(builder, PREFIX + "report_qps", "", statistics.getQps());
+            topItems(builder, "section", statistics.getSections());
+            topItems(builder, "auth", statistics.getAuths());
+            topItems(builder, "client_ip", statistics.getClientIps());
+            metric(builder, PREFIX + "dropped_records_total", "counter", "Records outside of the time window.");
+            sample(builder, PREFIX + "dropped_records_total", "{reason=\"late\"}",
+                    statistics.getDroppedLateRecords());
+            sample(builder, PREFIX + "dropped_records_total", "{reason=\"future\"}",
+                    statistics.getDroppedFutureRecords());
+        }
+        for (Entry<String, Long> counter : metrics.getCounterValues().entrySet()) {
+            final String name = MONITOR_PREFIX + sanitize(counter.getKey()) + "_total";
+            metric(builder, name, "counter", null);
+            sample(builder, name, "", counter.getValue());
+        }
+        for (Entry<String, Long> gauge : metrics.getGaugeValues().entrySet()) {
+            final String name = MONITOR_PREFIX + sanitize(gauge.getKey());
+            metric(builder, name, "gauge", null);
+            sample(builder, name, "", gauge.getValue());
+        }
+        for (Entry<String, LatencyHistogram.Snapshot> histogram : metrics.getHistograms().entrySet()) {
+            final String name = MONITOR_PREFIX + sanitize(histogram.getKey()) + "_seconds";
+            final LatencyHistogram.Snapshot snapshot = histogram.getValue();
+            metric(builder, name, "summary", null);
+            for (double quantile : QUANTILES) {
+                sample(builder, name, "{quantile=\"" + quantile + "\"}",
+                        snapshot.getValueAtPercentile(quantile * 100) / 1e9);
+            }
+            sample(builder, name + "_sum", "", snapshot.getSum() / 1e9);
+            sample(builder, name + "_count", "", snapshot.getCount());
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Format as one JSON object.
+     *
+     * @param statistics   the statistics of the last report interval, null before the first report.
+     * @param inAlert      whether the high traffic alert is on.
+     * @param alertMessage the message of the last alert, may be null.
+     * @param metrics      the metrics of the monitor.
+     * @return the JSON document.
+     */
+    public static String toJson(StatisticsSnapshot statistics, boolean inAlert, String alertMessage,
+            MetricsRegistry metrics) {
+        final JsonWriter json = new JsonWriter().beginObject();
+        json.name("alert").beginObject()
+                .name("active").value(inAlert)
+                .name("message").value(alertMessage)
+                .endObject();
+        json.name("statistics");
+        if (statistics == null) {
+            json.value((String) null);
+        } else {
+            writeStatistics(json.beginObject(), statistics).endObject();
+        }
+        json.name("metrics").beginObject();
+        for (Map.Entry<String, Long> value : metrics.getValues().entrySet()) {
+            json.name(value.getKey()).value(value.getValue());
+        }
+        json.endObject();
+        json.name("latencies").beginObject();
+        for (Map.Entry<String, LatencyHistogram.Snapshot> histogram : metrics.getHistograms().entrySet()) {
+            final LatencyHistogram.Snapshot snapshot = histogram.getValue();
+            json.name(histogram.getKey()).beginObject()
+                    .name("count").value(snapshot.getCount())
+                    .name("meanMicros").value(snapshot.getMeanInMicros())
+                    .name("p50Micros").value(snapshot.getValueAtPercentileInMicros(50))
+                    .name("p99Micros").value(snapshot.getValueAtPercentileInMicros(99))
+                    .name("p999Micros").value(snapshot.getValueAtPercentileInMicros(99.9))
+                    .name("maxMicros").value(snapshot.getMax() / 1e3)
+                    .endObject();
+        }
+        json.endObject();
+        return json.endObject().toString();
+    }
+
+    /**
+     * Write the statistics as members of the current object of the given writer.
+     *
+     * @param json       a writer inside an object.
+     * @param statistics the statistics of a report interval.
+     * @return the writer.
+     */
+    public static JsonWriter writeStatistics(JsonWriter json, StatisticsSnapshot statistics) {
+        json.name("generation").value(statistics.getGeneration())
+                .name("collectedTime").value(statistics.getCollectedTime().toString())
+                .name("windowStart").value(statistics.getWindowStart().toString())
+                .name("windowEnd").value(statistics.getWindowEnd().toString())
+                .name("intervalSec").value(statistics.getIntervalInSec())
+                .name("totalRequests").value(statistics.getTotalRequests())
+                .name("qps").value(statistics.getQps());
+        topItems(json.name("topSections"), statistics.getSections());
+        topItems(json.name("topAuths"), statistics.getAuths());
+        topItems(json.name("topClientIps"), statistics.getClientIps());
+        return json.name("droppedRecords").beginObject()
+                .name("late").value(statistics.getDroppedLateRecords())
+                .name("future").value(statistics.getDroppedFutureRecords())
+                .endObject();
+    }
+
+    private static void topItems(StringBuilder builder, String label, TopItems topItems) {
+        final String name = PREFIX + "top_" + label + "_hits";
+        metric(builder, name, "gauge", "Hits of the top " + label + "s in the last report interval.");
+        for (Entry<String, Integer> entry : topItems.getEntries()) {
+            sample(builder, name, "{" + label + "=\"" + escapeLabel(entry.getKey()) + "\"}", entry.getValue());
+        }
+    }
+
+    private static void topItems(JsonWriter json, TopItems topItems) {
+        json.beginObject().name("errorBound").value(topItems.getErrorBound()).name("items").beginArray();
+        for (Entry<String, Integer> entry : topItems.getEntries()) {
+            json.beginObject().name("item").value(entry.getKey()).name("hits").value(entry.getValue()).endObject();
+        }
+        json.endArray().endObject();
+    }
+
+    private static void metric(StringBuilder builder, String name, String type, String help) {
+        if (help != null) {
+            builder.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        }
+        builder.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder builder, String name, String labels, long value) {
+        builder.append(name).append(labels).append(' ').append(value).append('\n');
+    }
+
+    private static void sample(StringBuilder builder, String name, String labels, double value) {
+        builder.append(name).append(labels).append(' ').append(String.format(Locale.ROOT, "%.9g", value))
+                .append('\n');
+    }
+
+    /**
+     * Turn a dotted metric name into a valid Prometheus name.
+     */
+    static String sanitize(String name) {
+        return name.replaceAll("[^a-zA-Z0-9_]", "_");
+    }
+
+    static String escapeLabel(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,106 @@
+package com.datadog.task.http;
+
+import com.datadog.task.controller.HttpTrafficLogMonitor;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An embedded HTTP server on the JDK {@link HttpServer} which serves the state of the monitor to other tools:
+ * <ul>
+ * <li>GET /metrics in the Prometheus text format,</li>
+ * <li>GET /metrics.json in JSON.</li>
+ * </ul>
+ * A scrape only reads the last {@link com.datadog.task.model.StatisticsSnapshot} published by the collector, the
+ * alert flag and the metrics of the monitor, so it never takes a lock of the repository and never aggregates.
+ */
+public class MetricsHttpServer implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(MetricsHttpServer.class);
+
+    private static final String PROMETHEUS_CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static final String JSON_CONTENT_TYPE = "application/json; charset=utf-8";
+
+    private final HttpServer server;
+
+    private final ExecutorService executorService;
+
+    /**
+     * Bind the server, it does not serve anything until it is started.
+     *
+     * @param host                  the address to listen on, e.g. 127.0.0.1 to only serve local tools.
+     * @param port                  the port, 0 for any free port.
+     * @param httpTrafficLogMonitor the monitor whose state is served.
+     * @throws IOException if the port cannot be bound.
+     */
+    public MetricsHttpServer(String host, int port, HttpTrafficLogMonitor httpTrafficLogMonitor) throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress(host, port), 0);
+        this.executorService = Executors.newSingleThreadExecutor(
+                new ThreadFactoryBuilder().setNameFormat("metrics-http-%d").setDaemon(true).build());
+        server.setExecutor(executorService);
+        server.createContext("/metrics", exchange -> respond(exchange, PROMETHEUS_CONTENT_TYPE,
+                () -> MetricsFormatter.toPrometheus(httpTrafficLogMonitor.getStatisticsSnapshot(),
+                        httpTrafficLogMonitor.inAlert(), httpTrafficLogMonitor.getMetrics())));
+        server.createContext("/metrics.json", exchange -> respond(exchange, JSON_CONTENT_TYPE,
+                () -> MetricsFormatter.toJson(httpTrafficLogMonitor.getStatisticsSnapshot(),
+                        httpTrafficLogMonitor.inAlert(), httpTrafficLogMonitor.getAlertMessage(),
+                        httpTrafficLogMonitor.getMetrics())));
+    }
+
+    public void start() {
+        server.start();
+        log.info("Serve the metrics on http://{}:{}/metrics", server.getAddress().getHostString(), getPort());
+    }
+
+    /**
+     * Return the port the server listens on.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executorService.shutdown();
+    }
+
+    private static void respond(HttpExchange exchange, String contentType, Supplier<String> body) throws IOException {
+        try {
+            // the contexts match by prefix, only serve the exact paths
+            final String path = exchange.getRequestURI().getPath();
+            if (!path.equals(exchange.getHttpContext().getPath())) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            if (!"GET".equals(exchange.getRequestMethod()) && !"HEAD".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            final byte[] bytes = body.get().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", contentType);
+            if ("HEAD".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(bytes);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.datadog.task.metrics;
+
+import com.datadog.task.model.LogRecord;
+import com.datadog.task.util.LogParser;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Parse lines with the {@link LogParser} and count the lines parsed, the lines which are not access log lines and the
+ * latency of every parse into a {@link MetricsRegistry}. This class is thread safe.
+ */
+public class InstrumentedLogParser {
+
+    private final LongAdder linesParsed;
+
+    private final LongAdder parseFailures;
+
+    private final LatencyHistogram parseLatency;
+
+    public InstrumentedLogParser(MetricsRegistry metrics) {
+        this.linesParsed = metrics.counter(MetricsRegistry.LINES_PARSED);
+        this.parseFailures = metrics.counter(MetricsRegistry.PARSE_FAILURES);
+        this.parseLatency = metrics.histogram(MetricsRegistry.PARSE_LATENCY);
+    }
+
+    public Optional<LogRecord> parse(String line) {
+        final long start = System.nanoTime();
+        return count(LogParser.parse(line), start);
+    }
+
+    public Optional<LogRecord> parse(byte[] bytes, int offset, int length) {
+        final long start = System.nanoTime();
+        return count(LogParser.parse(bytes, offset, length), start);
+    }
+
+    private Optional<LogRecord> count(Optional<LogRecord> logRecord, long start) {
+        parseLatency.recordSince(start);
+        (logRecord.isPresent() ? linesParsed : parseFailures).increment();
+        return logRecord;
+    }
+}
@@ -0,0 +1,154 @@
+package com.datadog.task.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of latencies in nanoseconds with log-linear buckets, like HdrHistogram with one significant digit: every
+ * power of two is split into {@value #SUB_BUCKETS} buckets, so a percentile is at most 12.5% above the true value,
+ * and the whole range of a long fits in less than 500 buckets. Recording is one atomic increment of a bucket and of
+ * the sum, there is no lock and no allocation. This class is thread safe.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+    private static final int BUCKET_NUMBER = (63 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets;
+
+    private final LongAdder sum;
+
+    public LatencyHistogram() {
+        this.buckets = new AtomicLongArray(BUCKET_NUMBER);
+        this.sum = new LongAdder();
+    }
+
+    /**
+     * Record one latency, a negative one is recorded as 0.
+     */
+    public void record(long nanos) {
+        final long value = Math.max(0L, nanos);
+        buckets.incrementAndGet(bucketIndex(value));
+        sum.add(value);
+    }
+
+    /**
+     * Record the time elapsed since the given {@link System#nanoTime()}.
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Return a copy of the counts, the buckets are copied one by one so a snapshot taken while recording may miss the
+     * latest values.
+     */
+    public Snapshot snapshot() {
+        final long[] counts = new long[BUCKET_NUMBER];
+        for (int i = 0; i < BUCKET_NUMBER; i++) {
+            counts[i] = buckets.get(i);
+        }
+        return new Snapshot(counts, sum.sum());
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        final int exponent = 63 - Long.numberOfLeadingZeros(value);
+        final int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * Return the highest value of a bucket.
+     */
+    static long bucketUpperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        final int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        final long lowerBound = (long) (SUB_BUCKETS + index % SUB_BUCKETS) << (exponent - SUB_BUCKET_BITS);
+        final long width = 1L << (exponent - SUB_BUCKET_BITS);
+        // the last bucket ends at Long.MAX_VALUE, lowerBound + width overflows to Long.MIN_VALUE
+        return lowerBound + width - 1;
+    }
+
+    /**
+     * The counts of a histogram at one point in time.
+     */
+    public static final class Snapshot {
+
+        private final long[] counts;
+
+        private final long count;
+
+        private final long sum;
+
+        private Snapshot(long[] counts, long sum) {
+            this.counts = counts;
+            long total = 0L;
+            for (long bucketCount : counts) {
+                total += bucketCount;
+            }
+            this.count = total;
+            this.sum = sum;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Return the sum of the latencies in nanoseconds.
+         */
+        public long getSum() {
+            return sum;
+        }
+
+        public double getMeanInMicros() {
+            return count == 0L ? 0.0 : sum / (double) count / 1000.0;
+        }
+
+        /**
+         * Return the highest latency of the bucket holding the given percentile in nanoseconds, 0 if nothing has been
+         * recorded.
+         *
+         * @param percentile between 0 and 100.
+         */
+        public long getValueAtPercentile(double percentile) {
+            if (count == 0L) {
+                return 0L;
+            }
+            final long rank = Math.max(1L, (long) Math.ceil(percentile / 100.0 * count));
+            long seen = 0L;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return bucketUpperBound(i);
+                }
+            }
+            return getMax();
+        }
+
+        /**
+         * Return the highest latency of the highest bucket recorded in nanoseconds.
+         */
+        public long getMax() {
+            for (int i = counts.length - 1; i >= 0; i--) {
+                if (counts[i] > 0L) {
+                    return bucketUpperBound(i);
+                }
+            }
+            return 0L;
+        }
+
+        public double getValueAtPercentileInMicros(double percentile) {
+            return getValueAtPercentile(percentile) / (double) TimeUnit.MICROSECONDS.toNanos(1);
+        }
+    }
+}
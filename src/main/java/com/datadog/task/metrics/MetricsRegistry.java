@@ -0,0 +1,117 @@
+package com.datadog.task.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * The metrics the monitor keeps about itself: counters, gauges read when the metrics are shown and latency histograms,
+ * each under a dotted name such as "parse.failure". A metric is created on its first lookup and the components keep a
+ * reference to it, so updating a metric is a {@link LongAdder} increment or a {@link LatencyHistogram} record with no
+ * map lookup. A total a component already keeps, such as the lines read, is registered as a counter read when the
+ * metrics are shown, it never decreases. This class is thread safe.
+ */
+public class MetricsRegistry {
+
+    public static final String LINES_PARSED = "parse.success";
+
+    public static final String PARSE_FAILURES = "parse.failure";
+
+    public static final String PARSE_LATENCY = "parse";
+
+    public static final String ADD_RECORD_LATENCY = "repository.add";
+
+    public static final String AGGREGATE_LATENCY = "repository.aggregate";
+
+    public static final String ALERT_LATENCY = "alert.evaluate";
+
+    public static final String LINES_READ = "reader.lines";
+
+    public static final String BYTES_READ = "reader.bytes";
+
+    public static final String LAG_IN_BYTES = "reader.lag.bytes";
+
+    private final Map<String, LongAdder> counters;
+
+    private final Map<String, LongSupplier> counterValues;
+
+    private final Map<String, LongSupplier> gauges;
+
+    private final Map<String, LatencyHistogram> histograms;
+
+    public MetricsRegistry() {
+        this.counters = new ConcurrentHashMap<>();
+        this.counterValues = new ConcurrentHashMap<>();
+        this.gauges = new ConcurrentHashMap<>();
+        this.histograms = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Return the counter of the given name, created if it does not exist.
+     */
+    public LongAdder counter(String name) {
+        return counters.computeIfAbsent(name, n -> new LongAdder());
+    }
+
+    /**
+     * Return the histogram of the given name, created if it does not exist.
+     */
+    public LatencyHistogram histogram(String name) {
+        return histograms.computeIfAbsent(name, n -> new LatencyHistogram());
+    }
+
+    /**
+     * Register a total read when the metrics are shown, which never decreases, replacing a total of the same name.
+     */
+    public void counter(String name, LongSupplier value) {
+        counterValues.put(name, value);
+    }
+
+    /**
+     * Register a value read when the metrics are shown, replacing a gauge of the same name.
+     */
+    public void gauge(String name, LongSupplier value) {
+        gauges.put(name, value);
+    }
+
+    /**
+     * Return the current value of every counter and gauge, by name.
+     */
+    public SortedMap<String, Long> getValues() {
+        final SortedMap<String, Long> values = new TreeMap<>(getCounterValues());
+        values.putAll(getGaugeValues());
+        return Collections.unmodifiableSortedMap(values);
+    }
+
+    /**
+     * Return the current value of every counter, by name.
+     */
+    public SortedMap<String, Long> getCounterValues() {
+        final SortedMap<String, Long> values = new TreeMap<>();
+        counters.forEach((name, counter) -> values.put(name, counter.sum()));
+        counterValues.forEach((name, counter) -> values.put(name, counter.getAsLong()));
+        return Collections.unmodifiableSortedMap(values);
+    }
+
+    /**
+     * Return the current value of every gauge, by name.
+     */
+    public SortedMap<String, Long> getGaugeValues() {
+        final SortedMap<String, Long> values = new TreeMap<>();
+        gauges.forEach((name, gauge) -> values.put(name, gauge.getAsLong()));
+        return Collections.unmodifiableSortedMap(values);
+    }
+
+    /**
+     * Return a snapshot of every histogram, by name.
+     */
+    public SortedMap<String, LatencyHistogram.Snapshot> getHistograms() {
+        final SortedMap<String, LatencyHistogram.Snapshot> snapshots = new TreeMap<>();
+        histograms.forEach((name, histogram) -> snapshots.put(name, histogram.snapshot()));
+        return Collections.unmodifiableSortedMap(snapshots);
+    }
+}
@@ -1,6 +1,7 @@
 package com.datadog.task.model;
 
 import java.util.StringJoiner;
+import java.util.function.Supplier;
 
 /**
  * An class aggregates statistics for a continuous time range, provides these metrics
@@ -26,10 +27,18 @@ public class AggregatedStatistics {
     }
 
     public AggregatedStatistics(int timeRangeLengthInSecond) {
+        this(timeRangeLengthInSecond, ExactCounter::new);
+    }
+
+    /**
+     * Construct an aggregation whose counters are created by the given factory, which should be the factory of the
+     * statistics merged into it.
+     */
+    public AggregatedStatistics(int timeRangeLengthInSecond, Supplier<Counter> counterFactory) {
         this.totalRequest = 0L;
-        this.sectionCounter = new Counter();
-        this.clientIpCounter = new Counter();
-        this.authCounter = new Counter();
+        this.sectionCounter = counterFactory.get();
+        this.clientIpCounter = counterFactory.get();
+        this.authCounter = counterFactory.get();
         this.timeRangeLengthInSecond = timeRangeLengthInSecond;
     }
 
@@ -37,6 +46,16 @@ public class AggregatedStatistics {
         totalRequest += requestNumber;
     }
 
+    /**
+     * Add the statistic of one second, or of one bucket of seconds, to the aggregation.
+     */
+    public void merge(Statistic statistic) {
+        increaseRequests(statistic.getRequestNumber());
+        sectionCounter.merge(statistic.getSectionCounter());
+        clientIpCounter.merge(statistic.getClientIpCounter());
+        authCounter.merge(statistic.getAuthCounter());
+    }
+
     public long getTotalRequest() {
         return totalRequest;
     }
@@ -0,0 +1,42 @@
+package com.datadog.task.model;
+
+import java.time.Instant;
+
+/**
+ * A transition of the high traffic alert, posted by the {@link com.datadog.task.controller.TrafficAlert} when the
+ * alert fires or recovers, stamped with the time of the alert clock.
+ */
+public final class AlertEvent {
+
+    private final boolean active;
+
+    private final Instant time;
+
+    private final String message;
+
+    public AlertEvent(boolean active, Instant time, String message) {
+        this.active = active;
+        this.time = time;
+        this.message = message;
+    }
+
+    /**
+     * Return true if the alert fired, false if it recovered.
+     */
+    public boolean isActive() {
+        return active;
+    }
+
+    public Instant getTime() {
+        return time;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public String toString() {
+        return "AlertEvent{active=" + active + ", time=" + time + ", message='" + message + "'}";
+    }
+}
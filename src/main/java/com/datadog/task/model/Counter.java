@@ -1,41 +1,46 @@
 package com.datadog.task.model;
 
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.stream.Collectors;
+import java.util.function.Supplier;
 
 /**
- * A class count the frequency of each item.
+ * Count the frequency of each item.
  */
-public class Counter {
+public interface Counter {
 
-    private final Map<String, Integer> counter;
+    String EXACT = "exact";
 
-    public Counter() {
-        this.counter = new HashMap<>();
-    }
+    String APPROXIMATE = "approximate";
 
-    public void increase(String item) {
-        if (item == null) {
-            return;
+    /**
+     * Create a factory of the counters of one repository.
+     *
+     * @param counterType {@link #EXACT} for the {@link ExactCounter}, which share one {@link StringDictionary},
+     *                    {@link #APPROXIMATE} for the {@link SpaceSavingCounter}.
+     * @param capacity    the number of items an approximate counter keeps.
+     * @return a factory of new counters.
+     */
+    static Supplier<Counter> newFactory(String counterType, int capacity) {
+        switch (counterType) {
+            case EXACT:
+                return new ExactCounterFactory();
+            case APPROXIMATE:
+                return () -> new SpaceSavingCounter(capacity);
+            default:
+                throw new IllegalArgumentException("Unknown counter type " + counterType);
         }
-        increase(item, 1);
     }
 
-    private void increase(String item, int count) {
-        counter.put(item, counter.getOrDefault(item, 0) + count);
-    }
+    void increase(String item);
 
-    public Map<String, Integer> getAllItemCounts() {
-        return Collections.unmodifiableMap(counter);
-    }
+    /**
+     * Return the count of every item the counter holds. An approximate counter only holds the most frequent items.
+     */
+    Map<String, Integer> getAllItemCounts();
 
-    public void merge(Counter other) {
-        other.getAllItemCounts().forEach(this::increase);
-    }
+    void merge(Counter other);
 
     /**
      * Return top k items with highest frequencies. If there is a tie, sort the items with alphabetical order. If the
@@ -44,14 +49,11 @@ public class Counter {
      * @param k top k
      * @return A sorted list of SimpleEntry<String, Integer>
      */
-    public List<Entry<String, Integer>> topK(int k) {
-        return counter.entrySet().stream()
-                .sorted((e1, e2) -> e1.getValue().compareTo(e2.getValue()) == 0 ? e1.getKey().compareTo(e2.getKey()) :
-                        e2.getValue().compareTo(e1.getValue())).limit(k).collect(Collectors.toList());
-    }
+    List<Entry<String, Integer>> topK(int k);
 
-    @Override
-    public String toString() {
-        return counter.toString();
-    }
+    /**
+     * Return how much a count may be overestimated, which is also the max count of an item the counter does not hold.
+     * An exact counter returns 0.
+     */
+    long getErrorBound();
 }
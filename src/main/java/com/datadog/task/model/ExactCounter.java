@@ -0,0 +1,221 @@
+package com.datadog.task.model;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * A counter which counts every item exactly. The items are encoded into ids by a {@link StringDictionary} and counted in
+ * a primitive {@link IntIntHashMap}, counters sharing the same dictionary are merged by id without boxing. The top k
+ * items are selected with a bounded heap in O(n log k), without copying or sorting all the items.
+ * <p>
+ * A counter may be {@link #reencode(StringDictionary) re-encoded} into another dictionary when its repository
+ * compacts the shared dictionary, it must be guarded by the same lock as its updates.
+ */
+public class ExactCounter implements Counter {
+
+    private StringDictionary dictionary;
+
+    private IntIntHashMap counter;
+
+    /**
+     * Construct a counter with its own dictionary.
+     */
+    public ExactCounter() {
+        this(new StringDictionary());
+    }
+
+    /**
+     * Construct a counter encoding its items with the given dictionary.
+     */
+    public ExactCounter(StringDictionary dictionary) {
+        this.dictionary = dictionary;
+        this.counter = new IntIntHashMap();
+    }
+
+    @Override
+    public void increase(String item) {
+        if (item == null) {
+            return;
+        }
+        counter.addTo(dictionary.encode(item), 1);
+    }
+
+    /**
+     * Add the given count to an item at once.
+     */
+    public void add(String item, int count) {
+        if (item == null) {
+            return;
+        }
+        counter.addTo(dictionary.encode(item), count);
+    }
+
+    /**
+     * Move the counts to the ids of another dictionary, this counter then encodes its items with it.
+     */
+    public void reencode(StringDictionary newDictionary) {
+        if (newDictionary == dictionary) {
+            return;
+        }
+        final IntIntHashMap reencoded = new IntIntHashMap();
+        for (int slot = 0; slot < counter.capacity(); slot++) {
+            final int id = counter.keyAt(slot);
+            if (id != IntIntHashMap.EMPTY) {
+                reencoded.addTo(newDictionary.encode(dictionary.decode(id)), counter.valueAt(slot));
+            }
+        }
+        counter = reencoded;
+        dictionary = newDictionary;
+    }
+
+    @Override
+    public Map<String, Integer> getAllItemCounts() {
+        final Map<String, Integer> itemCounts = new HashMap<>();
+        for (int slot = 0; slot < counter.capacity(); slot++) {
+            final int id = counter.keyAt(slot);
+            if (id != IntIntHashMap.EMPTY) {
+                itemCounts.put(dictionary.decode(id), counter.valueAt(slot));
+            }
+        }
+        return Collections.unmodifiableMap(itemCounts);
+    }
+
+    @Override
+    public void merge(Counter other) {
+        if (!(other instanceof ExactCounter)) {
+            other.getAllItemCounts().forEach((item, count) -> counter.addTo(dictionary.encode(item), count));
+            return;
+        }
+        final ExactCounter exactCounter = (ExactCounter) other;
+        final IntIntHashMap otherCounter = exactCounter.counter;
+        for (int slot = 0; slot < otherCounter.capacity(); slot++) {
+            final int id = otherCounter.keyAt(slot);
+            if (id == IntIntHashMap.EMPTY) {
+                continue;
+            }
+            final int localId = exactCounter.dictionary == dictionary ? id
+                    : dictionary.encode(exactCounter.dictionary.decode(id));
+            counter.addTo(localId, otherCounter.valueAt(slot));
+        }
+    }
+
+    /**
+     * Subtract the counts of another exact counter, which must only hold counts previously merged into this one. An
+     * item whose count drops to 0 is removed.
+     */
+    public void subtract(ExactCounter other) {
+        final IntIntHashMap otherCounter = other.counter;
+        for (int slot = 0; slot < otherCounter.capacity(); slot++) {
+            final int id = otherCounter.keyAt(slot);
+            if (id == IntIntHashMap.EMPTY) {
+                continue;
+            }
+            final int localId = other.dictionary == dictionary ? id : dictionary.encode(other.dictionary.decode(id));
+            if (counter.addTo(localId, -otherCounter.valueAt(slot)) <= 0) {
+                counter.remove(localId);
+            }
+        }
+    }
+
+    @Override
+    public List<Entry<String, Integer>> topK(int k) {
+        final int size = Math.min(k, counter.size());
+        if (size <= 0) {
+            return new ArrayList<>();
+        }
+        // a min heap of the best k items seen so far, its root is the worst of them.
+        final int[] heapIds = new int[size];
+        final int[] heapCounts = new int[size];
+        int heapSize = 0;
+        for (int slot = 0; slot < counter.capacity(); slot++) {
+            final int id = counter.keyAt(slot);
+            if (id == IntIntHashMap.EMPTY) {
+                continue;
+            }
+            final int count = counter.valueAt(slot);
+            if (heapSize < size) {
+                heapIds[heapSize] = id;
+                heapCounts[heapSize] = count;
+                siftUp(heapIds, heapCounts, heapSize++);
+            } else if (isBefore(count, id, heapCounts[0], heapIds[0])) {
+                heapIds[0] = id;
+                heapCounts[0] = count;
+                siftDown(heapIds, heapCounts, 0, heapSize);
+            }
+        }
+        // pop the worst item until the heap is empty, then reverse.
+        final List<Entry<String, Integer>> result = new ArrayList<>(heapSize);
+        while (heapSize > 0) {
+            result.add(new SimpleImmutableEntry<>(dictionary.decode(heapIds[0]), heapCounts[0]));
+            heapSize--;
+            heapIds[0] = heapIds[heapSize];
+            heapCounts[0] = heapCounts[heapSize];
+            siftDown(heapIds, heapCounts, 0, heapSize);
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    /**
+     * Whether an item comes before another one in the top k order: the higher count first, then alphabetical.
+     */
+    private boolean isBefore(int count, int id, int otherCount, int otherId) {
+        if (count != otherCount) {
+            return count > otherCount;
+        }
+        return dictionary.decode(id).compareTo(dictionary.decode(otherId)) < 0;
+    }
+
+    private void siftUp(int[] ids, int[] counts, int index) {
+        while (index > 0) {
+            final int parent = (index - 1) >>> 1;
+            if (!isBefore(counts[parent], ids[parent], counts[index], ids[index])) {
+                return;
+            }
+            swap(ids, counts, parent, index);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int[] ids, int[] counts, int index, int size) {
+        while (true) {
+            final int left = 2 * index + 1;
+            if (left >= size) {
+                return;
+            }
+            final int right = left + 1;
+            // the child which comes later in the top k order should become the parent
+            final int child = right < size && isBefore(counts[left], ids[left], counts[right], ids[right]) ? right
+                    : left;
+            if (!isBefore(counts[index], ids[index], counts[child], ids[child])) {
+                return;
+            }
+            swap(ids, counts, index, child);
+            index = child;
+        }
+    }
+
+    private static void swap(int[] ids, int[] counts, int i, int j) {
+        final int id = ids[i];
+        ids[i] = ids[j];
+        ids[j] = id;
+        final int count = counts[i];
+        counts[i] = counts[j];
+        counts[j] = count;
+    }
+
+    @Override
+    public long getErrorBound() {
+        return 0L;
+    }
+
+    @Override
+    public String toString() {
+        return getAllItemCounts().toString();
+    }
+}
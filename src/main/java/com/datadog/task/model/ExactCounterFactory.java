@@ -0,0 +1,72 @@
+package com.datadog.task.model;
+
+import java.util.function.Supplier;
+
+/**
+ * Create the {@link ExactCounter}s of one repository, which share one {@link StringDictionary}. A dictionary never
+ * reuses an id, so it keeps every item ever seen. Once it has grown to twice the number of items still live after the
+ * last compaction, the repository compacts it: {@link #newDictionary()} replaces it with an empty one for the new
+ * counters, the repository re-encodes its live counters into it, and the old dictionary is collected with the last
+ * counter still using it. The memory of the dictionary is then bounded by the items of the window and its tiers.
+ * This class is thread safe.
+ */
+public final class ExactCounterFactory implements Supplier<Counter> {
+
+    private static final int DEFAULT_MIN_COMPACTION_SIZE = 1 << 16;
+
+    private final int minCompactionSize;
+
+    private volatile StringDictionary dictionary;
+
+    // the size of the dictionary from which it is compacted
+    private volatile int compactionSize;
+
+    public ExactCounterFactory() {
+        this(DEFAULT_MIN_COMPACTION_SIZE);
+    }
+
+    /**
+     * Construct a factory whose dictionary is not compacted before it holds minCompactionSize items.
+     */
+    public ExactCounterFactory(int minCompactionSize) {
+        this.minCompactionSize = minCompactionSize;
+        this.dictionary = new StringDictionary();
+        this.compactionSize = minCompactionSize;
+    }
+
+    @Override
+    public Counter get() {
+        return new ExactCounter(dictionary);
+    }
+
+    /**
+     * Whether the dictionary has grown enough since the last compaction to be compacted.
+     */
+    public boolean needsCompaction() {
+        return dictionary.size() >= compactionSize;
+    }
+
+    /**
+     * Replace the dictionary of the new counters with an empty one, the caller then re-encodes the live counters into
+     * it and calls {@link #compacted()}.
+     *
+     * @return the new dictionary.
+     */
+    public StringDictionary newDictionary() {
+        final StringDictionary newDictionary = new StringDictionary();
+        dictionary = newDictionary;
+        return newDictionary;
+    }
+
+    /**
+     * Set the size of the next compaction from the items left in the dictionary once the live counters are
+     * re-encoded.
+     */
+    public void compacted() {
+        compactionSize = Math.max(minCompactionSize, 2 * dictionary.size());
+    }
+
+    public int getDictionarySize() {
+        return dictionary.size();
+    }
+}
@@ -0,0 +1,142 @@
+package com.datadog.task.model;
+
+import java.util.Arrays;
+
+/**
+ * An open addressing hash map from non negative int keys to int values with linear probing, used by {@link Counter}
+ * to count dictionary ids without boxing. The slots are exposed so a caller can iterate them without an iterator
+ * object: a slot whose key is {@link #EMPTY} holds nothing. This class is not thread safe.
+ */
+final class IntIntHashMap {
+
+    static final int EMPTY = -1;
+
+    private static final int DEFAULT_CAPACITY = 8;
+
+    private int[] keys;
+
+    private int[] values;
+
+    private int size;
+
+    private int mask;
+
+    IntIntHashMap() {
+        allocate(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Add delta to the value of the key, an absent key has the value 0.
+     *
+     * @return the new value.
+     */
+    int addTo(int key, int delta) {
+        int slot = slot(key);
+        while (true) {
+            final int k = keys[slot];
+            if (k == key) {
+                values[slot] += delta;
+                return values[slot];
+            }
+            if (k == EMPTY) {
+                keys[slot] = key;
+                values[slot] = delta;
+                // keep the load factor under 0.5, so the probe sequences stay short
+                if (++size * 2 > keys.length) {
+                    rehash();
+                }
+                return delta;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Remove the key. The following entries of the probe sequence are shifted back, so no tombstone is left behind.
+     */
+    void remove(int key) {
+        int gap = slot(key);
+        while (keys[gap] != key) {
+            if (keys[gap] == EMPTY) {
+                return;
+            }
+            gap = (gap + 1) & mask;
+        }
+        int next = (gap + 1) & mask;
+        while (keys[next] != EMPTY) {
+            // an entry can fill the gap if the gap is between its home slot and its current slot
+            final int home = slot(keys[next]);
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[gap] = EMPTY;
+        values[gap] = 0;
+        size--;
+    }
+
+    /**
+     * Get the value of the key, 0 if the key is absent.
+     */
+    int get(int key) {
+        int slot = slot(key);
+        while (true) {
+            final int k = keys[slot];
+            if (k == key) {
+                return values[slot];
+            }
+            if (k == EMPTY) {
+                return 0;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    int capacity() {
+        return keys.length;
+    }
+
+    int keyAt(int slot) {
+        return keys[slot];
+    }
+
+    int valueAt(int slot) {
+        return values[slot];
+    }
+
+    private int slot(int key) {
+        final int hash = key * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        values = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    private void rehash() {
+        final int[] oldKeys = keys;
+        final int[] oldValues = values;
+        allocate(oldKeys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            final int key = oldKeys[i];
+            if (key != EMPTY) {
+                int slot = slot(key);
+                while (keys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = key;
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+}
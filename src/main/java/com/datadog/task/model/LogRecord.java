@@ -18,7 +18,7 @@ public class LogRecord {
 
     private final String clientIp;
 
-    private LogRecord(String request, long timestamp, String section, String auth, String clientIp) {
+    private LogRecord(String request, Long timestamp, String section, String auth, String clientIp) {
         this.request = request;
         this.timestamp = timestamp;
         this.section = section;
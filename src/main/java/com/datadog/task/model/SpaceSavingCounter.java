@@ -0,0 +1,206 @@
+package com.datadog.task.model;
+
+import com.google.common.base.Preconditions;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.stream.Collectors;
+
+/**
+ * An approximate counter with the Space-Saving algorithm (Metwally et al.): it keeps at most capacity items whatever the
+ * number of distinct items is. When a new item arrives and the counter is full, the item with the lowest count is
+ * replaced and the new item inherits that count, so every count is an overestimate.
+ * <p>
+ * The counter tracks an error bound: no count is overestimated by more than the bound, and an item the counter does not
+ * hold has not been seen more than bound times. Two counters are merged as mergeable summaries (Agarwal et al.): the
+ * counts of the union are added, an item missing from one side is given the bound of that side, and only the capacity
+ * largest items are kept. The bound of the result is the sum of the two bounds, or the largest count dropped if that is
+ * higher. The items are kept in a min heap by count, an increase is O(log capacity). This class is not thread safe.
+ */
+public class SpaceSavingCounter implements Counter {
+
+    private static final int INITIAL_HEAP_SIZE = 16;
+
+    private static final Comparator<Slot> TOP_K_ORDER = Comparator.<Slot>comparingInt(s -> s.count).reversed()
+            .thenComparing(s -> s.item);
+
+    private final int capacity;
+
+    private final Map<String, Slot> slots;
+
+    // a min heap by count, every slot knows its index in the heap
+    private Slot[] heap;
+
+    private int size;
+
+    private long errorBound;
+
+    /**
+     * Construct a counter.
+     *
+     * @param capacity the max number of items the counter keeps.
+     */
+    public SpaceSavingCounter(int capacity) {
+        Preconditions.checkArgument(capacity > 0, "Capacity should be a positive number.");
+        this.capacity = capacity;
+        this.slots = new HashMap<>();
+        this.heap = new Slot[Math.min(capacity, INITIAL_HEAP_SIZE)];
+        this.size = 0;
+        this.errorBound = 0L;
+    }
+
+    @Override
+    public void increase(String item) {
+        if (item == null) {
+            return;
+        }
+        final Slot slot = slots.get(item);
+        if (slot != null) {
+            slot.count++;
+            siftDown(slot.index);
+            return;
+        }
+        if (size < capacity) {
+            if (size == heap.length) {
+                heap = Arrays.copyOf(heap, Math.min(capacity, size * 2));
+            }
+            final Slot newSlot = new Slot(item, 1);
+            newSlot.index = size;
+            heap[size] = newSlot;
+            slots.put(item, newSlot);
+            siftUp(size++);
+            return;
+        }
+        // replace the item with the lowest count, the new item may have been seen that many times before.
+        final Slot min = heap[0];
+        final long base = Math.max(min.count, errorBound);
+        errorBound = base;
+        slots.remove(min.item);
+        min.item = item;
+        min.count = saturatedInt(base + 1);
+        slots.put(item, min);
+        siftDown(0);
+    }
+
+    @Override
+    public Map<String, Integer> getAllItemCounts() {
+        final Map<String, Integer> itemCounts = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            itemCounts.put(heap[i].item, heap[i].count);
+        }
+        return Collections.unmodifiableMap(itemCounts);
+    }
+
+    @Override
+    public void merge(Counter other) {
+        final long otherErrorBound = other.getErrorBound();
+        final Map<String, Integer> otherCounts = other.getAllItemCounts();
+        final List<Slot> union = new ArrayList<>(size + otherCounts.size());
+        for (int i = 0; i < size; i++) {
+            final Slot slot = heap[i];
+            final Integer otherCount = otherCounts.get(slot.item);
+            slot.count = saturatedInt(slot.count + (otherCount != null ? otherCount : otherErrorBound));
+            union.add(slot);
+        }
+        otherCounts.forEach((item, count) -> {
+            if (!slots.containsKey(item)) {
+                union.add(new Slot(item, saturatedInt(count + errorBound)));
+            }
+        });
+        long newErrorBound = errorBound + otherErrorBound;
+        if (union.size() > capacity) {
+            union.sort(TOP_K_ORDER);
+            newErrorBound = Math.max(newErrorBound, union.get(capacity).count);
+        }
+        rebuild(union.subList(0, Math.min(capacity, union.size())));
+        errorBound = newErrorBound;
+    }
+
+    @Override
+    public List<Entry<String, Integer>> topK(int k) {
+        return Arrays.stream(heap, 0, size).sorted(TOP_K_ORDER).limit(Math.max(k, 0))
+                .map(s -> new SimpleImmutableEntry<>(s.item, s.count)).collect(Collectors.toList());
+    }
+
+    @Override
+    public long getErrorBound() {
+        return errorBound;
+    }
+
+    @Override
+    public String toString() {
+        return getAllItemCounts().toString();
+    }
+
+    private void rebuild(List<Slot> kept) {
+        slots.clear();
+        heap = kept.toArray(new Slot[Math.max(kept.size(), Math.min(capacity, INITIAL_HEAP_SIZE))]);
+        size = kept.size();
+        for (int i = 0; i < size; i++) {
+            heap[i].index = i;
+            slots.put(heap[i].item, heap[i]);
+        }
+        for (int i = size / 2 - 1; i >= 0; i--) {
+            siftDown(i);
+        }
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            final int parent = (index - 1) >>> 1;
+            if (heap[parent].count <= heap[index].count) {
+                return;
+            }
+            swap(parent, index);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index) {
+        while (true) {
+            final int left = 2 * index + 1;
+            if (left >= size) {
+                return;
+            }
+            final int right = left + 1;
+            final int child = right < size && heap[right].count < heap[left].count ? right : left;
+            if (heap[index].count <= heap[child].count) {
+                return;
+            }
+            swap(index, child);
+            index = child;
+        }
+    }
+
+    private void swap(int i, int j) {
+        final Slot slot = heap[i];
+        heap[i] = heap[j];
+        heap[j] = slot;
+        heap[i].index = i;
+        heap[j].index = j;
+    }
+
+    private static int saturatedInt(long value) {
+        return (int) Math.min(value, Integer.MAX_VALUE);
+    }
+
+    private static final class Slot {
+
+        private String item;
+
+        private int count;
+
+        private int index;
+
+        private Slot(String item, int count) {
+            this.item = item;
+            this.count = count;
+        }
+    }
+}
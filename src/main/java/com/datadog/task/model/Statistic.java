@@ -1,5 +1,7 @@
 package com.datadog.task.model;
 
+import java.util.function.Supplier;
+
 /**
  * A class stores statistic for one second.
  */
@@ -17,13 +19,32 @@ public class Statistic {
     private long requestNumber;
 
     public Statistic(Long timestamp) {
+        this(timestamp, ExactCounter::new);
+    }
+
+    /**
+     * Construct a statistic whose counters are created by the given factory.
+     */
+    public Statistic(Long timestamp, Supplier<Counter> counterFactory) {
         this.timestamp = timestamp;
-        this.sectionCounter = new Counter();
-        this.clientIpCounter = new Counter();
-        this.authCounter = new Counter();
+        this.sectionCounter = counterFactory.get();
+        this.clientIpCounter = counterFactory.get();
+        this.authCounter = counterFactory.get();
         this.requestNumber = 0L;
     }
 
+    /**
+     * Construct the statistic of one second from its counts, e.g. read back from a snapshot.
+     */
+    public Statistic(long timestamp, long requestNumber, Counter sectionCounter, Counter clientIpCounter,
+            Counter authCounter) {
+        this.timestamp = timestamp;
+        this.sectionCounter = sectionCounter;
+        this.clientIpCounter = clientIpCounter;
+        this.authCounter = authCounter;
+        this.requestNumber = requestNumber;
+    }
+
     public long getTimestamp() {
         return timestamp;
     }
@@ -35,6 +56,28 @@ public class Statistic {
         requestNumber++;
     }
 
+    /**
+     * Add the statistic of another time range to this one, e.g. to roll seconds up into a coarser bucket.
+     */
+    public void merge(Statistic other) {
+        sectionCounter.merge(other.sectionCounter);
+        clientIpCounter.merge(other.clientIpCounter);
+        authCounter.merge(other.authCounter);
+        requestNumber += other.requestNumber;
+    }
+
+    /**
+     * Move the exact counters of this statistic to the ids of another dictionary, see
+     * {@link ExactCounter#reencode(StringDictionary)}.
+     */
+    public void reencode(StringDictionary dictionary) {
+        for (Counter counter : new Counter[]{sectionCounter, clientIpCounter, authCounter}) {
+            if (counter instanceof ExactCounter) {
+                ((ExactCounter) counter).reencode(dictionary);
+            }
+        }
+    }
+
     public long getRequestNumber() {
         return requestNumber;
     }
@@ -0,0 +1,173 @@
+package com.datadog.task.model;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.StringJoiner;
+
+/**
+ * An immutable copy of the statistics of one report interval, as published by the
+ * {@link com.datadog.task.controller.StatisticsCollector}. The top k items are copied out of the counters when the
+ * snapshot is taken, so a snapshot can be read and formatted by any number of threads without touching the
+ * repository. Every collection gets the next generation number, a reader can tell from it whether the statistics
+ * changed since it last formatted them.
+ */
+public final class StatisticsSnapshot {
+
+    private final long generation;
+
+    private final Instant collectedTime;
+
+    private final int intervalInSec;
+
+    private final long totalRequests;
+
+    private final double qps;
+
+    private final TopItems sections;
+
+    private final TopItems auths;
+
+    private final TopItems clientIps;
+
+    private final long droppedLateRecords;
+
+    private final long droppedFutureRecords;
+
+    private StatisticsSnapshot(long generation, Instant collectedTime, int intervalInSec, long totalRequests,
+            double qps, TopItems sections, TopItems auths, TopItems clientIps, long droppedLateRecords,
+            long droppedFutureRecords) {
+        this.generation = generation;
+        this.collectedTime = collectedTime;
+        this.intervalInSec = intervalInSec;
+        this.totalRequests = totalRequests;
+        this.qps = qps;
+        this.sections = sections;
+        this.auths = auths;
+        this.clientIps = clientIps;
+        this.droppedLateRecords = droppedLateRecords;
+        this.droppedFutureRecords = droppedFutureRecords;
+    }
+
+    /**
+     * Take the snapshot of an aggregation.
+     *
+     * @param generation           the number of the collection, from 1.
+     * @param collectedTime        when the statistics were collected.
+     * @param intervalInSec        the length of the report interval.
+     * @param statistics           the statistics of the interval.
+     * @param topK                 the number of items kept of every counter.
+     * @param droppedLateRecords   the records dropped so far because they were too late.
+     * @param droppedFutureRecords the records dropped so far because they were from the future.
+     * @return a new snapshot.
+     */
+    public static StatisticsSnapshot of(long generation, Instant collectedTime, int intervalInSec,
+            AggregatedStatistics statistics, int topK, long droppedLateRecords, long droppedFutureRecords) {
+        return new StatisticsSnapshot(generation, collectedTime, intervalInSec, statistics.getTotalRequest(),
+                statistics.getQps(), TopItems.of(statistics.getSectionCounter(), topK),
+                TopItems.of(statistics.getAuthCounter(), topK), TopItems.of(statistics.getClientIpCounter(), topK),
+                droppedLateRecords, droppedFutureRecords);
+    }
+
+    public long getGeneration() {
+        return generation;
+    }
+
+    public Instant getCollectedTime() {
+        return collectedTime;
+    }
+
+    /**
+     * Return the start of the time range the statistics cover, inclusive.
+     */
+    public Instant getWindowStart() {
+        return collectedTime.minusSeconds(intervalInSec);
+    }
+
+    /**
+     * Return the end of the time range the statistics cover, exclusive.
+     */
+    public Instant getWindowEnd() {
+        return collectedTime;
+    }
+
+    public int getIntervalInSec() {
+        return intervalInSec;
+    }
+
+    public long getTotalRequests() {
+        return totalRequests;
+    }
+
+    public double getQps() {
+        return qps;
+    }
+
+    public TopItems getSections() {
+        return sections;
+    }
+
+    public TopItems getAuths() {
+        return auths;
+    }
+
+    public TopItems getClientIps() {
+        return clientIps;
+    }
+
+    public long getDroppedLateRecords() {
+        return droppedLateRecords;
+    }
+
+    public long getDroppedFutureRecords() {
+        return droppedFutureRecords;
+    }
+
+    @Override
+    public String toString() {
+        return new StringJoiner(", ", StatisticsSnapshot.class.getSimpleName() + "[", "]")
+                .add("generation=" + generation)
+                .add("collectedTime=" + collectedTime)
+                .add("totalRequests=" + totalRequests)
+                .add("sections=" + sections)
+                .add("auths=" + auths)
+                .add("clientIps=" + clientIps)
+                .toString();
+    }
+
+    /**
+     * The top k items of a counter, from the most frequent, and how much their counts may be overestimated.
+     */
+    public static final class TopItems {
+
+        private final List<Entry<String, Integer>> entries;
+
+        private final long errorBound;
+
+        private TopItems(List<Entry<String, Integer>> entries, long errorBound) {
+            this.entries = entries;
+            this.errorBound = errorBound;
+        }
+
+        static TopItems of(Counter counter, int topK) {
+            return new TopItems(Collections.unmodifiableList(counter.topK(topK)), counter.getErrorBound());
+        }
+
+        public List<Entry<String, Integer>> getEntries() {
+            return entries;
+        }
+
+        /**
+         * Return how much a count may be overestimated, 0 for exact counts.
+         */
+        public long getErrorBound() {
+            return errorBound;
+        }
+
+        @Override
+        public String toString() {
+            return entries.toString();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.datadog.task.model;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Encode strings into dense int ids, so the {@link Counter}s of a repository key on primitive ints instead of strings.
+ * A repository shares one dictionary between all its counters, an item is then stored once however many seconds it
+ * appears in, and counters of the same dictionary are merged by id without touching the strings.
+ * <p>
+ * Encoding a known string is one lookup which does not allocate, decoding is an array access. Ids are never reused,
+ * the dictionary grows with the number of distinct items ever seen, so a repository replaces it with a compacted one
+ * from time to time, see {@link ExactCounterFactory}. This class is thread safe.
+ */
+public class StringDictionary {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final ConcurrentHashMap<String, Integer> ids;
+
+    // written under the dictionary monitor, a value is stored before its id is published through ids
+    private volatile String[] values;
+
+    // written under the dictionary monitor
+    private volatile int size;
+
+    public StringDictionary() {
+        this.ids = new ConcurrentHashMap<>();
+        this.values = new String[INITIAL_CAPACITY];
+        this.size = 0;
+    }
+
+    /**
+     * Get the id of a string, assign the next id if the string has not been seen before.
+     *
+     * @param value a non null string.
+     * @return the id of the string.
+     */
+    public int encode(String value) {
+        final Integer id = ids.get(value);
+        if (id != null) {
+            return id;
+        }
+        synchronized (this) {
+            final Integer existing = ids.get(value);
+            if (existing != null) {
+                return existing;
+            }
+            String[] current = values;
+            if (size == current.length) {
+                current = Arrays.copyOf(current, size * 2);
+            }
+            current[size] = value;
+            values = current;
+            ids.put(value, size);
+            return size++;
+        }
+    }
+
+    /**
+     * Get the string of an id returned by {@link #encode(String)}.
+     */
+    public String decode(int id) {
+        return values[id];
+    }
+
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,211 @@
+package com.datadog.task.storage;
+
+import com.datadog.task.model.AggregatedStatistics;
+import com.datadog.task.model.Counter;
+import com.datadog.task.model.ExactCounterFactory;
+import com.datadog.task.model.Statistic;
+import com.datadog.task.model.StringDictionary;
+import com.google.common.base.Preconditions;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Common parts of the repositories which keep one slot per second in an array used as a ring buffer. A range query
+ * reads the seconds inside the window from the slots, and the older seconds from the {@link TieredStatistics} if the
+ * repository rolls the seconds leaving the window up into tiers.
+ * <p>
+ * The {@link WindowClock} decides the current second. In event time a second stays in its slot for the allowed
+ * lateness after it left the window, so the ring buffer has one slot per second of the window and of the lateness.
+ */
+abstract class AbstractStatisticsRepository implements StatisticsRepository {
+
+    final int timeWindowLengthInSec;
+
+    // creates the counters of all the slots and aggregations of the repository
+    final Supplier<Counter> counterFactory;
+
+    // the seconds which fell out of the window, null if disabled
+    final TieredStatistics tiers;
+
+    final WindowClock clock;
+
+    // the number of slots of the ring buffer, the window plus the allowed lateness
+    final int slotNumber;
+
+    private final LongAdder droppedLateRecords;
+
+    private final LongAdder droppedFutureRecords;
+
+    /**
+     * Construct a repository to store the statics for a limited sliding time window.
+     *
+     * @param timeWindowLengthInSec The length of the sliding time window in second.
+     * @param counterFactory        The factory of the counters, see {@link Counter#newFactory(String, int)}.
+     * @param tiered                Whether the seconds leaving the window are rolled up into {@link TieredStatistics}.
+     * @param clock                 The time which slides the window.
+     */
+    AbstractStatisticsRepository(int timeWindowLengthInSec, Supplier<Counter> counterFactory, boolean tiered,
+            WindowClock clock) {
+        Preconditions.checkArgument(timeWindowLengthInSec > 0, "Time window length should be a positive number.");
+        this.timeWindowLengthInSec = timeWindowLengthInSec;
+        this.counterFactory = counterFactory;
+        this.tiers = tiered ? new TieredStatistics(counterFactory) : null;
+        this.clock = clock;
+        this.slotNumber = timeWindowLengthInSec + clock.getAllowedLatenessInSec();
+        this.droppedLateRecords = new LongAdder();
+        this.droppedFutureRecords = new LongAdder();
+    }
+
+    @Override
+    public AggregatedStatistics getAggregatedStatics(int timeRangeInSec) {
+        timeRangeInSec = Math.min(timeWindowLengthInSec, timeRangeInSec);
+        final long currentTime = clock.currentTime();
+        return aggregate(currentTime - timeRangeInSec + 1, currentTime + 1, currentTime);
+    }
+
+    @Override
+    public AggregatedStatistics getAggregatedStatics(long fromEpochSecond, long toEpochSecond) {
+        return aggregate(fromEpochSecond, toEpochSecond, clock.currentTime());
+    }
+
+    @Override
+    public long getDroppedLateRecords() {
+        return droppedLateRecords.sum();
+    }
+
+    @Override
+    public long getDroppedFutureRecords() {
+        return droppedFutureRecords.sum();
+    }
+
+    AggregatedStatistics aggregate(long fromEpochSecond, long toEpochSecond, long currentTime) {
+        final AggregatedStatistics aggregatedStatistics = new AggregatedStatistics(
+                (int) Math.max(0L, toEpochSecond - fromEpochSecond), counterFactory);
+        expire(currentTime);
+        final long windowStart = expireTo(currentTime) + 1;
+        for (long second = Math.min(toEpochSecond - 1, currentTime); second >= Math.max(fromEpochSecond, windowStart);
+                second--) {
+            mergeSecond(second, aggregatedStatistics);
+        }
+        if (tiers != null && fromEpochSecond < windowStart) {
+            tiers.collect(fromEpochSecond, Math.min(toEpochSecond, windowStart), aggregatedStatistics);
+        }
+        return aggregatedStatistics;
+    }
+
+    /**
+     * Retire the seconds up to {@link #expireTo(long)}, and roll them up into the tiers.
+     */
+    abstract void expire(long currentTime);
+
+    /**
+     * Move every counter the repository keeps to the ids of a new dictionary.
+     */
+    abstract void reencode(StringDictionary dictionary);
+
+    /**
+     * Replace the dictionary shared by the exact counters with one which only holds the items still live, once it has
+     * grown enough. Called by the thread expiring the window.
+     */
+    void compactDictionary() {
+        if (!(counterFactory instanceof ExactCounterFactory)) {
+            return;
+        }
+        final ExactCounterFactory factory = (ExactCounterFactory) counterFactory;
+        if (!factory.needsCompaction()) {
+            return;
+        }
+        final StringDictionary dictionary = factory.newDictionary();
+        reencode(dictionary);
+        if (tiers != null) {
+            tiers.reencode(dictionary);
+        }
+        factory.compacted();
+    }
+
+    /**
+     * Merge the statistic of one second inside the window into the aggregation, if the second has any record.
+     */
+    abstract void mergeSecond(long second, AggregatedStatistics aggregatedStatistics);
+
+    /**
+     * Return the last second which is retired when the current second is currentTime: the second before the window
+     * ending at the watermark.
+     */
+    long expireTo(long currentTime) {
+        return currentTime - clock.getAllowedLatenessInSec() - timeWindowLengthInSec;
+    }
+
+    /**
+     * Return the slot of a second, the seconds before the epoch included: in event time the window ends at second 0
+     * until the first record is observed.
+     */
+    int toIndex(long timestamp) {
+        return (int) Math.floorMod(timestamp, (long) slotNumber);
+    }
+
+    /**
+     * Return the index of the slot before the given index, wrapping around the head of the array.
+     */
+    int previousIndex(int index) {
+        // if index goes out side of the array, make the it goes to the tail of the array
+        return index == 0 ? slotNumber - 1 : index - 1;
+    }
+
+    /**
+     * Whether a record of recordTime is added when the current second is currentTime, a dropped record is counted.
+     */
+    boolean recordTimeInsideTheTimeWindow(long recordTime, long currentTime) {
+        return recordTimeInsideTheTimeWindow(recordTime, currentTime, 1);
+    }
+
+    /**
+     * Whether recordNumber records of the same second recordTime are added, the dropped records are counted.
+     */
+    boolean recordTimeInsideTheTimeWindow(long recordTime, long currentTime, int recordNumber) {
+        if (recordTime > currentTime) {
+            droppedFutureRecords.add(recordNumber);
+            return false;
+        }
+        if (recordTime <= expireTo(currentTime)) {
+            droppedLateRecords.add(recordNumber);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Whether a restored second is inside the window when the current second is currentTime, nothing is counted.
+     */
+    boolean secondInsideTheTimeWindow(long second, long currentTime) {
+        return second <= currentTime && second > expireTo(currentTime);
+    }
+
+    /**
+     * Observe the latest second of restored statistics and return the current second after it.
+     */
+    long observe(List<Statistic> statistics) {
+        long latest = Long.MIN_VALUE;
+        for (Statistic statistic : statistics) {
+            latest = Math.max(latest, statistic.getTimestamp());
+        }
+        return statistics.isEmpty() ? clock.currentTime() : clock.observe(latest);
+    }
+
+    /**
+     * Copy a statistic into new counters of this repository, the caller must keep it from being updated meanwhile.
+     */
+    Statistic copy(Statistic statistic) {
+        final Statistic copy = new Statistic(statistic.getTimestamp(), counterFactory);
+        copy.merge(statistic);
+        return copy;
+    }
+
+    /**
+     * Count a record dropped because its second was retired while it was being added.
+     */
+    void dropLateRecord() {
+        droppedLateRecords.increment();
+    }
+}
@@ -0,0 +1,84 @@
+package com.datadog.task.storage;
+
+import com.datadog.task.metrics.LatencyHistogram;
+import com.datadog.task.metrics.MetricsRegistry;
+import com.datadog.task.model.AggregatedStatistics;
+import com.datadog.task.model.LogRecord;
+import com.datadog.task.model.Statistic;
+import java.util.List;
+
+/**
+ * A repository which records the latency of the writes and the aggregations of another repository into a
+ * {@link MetricsRegistry}. The latency of a call includes the time spent waiting for the locks of the repository, so
+ * the aggregation histogram tells how long a report keeps the writers waiting. A batch is recorded as one write.
+ */
+public class InstrumentedStatisticsRepository implements StatisticsRepository {
+
+    private final StatisticsRepository statisticsRepository;
+
+    private final LatencyHistogram addLatency;
+
+    private final LatencyHistogram aggregateLatency;
+
+    public InstrumentedStatisticsRepository(StatisticsRepository statisticsRepository, MetricsRegistry metrics) {
+        this.statisticsRepository = statisticsRepository;
+        this.addLatency = metrics.histogram(MetricsRegistry.ADD_RECORD_LATENCY);
+        this.aggregateLatency = metrics.histogram(MetricsRegistry.AGGREGATE_LATENCY);
+    }
+
+    @Override
+    public void addRecord(LogRecord record) {
+        final long start = System.nanoTime();
+        statisticsRepository.addRecord(record);
+        addLatency.recordSince(start);
+    }
+
+    @Override
+    public void addRecords(List<LogRecord> records) {
+        final long start = System.nanoTime();
+        statisticsRepository.addRecords(records);
+        addLatency.recordSince(start);
+    }
+
+    @Override
+    public AggregatedStatistics getAggregatedStatics(int timeRangeInSec) {
+        final long start = System.nanoTime();
+        final AggregatedStatistics aggregatedStatistics = statisticsRepository.getAggregatedStatics(timeRangeInSec);
+        aggregateLatency.recordSince(start);
+        return aggregatedStatistics;
+    }
+
+    @Override
+    public AggregatedStatistics getAggregatedStatics(long fromEpochSecond, long toEpochSecond) {
+        final long start = System.nanoTime();
+        final AggregatedStatistics aggregatedStatistics = statisticsRepository.getAggregatedStatics(fromEpochSecond,
+                toEpochSecond);
+        aggregateLatency.recordSince(start);
+        return aggregatedStatistics;
+    }
+
+    @Override
+    public Long getTotalRequests(int timeRangeInSec) {
+        return statisticsRepository.getTotalRequests(timeRangeInSec);
+    }
+
+    @Override
+    public List<Statistic> snapshot() {
+        return statisticsRepository.snapshot();
+    }
+
+    @Override
+    public int restore(List<Statistic> statistics) {
+        return statisticsRepository.restore(statistics);
+    }
+
+    @Override
+    public long getDroppedLateRecords() {
+        return statisticsRepository.getDroppedLateRecords();
+    }
+
+    @Override
+    public long getDroppedFutureRecords() {
+        return statisticsRepository.getDroppedFutureRecords();
+    }
+}
@@ -0,0 +1,432 @@
+package com.datadog.task.storage;
+
+import com.datadog.task.model.AggregatedStatistics;
+import com.datadog.task.model.Counter;
+import com.datadog.task.model.ExactCounter;
+import com.datadog.task.model.LogRecord;
+import com.datadog.task.model.Statistic;
+import com.datadog.task.model.StringDictionary;
+import com.google.common.base.Preconditions;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.function.Supplier;
+
+/**
+ * A repository holds statistics for a sliding time window, the time granularity is second. Internally, it use an array
+ * as a ring buffer, each slot of the buffer stores statistic data of one second. All the updates are guarded by the
+ * monitor of the repository.
+ * <p>
+ * The total request number of the whole window is kept as a running sum, increased by every record and decreased when
+ * a second falls out of the window. In event time a second leaves the sum as soon as it falls out of the window, while
+ * its slot is still kept for the allowed lateness, and a late record of such a second is not added to the sum. It is
+ * published through volatile fields, so {@link #getTotalRequests(int)} for the whole window is constant time and only
+ * takes the monitor once per second to expire the oldest slot.
+ * <p>
+ * Optionally the repository also keeps the aggregated statistics of the last n seconds, e.g. the report interval, with
+ * exact counters. Every record is added to them and every second is subtracted from them when it falls out of the
+ * range, so {@link #getAggregatedStatics(int)} for that range copies one set of counters instead of merging every slot.
+ * When the number of reported items is given, only the top k items of every counter are selected under the monitor and
+ * copied.
+ */
+public class RingBufferStatisticsRepository extends AbstractStatisticsRepository {
+
+    private final Statistic[] statistics;
+
+    // the total request number of the window, written under the monitor
+    private volatile long windowTotal;
+
+    // all the seconds up to this one have been subtracted from windowTotal, written under the monitor
+    private volatile long leftWindowUpTo;
+
+    // all the seconds up to this one have been retired from the slots, written under the monitor
+    private volatile long expiredUpTo;
+
+    // the length of the range aggregated incrementally, 0 if disabled
+    private final int aggregateRangeInSec;
+
+    // the statistics of the last aggregateRangeInSec seconds, guarded by the monitor
+    private final WindowAggregate aggregate;
+
+    // the number of items of every counter copied from the aggregate, 0 to copy all of them
+    private final int topK;
+
+    /**
+     * Construct a repository to store the statics for a limited sliding time window.
+     *
+     * @param timeWindowLengthInSec The length of the sliding time window in second.
+     */
+    public RingBufferStatisticsRepository(int timeWindowLengthInSec) {
+        this(timeWindowLengthInSec, Counter.newFactory(Counter.EXACT, 0));
+    }
+
+    /**
+     * Construct a repository to store the statics for a limited sliding time window.
+     *
+     * @param timeWindowLengthInSec The length of the sliding time window in second.
+     * @param counterFactory        The factory of the counters, see {@link Counter#newFactory(String, int)}.
+     */
+    public RingBufferStatisticsRepository(int timeWindowLengthInSec, Supplier<Counter> counterFactory) {
+        this(timeWindowLengthInSec, counterFactory, 0, false);
+    }
+
+    /**
+     * Construct a repository which aggregates the statistics of the last aggregateRangeInSec seconds incrementally.
+     *
+     * @param timeWindowLengthInSec The length of the sliding time window in second.
+     * @param counterFactory        The factory of the counters, which must create {@link ExactCounter}s.
+     * @param aggregateRangeInSec   The length of the range aggregated incrementally, 0 to disable it.
+     */
+    public RingBufferStatisticsRepository(int timeWindowLengthInSec, Supplier<Counter> counterFactory,
+            int aggregateRangeInSec) {
+        this(timeWindowLengthInSec, counterFactory, aggregateRangeInSec, false);
+    }
+
+    /**
+     * Construct a repository which may aggregate the last aggregateRangeInSec seconds incrementally and may roll the
+     * seconds leaving the window up into 10 seconds, 1 minute and 1 hour tiers.
+     *
+     * @param timeWindowLengthInSec The length of the sliding time window in second.
+     * @param counterFactory        The factory of the counters.
+     * @param aggregateRangeInSec   The length of the range aggregated incrementally, 0 to disable it.
+     * @param tiered                Whether the seconds leaving the window are kept in tiers for range queries.
+     */
+    public RingBufferStatisticsRepository(int timeWindowLengthInSec, Supplier<Counter> counterFactory,
+            int aggregateRangeInSec, boolean tiered) {
+        this(timeWindowLengthInSec, counterFactory, aggregateRangeInSec, tiered, WindowClock.processingTime());
+    }
+
+    /**
+     * Construct a repository whose window is slid by the given clock, e.g. by the timestamps of the records.
+     *
+     * @param timeWindowLengthInSec The length of the sliding time window in second.
+     * @param counterFactory        The factory of the counters.
+     * @param aggregateRangeInSec   The length of the range aggregated incrementally, 0 to disable it.
+     * @param tiered                Whether the seconds leaving the window are kept in tiers for range queries.
+     * @param clock                 The time which slides the window, owned by this repository.
+     */
+    public RingBufferStatisticsRepository(int timeWindowLengthInSec, Supplier<Counter> counterFactory,
+            int aggregateRangeInSec, boolean tiered, WindowClock clock) {
+        this(timeWindowLengthInSec, counterFactory, aggregateRangeInSec, tiered, clock, 0);
+    }
+
+    /**
+     * Construct a repository whose aggregated statistics of the last aggregateRangeInSec seconds only hold the top k
+     * items of every counter.
+     *
+     * @param timeWindowLengthInSec The length of the sliding time window in second.
+     * @param counterFactory        The factory of the counters.
+     * @param aggregateRangeInSec   The length of the range aggregated incrementally, 0 to disable it.
+     * @param tiered                Whether the seconds leaving the window are kept in tiers for range queries.
+     * @param clock                 The time which slides the window, owned by this repository.
+     * @param topK                  The number of items of every counter reported for that range, 0 for all of them.
+     */
+    public RingBufferStatisticsRepository(int timeWindowLengthInSec, Supplier<Counter> counterFactory,
+            int aggregateRangeInSec, boolean tiered, WindowClock clock, int topK) {
+        super(timeWindowLengthInSec, counterFactory, tiered, clock);
+        Preconditions.checkArgument(aggregateRangeInSec >= 0 && aggregateRangeInSec <= timeWindowLengthInSec,
+                "Aggregate range should be between 0 and the time window length.");
+        Preconditions.checkArgument(topK >= 0, "Top k should not be negative.");
+        this.statistics = new Statistic[slotNumber];
+        this.windowTotal = 0L;
+        this.leftWindowUpTo = Long.MIN_VALUE;
+        this.expiredUpTo = Long.MIN_VALUE;
+        this.aggregateRangeInSec = aggregateRangeInSec;
+        this.aggregate = aggregateRangeInSec > 0 ? new WindowAggregate(counterFactory) : null;
+        this.topK = topK;
+    }
+
+    @Override
+    public synchronized void addRecord(LogRecord record) {
+        final long currentTime = clock.observe(record);
+        expire(currentTime);
+        add(record, currentTime);
+    }
+
+    @Override
+    public synchronized void addRecords(List<LogRecord> records) {
+        final long currentTime = clock.observe(records);
+        expire(currentTime);
+        for (LogRecord record : records) {
+            add(record, currentTime);
+        }
+    }
+
+    /**
+     * Add one record, the caller must hold the monitor and have expired the window up to currentTime.
+     */
+    private void add(LogRecord record, long currentTime) {
+        if (record == null || record.getTimestamp() == null) {
+            return;
+        }
+        if (!recordTimeInsideTheTimeWindow(record.getTimestamp(), currentTime)) {
+            return;
+        }
+        final int index = toIndex(record.getTimestamp());
+        if (statistics[index] == null || statistics[index].getTimestamp() != record.getTimestamp()) {
+            statistics[index] = new Statistic(record.getTimestamp(), counterFactory);
+        }
+        statistics[index].update(record);
+        if (record.getTimestamp() > leftWindowUpTo) {
+            windowTotal = windowTotal + 1;
+        }
+        if (aggregate != null && record.getTimestamp() > aggregate.expiredUpTo) {
+            aggregate.update(record);
+        }
+    }
+
+    @Override
+    public synchronized List<Statistic> snapshot() {
+        final long currentTime = clock.currentTime();
+        expire(currentTime);
+        final List<Statistic> snapshot = new ArrayList<>();
+        for (long second = currentTime; second > expireTo(currentTime); second--) {
+            final Statistic statistic = statistics[toIndex(second)];
+            if (statistic != null && statistic.getTimestamp() == second) {
+                snapshot.add(copy(statistic));
+            }
+        }
+        return snapshot;
+    }
+
+    @Override
+    public synchronized int restore(List<Statistic> restored) {
+        final long currentTime = observe(restored);
+        expire(currentTime);
+        int restoredSeconds = 0;
+        for (Statistic statistic : restored) {
+            final long second = statistic.getTimestamp();
+            if (!secondInsideTheTimeWindow(second, currentTime)) {
+                continue;
+            }
+            final int index = toIndex(second);
+            if (statistics[index] == null || statistics[index].getTimestamp() != second) {
+                statistics[index] = new Statistic(second, counterFactory);
+            }
+            statistics[index].merge(statistic);
+            if (second > leftWindowUpTo) {
+                windowTotal = windowTotal + statistic.getRequestNumber();
+            }
+            if (aggregate != null && second > aggregate.expiredUpTo) {
+                aggregate.add(statistic);
+            }
+            restoredSeconds++;
+        }
+        return restoredSeconds;
+    }
+
+    @Override
+    public synchronized AggregatedStatistics getAggregatedStatics(int timeRangeInSec) {
+        if (aggregate != null && Math.min(timeWindowLengthInSec, timeRangeInSec) == aggregateRangeInSec) {
+            expire(clock.currentTime());
+            return aggregate.copy(aggregateRangeInSec, counterFactory, topK);
+        }
+        return super.getAggregatedStatics(timeRangeInSec);
+    }
+
+    @Override
+    synchronized AggregatedStatistics aggregate(long fromEpochSecond, long toEpochSecond, long currentTime) {
+        return super.aggregate(fromEpochSecond, toEpochSecond, currentTime);
+    }
+
+    /**
+     * The caller must hold the monitor.
+     */
+    @Override
+    void mergeSecond(long second, AggregatedStatistics aggregatedStatistics) {
+        final Statistic statistic = statistics[toIndex(second)];
+        if (statistic != null && statistic.getTimestamp() == second) {
+            aggregatedStatistics.merge(statistic);
+        }
+    }
+
+    @Override
+    public Long getTotalRequests(int timeRangeInSec) {
+        final long currentTime = clock.currentTime();
+        if (timeRangeInSec >= timeWindowLengthInSec) {
+            if (expiredUpTo < expireTo(currentTime)) {
+                synchronized (this) {
+                    expire(currentTime);
+                }
+            }
+            return windowTotal;
+        }
+        return sumRequests(Math.min(timeRangeInSec, timeWindowLengthInSec), currentTime);
+    }
+
+    private synchronized long sumRequests(int timeRangeInSec, long timeStamp) {
+        int index = toIndex(timeStamp);
+        long totalRequests = 0L;
+        while (timeRangeInSec > 0) {
+            if (statistics[index] != null && statistics[index].getTimestamp() == timeStamp) {
+                totalRequests += statistics[index].getRequestNumber();
+            }
+            timeRangeInSec--;
+            index = previousIndex(index);
+            timeStamp--;
+        }
+        return totalRequests;
+    }
+
+    /**
+     * Subtract the seconds which fell out of the window from the running total and roll the seconds which are retired
+     * from the slots up into the tiers. The caller must hold the monitor.
+     */
+    @Override
+    void expire(long currentTime) {
+        final long expireTo = expireTo(currentTime);
+        final long lastExpired = expiredUpTo;
+        if (expireTo <= lastExpired) {
+            return;
+        }
+        leaveWindow(currentTime - timeWindowLengthInSec);
+        if (tiers != null) {
+            // each slot is visited at most once, a slot may still hold a second older than the visited one.
+            for (long second = Math.max(lastExpired + 1, expireTo - slotNumber + 1); second <= expireTo;
+                    second++) {
+                final Statistic statistic = statistics[toIndex(second)];
+                if (statistic != null && statistic.getTimestamp() > lastExpired
+                        && statistic.getTimestamp() <= expireTo) {
+                    tiers.seal(statistic);
+                }
+            }
+        }
+        expiredUpTo = expireTo;
+        if (aggregate != null) {
+            expireAggregate(currentTime);
+        }
+        compactDictionary();
+    }
+
+    /**
+     * Subtract the seconds up to leaveTo from the running total, they are still in their slots for the allowed
+     * lateness. The caller must hold the monitor.
+     */
+    private void leaveWindow(long leaveTo) {
+        final long lastLeft = leftWindowUpTo;
+        long total = windowTotal;
+        // as in expire(), a slot may still hold a second older than the visited one.
+        for (long second = Math.max(lastLeft + 1, leaveTo - slotNumber + 1); second <= leaveTo; second++) {
+            final Statistic statistic = statistics[toIndex(second)];
+            if (statistic != null && statistic.getTimestamp() > lastLeft && statistic.getTimestamp() <= leaveTo) {
+                total -= statistic.getRequestNumber();
+            }
+        }
+        windowTotal = total;
+        leftWindowUpTo = leaveTo;
+    }
+
+    /**
+     * The caller must hold the monitor.
+     */
+    @Override
+    void reencode(StringDictionary dictionary) {
+        for (Statistic statistic : statistics) {
+            if (statistic != null) {
+                statistic.reencode(dictionary);
+            }
+        }
+        if (aggregate != null) {
+            aggregate.sectionCounter.reencode(dictionary);
+            aggregate.clientIpCounter.reencode(dictionary);
+            aggregate.authCounter.reencode(dictionary);
+        }
+    }
+
+    /**
+     * Subtract the seconds which fell out of the aggregated range ending at currentTime. The caller must hold the
+     * monitor.
+     */
+    private void expireAggregate(long currentTime) {
+        final long expireTo = currentTime - aggregateRangeInSec;
+        final long lastExpired = aggregate.expiredUpTo;
+        if (expireTo <= lastExpired) {
+            return;
+        }
+        // as in expire(), after a jump longer than the ring a slot still holds a second older than the visited one
+        for (long second = Math.max(lastExpired + 1, expireTo - slotNumber + 1); second <= expireTo;
+                second++) {
+            final Statistic statistic = statistics[toIndex(second)];
+            if (statistic != null && statistic.getTimestamp() > lastExpired && statistic.getTimestamp() <= expireTo) {
+                aggregate.subtract(statistic);
+            }
+        }
+        aggregate.expiredUpTo = expireTo;
+    }
+
+    /**
+     * The statistics of the seconds after expiredUpTo, only holds exact counters.
+     */
+    private static final class WindowAggregate {
+
+        private final ExactCounter sectionCounter;
+
+        private final ExactCounter clientIpCounter;
+
+        private final ExactCounter authCounter;
+
+        private long requestNumber;
+
+        private long expiredUpTo;
+
+        private WindowAggregate(Supplier<Counter> counterFactory) {
+            this.sectionCounter = exactCounter(counterFactory);
+            this.clientIpCounter = exactCounter(counterFactory);
+            this.authCounter = exactCounter(counterFactory);
+            this.requestNumber = 0L;
+            this.expiredUpTo = Long.MIN_VALUE;
+        }
+
+        private static ExactCounter exactCounter(Supplier<Counter> counterFactory) {
+            final Counter counter = counterFactory.get();
+            Preconditions.checkArgument(counter instanceof ExactCounter,
+                    "Incremental aggregation needs exact counters.");
+            return (ExactCounter) counter;
+        }
+
+        private void update(LogRecord record) {
+            sectionCounter.increase(record.getSection());
+            clientIpCounter.increase(record.getClientIp());
+            authCounter.increase(record.getAuth());
+            requestNumber++;
+        }
+
+        private void add(Statistic statistic) {
+            sectionCounter.merge(statistic.getSectionCounter());
+            clientIpCounter.merge(statistic.getClientIpCounter());
+            authCounter.merge(statistic.getAuthCounter());
+            requestNumber += statistic.getRequestNumber();
+        }
+
+        private void subtract(Statistic statistic) {
+            sectionCounter.subtract((ExactCounter) statistic.getSectionCounter());
+            clientIpCounter.subtract((ExactCounter) statistic.getClientIpCounter());
+            authCounter.subtract((ExactCounter) statistic.getAuthCounter());
+            requestNumber -= statistic.getRequestNumber();
+        }
+
+        private AggregatedStatistics copy(int timeRangeInSec, Supplier<Counter> counterFactory, int topK) {
+            final AggregatedStatistics aggregatedStatistics = new AggregatedStatistics(timeRangeInSec, counterFactory);
+            aggregatedStatistics.increaseRequests(requestNumber);
+            copy(sectionCounter, aggregatedStatistics.getSectionCounter(), topK);
+            copy(clientIpCounter, aggregatedStatistics.getClientIpCounter(), topK);
+            copy(authCounter, aggregatedStatistics.getAuthCounter(), topK);
+            return aggregatedStatistics;
+        }
+
+        /**
+         * Copy the top k items of a counter, or all of them if topK is 0, into a new counter of the same factory. The
+         * top k are selected with a heap of k items, the counter is not copied as a whole.
+         */
+        private static void copy(ExactCounter from, Counter to, int topK) {
+            if (topK == 0) {
+                to.merge(from);
+                return;
+            }
+            final ExactCounter exactCounter = (ExactCounter) to;
+            for (Entry<String, Integer> entry : from.topK(topK)) {
+                exactCounter.add(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+}
@@ -1,117 +1,132 @@
 package com.datadog.task.storage;
 
 import com.datadog.task.model.AggregatedStatistics;
+import com.datadog.task.model.Counter;
 import com.datadog.task.model.LogRecord;
 import com.datadog.task.model.Statistic;
-import com.google.common.base.Preconditions;
-import java.time.Instant;
+import com.datadog.task.util.Config;
+import java.util.List;
+import java.util.function.Supplier;
 
 /**
- * A repository holds statistics for a sliding time window, the time granularity is second. Internally, it use an array
- * as a ring buffer, each slot of the buffer stores statistic data of one second.
+ * A repository holds statistics for a sliding time window, the time granularity is second.
  */
-public class StatisticsRepository {
+public interface StatisticsRepository {
 
-    private final Statistic[] statistics;
+    String RING_BUFFER = "ring";
 
-    private final int timeWindowLengthInSec;
+    String STRIPED = "striped";
 
     /**
-     * Construct a repository to store the statics for a limited sliding time window.
+     * Create the repository implementation selected by {@link Config#getRepositoryType()}.
      *
-     * @param timeWindowLengthInSec The length of the sliding time window in second.
+     * @param config the configuration.
+     * @return a new repository.
      */
-    public StatisticsRepository(int timeWindowLengthInSec) {
-        Preconditions.checkArgument(timeWindowLengthInSec > 0, "Time window length should be a positive number.");
-        this.timeWindowLengthInSec = timeWindowLengthInSec;
-        this.statistics = new Statistic[timeWindowLengthInSec];
+    static StatisticsRepository create(Config config) {
+        return create(config, WindowClock.newClock(config.getStatisticsTime(), config.getAllowedLatenessInSec()));
+    }
+
+    /**
+     * Create the repository implementation selected by {@link Config#getRepositoryType()} with the given clock.
+     *
+     * @param config the configuration.
+     * @param clock  the time which slides the window of the repository.
+     * @return a new repository.
+     */
+    static StatisticsRepository create(Config config, WindowClock clock) {
+        final String type = config.getRepositoryType();
+        final Supplier<Counter> counterFactory = Counter.newFactory(config.getCounterType(),
+                config.getCounterCapacity());
+        switch (type) {
+            case RING_BUFFER:
+                final int aggregateRange = config.isIncrementalAggregationEnabled()
+                        ? Math.min(config.getStatisticIntervalInSec(), config.getTimeWindowSizeInSec()) : 0;
+                return new RingBufferStatisticsRepository(config.getTimeWindowSizeInSec(), counterFactory,
+                        aggregateRange, config.isTieredStatisticsEnabled(), clock, config.getStatisticsTopK());
+            case STRIPED:
+                return new StripedStatisticsRepository(config.getTimeWindowSizeInSec(), counterFactory,
+                        config.isTieredStatisticsEnabled(), clock);
+            default:
+                throw new IllegalArgumentException("Unknown statistics repository " + type);
+        }
     }
 
     /**
      * Add record to the sliding window and update the statistic accordingly. If the record is older than the beginning
      * of the sliding window, the record will be ignored. If the record is newer than the current time, the record will
-     * also be ignored.
+     * also be ignored. In event time the record moves the current time forward instead, and the window is kept open
+     * for the allowed lateness, see {@link WindowClock}.
      *
      * @param record The {@link LogRecord}.
      */
-    public synchronized void addRecord(LogRecord record) {
-        if (record == null || record.getTimestamp() == null) {
-            return;
-        }
-        final long currentTime = Instant.now().getEpochSecond();
-        if (!recordTimeInsideTheTimeWindow(record.getTimestamp(), currentTime)) {
-            return;
-        }
-        final int index = toIndex(record.getTimestamp());
-        if (statistics[index] == null || statistics[index].getTimestamp() != record.getTimestamp()) {
-            statistics[index] = new Statistic(record.getTimestamp());
-        }
-        statistics[index].update(record);
-    }
+    void addRecord(LogRecord record);
+
+    /**
+     * Add a batch of records, the same as calling {@link #addRecord(LogRecord)} for each of them but the
+     * implementations take their locks once per batch instead of once per record.
+     *
+     * @param records The {@link LogRecord}s, preferably in time order.
+     */
+    void addRecords(List<LogRecord> records);
 
     /**
      * Return an {@link AggregatedStatistics} for last n seconds. If n is larger than the time window size, the time
-     * window size will be taken as n.
+     * window size will be taken as n. The counters of the report interval may only hold the reported top k items,
+     * see {@link RingBufferStatisticsRepository}.
      *
      * @param timeRangeInSec Last n seconds.
      * @return an {@link AggregatedStatistics} contains statistics for last timeRangeInSec seconds.
      */
-    public synchronized AggregatedStatistics getAggregatedStatics(int timeRangeInSec) {
-        timeRangeInSec = Math.min(timeWindowLengthInSec, timeRangeInSec);
-        long timeStamp = Instant.now().getEpochSecond();
-        int index = toIndex(timeStamp);
-        AggregatedStatistics aggregatedStatistics = new AggregatedStatistics(timeRangeInSec);
-        while (timeRangeInSec > 0) {
-            if (statistics[index] != null && statistics[index].getTimestamp() == timeStamp) {
-                final Statistic statistic = statistics[index];
-                aggregatedStatistics.increaseRequests(statistic.getRequestNumber());
-                aggregatedStatistics.getSectionCounter().merge(statistic.getSectionCounter());
-                aggregatedStatistics.getClientIpCounter().merge(statistic.getClientIpCounter());
-                aggregatedStatistics.getAuthCounter().merge(statistic.getAuthCounter());
-            }
-            timeRangeInSec--;
-            index--;
-            timeStamp--;
-            // if index goes out side of the array, make the it goes to the tail of the array
-            if (index < 0) {
-                index += timeWindowLengthInSec;
-            }
-        }
-        return aggregatedStatistics;
-    }
+    AggregatedStatistics getAggregatedStatics(int timeRangeInSec);
+
+    /**
+     * Return an {@link AggregatedStatistics} for the seconds in [fromEpochSecond, toEpochSecond). The seconds inside
+     * the time window are read from the per second slots. The older seconds are only available if the repository
+     * rolls them up into tiers (see {@link Config#isTieredStatisticsEnabled()}), with the boundaries of the range
+     * rounded to 10 seconds.
+     *
+     * @param fromEpochSecond The first second of the range.
+     * @param toEpochSecond   The second after the last one of the range.
+     * @return an {@link AggregatedStatistics} contains statistics for the range.
+     */
+    AggregatedStatistics getAggregatedStatics(long fromEpochSecond, long toEpochSecond);
 
     /**
-     * Return total request number for last n seconds. If n is larger than the time window size, the time
-     * window size will be taken as n. The performance is constant because it only collects the request number
-     * not the other statistics such as {@link com.datadog.task.model.Counter}.
+     * Return total request number for last n seconds. If n is larger than the time window size, the time window size
+     * will be taken as n. It only collects the request number, not the other statistics such as
+     * {@link com.datadog.task.model.Counter}.
+     *
      * @param timeRangeInSec Last N seconds.
-     * @return an {@link AggregatedStatistics} contains statistics for last timeRangeInSec seconds.
+     * @return the total request number for last timeRangeInSec seconds.
      */
-    public synchronized Long getTotalRequests(int timeRangeInSec) {
-        timeRangeInSec = Math.min(timeWindowLengthInSec, timeRangeInSec);
-        long timeStamp = Instant.now().getEpochSecond();
-        int index = toIndex(timeStamp);
-        long totalRequests = 0L;
-        while (timeRangeInSec > 0) {
-            if (statistics[index] != null && statistics[index].getTimestamp() == timeStamp) {
-                totalRequests += statistics[index].getRequestNumber();
-            }
-            timeRangeInSec--;
-            index--;
-            timeStamp--;
-            // if index goes out side of the array, make the it goes to the tail of the array
-            if (index < 0) {
-                index += timeWindowLengthInSec;
-            }
-        }
-        return totalRequests;
-    }
+    Long getTotalRequests(int timeRangeInSec);
 
-    private int toIndex(long timestamp) {
-        return (int) (timestamp % timeWindowLengthInSec);
-    }
+    /**
+     * Return a copy of the statistic of every second inside the window which has any record, e.g. to save the window
+     * before a restart. The seconds already rolled up into tiers are not included.
+     *
+     * @return the statistics, from the latest second.
+     */
+    List<Statistic> snapshot();
 
-    private boolean recordTimeInsideTheTimeWindow(long recordTime, long currentTime) {
-        return recordTime <= currentTime && recordTime > currentTime - timeWindowLengthInSec;
-    }
-}
\ No newline at end of file
+    /**
+     * Merge the statistics of a {@link #snapshot()} into the window. The seconds outside the window at the current
+     * time are discarded without being counted as dropped records. In event time the latest second restored moves
+     * the current time forward like a record.
+     *
+     * @param statistics the statistics of some seconds, each second at most once.
+     * @return the number of seconds restored.
+     */
+    int restore(List<Statistic> statistics);
+
+    /**
+     * Return the number of records ignored because they were older than the sliding window.
+     */
+    long getDroppedLateRecords();
+
+    /**
+     * Return the number of records ignored because they were newer than the current time, always 0 in event time.
+     */
+    long getDroppedFutureRecords();
+}
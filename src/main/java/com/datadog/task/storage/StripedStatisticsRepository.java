@@ -0,0 +1,372 @@
+package com.datadog.task.storage;
+
+import com.datadog.task.model.AggregatedStatistics;
+import com.datadog.task.model.Counter;
+import com.datadog.task.model.LogRecord;
+import com.datadog.task.model.Statistic;
+import com.datadog.task.model.StringDictionary;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * A ring buffer repository where every per-second slot has its own lock instead of one monitor for the whole
+ * repository. Writers only contend when they write the same second, a reader merges one slot at a time so it never
+ * holds more than one slot lock and never blocks writers of the other seconds. The request number of every slot is
+ * published through volatile fields, so {@link #getTotalRequests(int)} does not take any lock.
+ * <p>
+ * The total request number of the whole window is kept in a {@link LongAdder}, increased by every record and decreased
+ * once for every second which falls out of the window. A second is retired exactly once, under its slot lock, either
+ * by the thread expiring the window or by the writer which reuses the slot for a newer second. In event time a second
+ * leaves the window total as soon as it falls out of the window, before it is retired after the allowed lateness, and
+ * a late record of such a second is not added to the total.
+ */
+public class StripedStatisticsRepository extends AbstractStatisticsRepository {
+
+    private final Slot[] slots;
+
+    private final LongAdder windowTotal;
+
+    private final Object expireLock;
+
+    // all the seconds up to this one have been taken out of the window total, written under expireLock
+    private volatile long leftWindowUpTo;
+
+    // all the seconds up to this one have been retired, written under expireLock
+    private volatile long expiredUpTo;
+
+    /**
+     * Construct a repository to store the statics for a limited sliding time window.
+     *
+     * @param timeWindowLengthInSec The length of the sliding time window in second.
+     */
+    public StripedStatisticsRepository(int timeWindowLengthInSec) {
+        this(timeWindowLengthInSec, Counter.newFactory(Counter.EXACT, 0));
+    }
+
+    /**
+     * Construct a repository to store the statics for a limited sliding time window.
+     *
+     * @param timeWindowLengthInSec The length of the sliding time window in second.
+     * @param counterFactory        The factory of the counters, see {@link Counter#newFactory(String, int)}.
+     */
+    public StripedStatisticsRepository(int timeWindowLengthInSec, Supplier<Counter> counterFactory) {
+        this(timeWindowLengthInSec, counterFactory, false);
+    }
+
+    /**
+     * Construct a repository which may roll the seconds leaving the window up into 10 seconds, 1 minute and 1 hour
+     * tiers.
+     *
+     * @param timeWindowLengthInSec The length of the sliding time window in second.
+     * @param counterFactory        The factory of the counters, see {@link Counter#newFactory(String, int)}.
+     * @param tiered                Whether the seconds leaving the window are kept in tiers for range queries.
+     */
+    public StripedStatisticsRepository(int timeWindowLengthInSec, Supplier<Counter> counterFactory, boolean tiered) {
+        this(timeWindowLengthInSec, counterFactory, tiered, WindowClock.processingTime());
+    }
+
+    /**
+     * Construct a repository whose window is slid by the given clock, e.g. by the timestamps of the records.
+     *
+     * @param timeWindowLengthInSec The length of the sliding time window in second.
+     * @param counterFactory        The factory of the counters, see {@link Counter#newFactory(String, int)}.
+     * @param tiered                Whether the seconds leaving the window are kept in tiers for range queries.
+     * @param clock                 The time which slides the window, owned by this repository.
+     */
+    public StripedStatisticsRepository(int timeWindowLengthInSec, Supplier<Counter> counterFactory, boolean tiered,
+            WindowClock clock) {
+        super(timeWindowLengthInSec, counterFactory, tiered, clock);
+        this.slots = new Slot[slotNumber];
+        for (int i = 0; i < slotNumber; i++) {
+            slots[i] = new Slot();
+        }
+        this.windowTotal = new LongAdder();
+        this.expireLock = new Object();
+        this.leftWindowUpTo = Long.MIN_VALUE;
+        this.expiredUpTo = Long.MIN_VALUE;
+    }
+
+    @Override
+    public void addRecord(LogRecord record) {
+        if (record == null || record.getTimestamp() == null) {
+            return;
+        }
+        final long timestamp = record.getTimestamp();
+        if (!recordTimeInsideTheTimeWindow(timestamp, clock.observe(record))) {
+            return;
+        }
+        final Slot slot = slots[toIndex(timestamp)];
+        synchronized (slot) {
+            add(slot, record, timestamp);
+        }
+    }
+
+    @Override
+    public void addRecords(List<LogRecord> records) {
+        final long currentTime = clock.observe(records);
+        int start = 0;
+        while (start < records.size()) {
+            final LogRecord first = records.get(start);
+            if (first == null || first.getTimestamp() == null) {
+                start++;
+                continue;
+            }
+            // the records of a batch are mostly in time order, add each run of the same second under one lock.
+            final long timestamp = first.getTimestamp();
+            int end = start + 1;
+            while (end < records.size() && sameSecond(records.get(end), timestamp)) {
+                end++;
+            }
+            if (!recordTimeInsideTheTimeWindow(timestamp, currentTime, end - start)) {
+                start = end;
+                continue;
+            }
+            final Slot slot = slots[toIndex(timestamp)];
+            synchronized (slot) {
+                for (int i = start; i < end; i++) {
+                    add(slot, records.get(i), timestamp);
+                }
+            }
+            start = end;
+        }
+    }
+
+    private static boolean sameSecond(LogRecord record, long timestamp) {
+        return record != null && record.getTimestamp() != null && record.getTimestamp() == timestamp;
+    }
+
+    /**
+     * Add one record of the given second to its slot, the caller must hold the slot lock.
+     */
+    private void add(Slot slot, LogRecord record, long timestamp) {
+        if (timestamp <= expiredUpTo) {
+            // the second fell out of the window while this record was waiting for the lock, and its slot may not have
+            // been retired if it held another second.
+            dropLateRecord();
+            return;
+        }
+        if (slot.timestamp != timestamp) {
+            // the slot still holds an older second, or a newer one if this record waited too long for the lock.
+            if (slot.timestamp > timestamp) {
+                dropLateRecord();
+                return;
+            }
+            retire(slot);
+            slot.reset(timestamp, counterFactory, timestamp > leftWindowUpTo);
+        } else if (slot.retired) {
+            // the second fell out of the window while this record was waiting for the lock.
+            dropLateRecord();
+            return;
+        }
+        slot.statistic.update(record);
+        slot.requestNumber = slot.statistic.getRequestNumber();
+        if (slot.inWindow) {
+            windowTotal.increment();
+        }
+    }
+
+    @Override
+    public List<Statistic> snapshot() {
+        final long currentTime = clock.currentTime();
+        expire(currentTime);
+        final List<Statistic> snapshot = new ArrayList<>();
+        for (long second = currentTime; second > expireTo(currentTime); second--) {
+            final Slot slot = slots[toIndex(second)];
+            synchronized (slot) {
+                if (slot.timestamp == second && !slot.retired) {
+                    snapshot.add(copy(slot.statistic));
+                }
+            }
+        }
+        return snapshot;
+    }
+
+    @Override
+    public int restore(List<Statistic> restored) {
+        final long currentTime = observe(restored);
+        expire(currentTime);
+        int restoredSeconds = 0;
+        for (Statistic statistic : restored) {
+            final long second = statistic.getTimestamp();
+            if (!secondInsideTheTimeWindow(second, currentTime)) {
+                continue;
+            }
+            final Slot slot = slots[toIndex(second)];
+            synchronized (slot) {
+                if (second <= expiredUpTo) {
+                    continue;
+                }
+                if (slot.timestamp != second) {
+                    if (slot.timestamp > second) {
+                        continue;
+                    }
+                    retire(slot);
+                    slot.reset(second, counterFactory, second > leftWindowUpTo);
+                } else if (slot.retired) {
+                    continue;
+                }
+                slot.statistic.merge(statistic);
+                slot.requestNumber = slot.statistic.getRequestNumber();
+                if (slot.inWindow) {
+                    windowTotal.add(statistic.getRequestNumber());
+                }
+            }
+            restoredSeconds++;
+        }
+        return restoredSeconds;
+    }
+
+    @Override
+    void mergeSecond(long second, AggregatedStatistics aggregatedStatistics) {
+        final Slot slot = slots[toIndex(second)];
+        synchronized (slot) {
+            if (slot.timestamp == second) {
+                aggregatedStatistics.merge(slot.statistic);
+            }
+        }
+    }
+
+    @Override
+    public Long getTotalRequests(int timeRangeInSec) {
+        long timeStamp = clock.currentTime();
+        if (timeRangeInSec >= timeWindowLengthInSec) {
+            expire(timeStamp);
+            return windowTotal.sum();
+        }
+        timeRangeInSec = Math.min(timeRangeInSec, timeWindowLengthInSec);
+        int index = toIndex(timeStamp);
+        long totalRequests = 0L;
+        while (timeRangeInSec > 0) {
+            totalRequests += slots[index].requestNumber(timeStamp);
+            timeRangeInSec--;
+            index = previousIndex(index);
+            timeStamp--;
+        }
+        return totalRequests;
+    }
+
+    @Override
+    void expire(long currentTime) {
+        final long expireTo = expireTo(currentTime);
+        if (expiredUpTo >= expireTo) {
+            return;
+        }
+        synchronized (expireLock) {
+            final long lastExpired = expiredUpTo;
+            if (expireTo <= lastExpired) {
+                return;
+            }
+            leaveWindow(currentTime - timeWindowLengthInSec);
+            for (long second = Math.max(lastExpired + 1, expireTo - slotNumber + 1); second <= expireTo;
+                    second++) {
+                final Slot slot = slots[toIndex(second)];
+                synchronized (slot) {
+                    if (slot.timestamp <= expireTo) {
+                        retire(slot);
+                    }
+                }
+            }
+            expiredUpTo = expireTo;
+            compactDictionary();
+        }
+    }
+
+    /**
+     * Take the seconds up to leaveTo out of the window total, they stay in their slots for the allowed lateness. The
+     * bound is published before the slots are visited, so a writer which resets a slot afterwards does not add the
+     * second to the total. The caller must hold the expire lock.
+     */
+    private void leaveWindow(long leaveTo) {
+        final long lastLeft = leftWindowUpTo;
+        leftWindowUpTo = leaveTo;
+        for (long second = Math.max(lastLeft + 1, leaveTo - slotNumber + 1); second <= leaveTo; second++) {
+            final Slot slot = slots[toIndex(second)];
+            synchronized (slot) {
+                if (slot.timestamp <= leaveTo) {
+                    leave(slot);
+                }
+            }
+        }
+    }
+
+    /**
+     * Re-encode one slot at a time under its lock, the writers of the other slots keep going meanwhile. The caller
+     * must hold the expire lock.
+     */
+    @Override
+    void reencode(StringDictionary dictionary) {
+        for (Slot slot : slots) {
+            synchronized (slot) {
+                if (slot.statistic != null) {
+                    slot.statistic.reencode(dictionary);
+                }
+            }
+        }
+    }
+
+    /**
+     * Subtract the slot from the window total if it has not been done yet. The caller must hold the slot lock.
+     */
+    private void leave(Slot slot) {
+        if (slot.inWindow) {
+            windowTotal.add(-slot.requestNumber);
+            slot.inWindow = false;
+        }
+    }
+
+    /**
+     * Subtract the slot from the window total and roll it up into the tiers if it has not been done yet. The caller
+     * must hold the slot lock.
+     */
+    private void retire(Slot slot) {
+        if (!slot.retired) {
+            leave(slot);
+            if (tiers != null) {
+                tiers.seal(slot.statistic);
+            }
+            slot.retired = true;
+        }
+    }
+
+    private static final class Slot {
+
+        private static final long RESETTING = Long.MIN_VALUE;
+
+        // written under the slot lock, read without it
+        private volatile long timestamp = RESETTING;
+
+        private volatile long requestNumber;
+
+        // guarded by the slot lock
+        private Statistic statistic;
+
+        // whether the request number has been subtracted from the window total, guarded by the slot lock
+        private boolean retired = true;
+
+        // whether the request number is counted in the window total, guarded by the slot lock
+        private boolean inWindow = false;
+
+        private void reset(long newTimestamp, Supplier<Counter> counterFactory, boolean newInWindow) {
+            timestamp = RESETTING;
+            requestNumber = 0L;
+            statistic = new Statistic(newTimestamp, counterFactory);
+            retired = false;
+            inWindow = newInWindow;
+            timestamp = newTimestamp;
+        }
+
+        /**
+         * Read the request number without the lock, the timestamp is read before and after the count so a slot being
+         * reset for another second in between is never counted.
+         */
+        private long requestNumber(long expectedTimestamp) {
+            if (timestamp != expectedTimestamp) {
+                return 0L;
+            }
+            final long count = requestNumber;
+            return timestamp == expectedTimestamp ? count : 0L;
+        }
+    }
+}
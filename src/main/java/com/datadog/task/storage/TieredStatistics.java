@@ -0,0 +1,118 @@
+package com.datadog.task.storage;
+
+import com.datadog.task.model.AggregatedStatistics;
+import com.datadog.task.model.Counter;
+import com.datadog.task.model.Statistic;
+import com.datadog.task.model.StringDictionary;
+import java.util.function.Supplier;
+
+/**
+ * Statistics of the seconds which fell out of the time window, rolled up into coarser buckets: 10 seconds for the last
+ * hour, 1 minute for the last day and 1 hour for the last week. A repository seals every second into all the tiers when
+ * it leaves the window, a range query then merges the largest aligned buckets which fit into the range, so even a week
+ * long range only merges a few dozen buckets. The boundaries of a range are rounded outwards to 10 seconds.
+ * <p>
+ * Every tier is a ring buffer of buckets like the per-second slots of the repositories. This class is thread safe.
+ */
+final class TieredStatistics {
+
+    // from the coarsest to the finest tier
+    private static final int[] BUCKET_LENGTHS_IN_SEC = {3600, 60, 10};
+
+    private static final int[] BUCKET_NUMBERS = {168, 1440, 360};
+
+    private final Supplier<Counter> counterFactory;
+
+    private final Tier[] tiers;
+
+    TieredStatistics(Supplier<Counter> counterFactory) {
+        this.counterFactory = counterFactory;
+        this.tiers = new Tier[BUCKET_LENGTHS_IN_SEC.length];
+        for (int i = 0; i < tiers.length; i++) {
+            tiers[i] = new Tier(BUCKET_LENGTHS_IN_SEC[i], BUCKET_NUMBERS[i]);
+        }
+    }
+
+    /**
+     * Roll the statistic of one second up into every tier.
+     */
+    synchronized void seal(Statistic statistic) {
+        for (Tier tier : tiers) {
+            tier.add(statistic);
+        }
+    }
+
+    /**
+     * Move the counters of every bucket to the ids of a new dictionary.
+     */
+    synchronized void reencode(StringDictionary dictionary) {
+        for (Tier tier : tiers) {
+            for (Statistic bucket : tier.buckets) {
+                if (bucket != null) {
+                    bucket.reencode(dictionary);
+                }
+            }
+        }
+    }
+
+    /**
+     * Merge the buckets covering the seconds in [fromEpochSecond, toEpochSecond) into the aggregation.
+     */
+    synchronized void collect(long fromEpochSecond, long toEpochSecond, AggregatedStatistics aggregatedStatistics) {
+        final Tier finest = tiers[tiers.length - 1];
+        long second = finest.bucketStart(fromEpochSecond);
+        while (second < toEpochSecond) {
+            Tier tier = finest;
+            for (Tier candidate : tiers) {
+                if (candidate.bucketStart(second) == second && second + candidate.length <= toEpochSecond
+                        && candidate.get(second) != null) {
+                    tier = candidate;
+                    break;
+                }
+            }
+            final Statistic bucket = tier.get(second);
+            if (bucket != null) {
+                aggregatedStatistics.merge(bucket);
+            }
+            second += tier.length;
+        }
+    }
+
+    private final class Tier {
+
+        private final int length;
+
+        private final Statistic[] buckets;
+
+        private Tier(int length, int bucketNumber) {
+            this.length = length;
+            this.buckets = new Statistic[bucketNumber];
+        }
+
+        private long bucketStart(long second) {
+            return Math.floorDiv(second, length) * length;
+        }
+
+        private int toIndex(long bucketStart) {
+            return (int) Math.floorMod(bucketStart / length, (long) buckets.length);
+        }
+
+        private void add(Statistic statistic) {
+            final long start = bucketStart(statistic.getTimestamp());
+            final int index = toIndex(start);
+            final Statistic bucket = buckets[index];
+            if (bucket == null || bucket.getTimestamp() < start) {
+                buckets[index] = new Statistic(start, counterFactory);
+            } else if (bucket.getTimestamp() > start) {
+                // the bucket already holds a newer range, the second is older than the retention of the tier
+                return;
+            }
+            buckets[index].merge(statistic);
+        }
+
+        private Statistic get(long bucketStart) {
+            final Statistic bucket = buckets[toIndex(bucketStart)];
+            return bucket != null && bucket.getTimestamp() == bucketStart ? bucket : null;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.datadog.task.storage;
+
+import com.datadog.task.model.LogRecord;
+import com.google.common.base.Preconditions;
+import java.time.Clock;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The time which slides the window of a repository.
+ * <p>
+ * In processing time the current second is read from a {@link Clock}, the wall clock or a simulated one, a record
+ * newer than the current second or older than the window is dropped. In event time the current second is the max
+ * timestamp of the records observed so far, so a log replayed at full speed slides the window as it did when the log
+ * was written. A record may arrive up to the allowed lateness behind the max timestamp: a second only leaves the
+ * window once the watermark, the max timestamp minus the allowed lateness, has passed it, and only the records older
+ * than that are dropped.
+ * <p>
+ * An event time clock keeps the max timestamp of one repository, it must not be shared. This class is thread safe.
+ */
+public abstract class WindowClock {
+
+    public static final String PROCESSING_TIME = "processing";
+
+    public static final String EVENT_TIME = "event";
+
+    /**
+     * Create the clock of one repository.
+     *
+     * @param timeType             {@link #PROCESSING_TIME} or {@link #EVENT_TIME}.
+     * @param allowedLatenessInSec how late a record may arrive in event time, ignored in processing time.
+     * @return a new clock.
+     */
+    public static WindowClock newClock(String timeType, int allowedLatenessInSec) {
+        return newClock(timeType, allowedLatenessInSec, Clock.systemUTC());
+    }
+
+    /**
+     * Create the clock of one repository.
+     *
+     * @param timeType             {@link #PROCESSING_TIME} or {@link #EVENT_TIME}.
+     * @param allowedLatenessInSec how late a record may arrive in event time, ignored in processing time.
+     * @param clock                the clock of the processing time, ignored in event time.
+     * @return a new clock.
+     */
+    public static WindowClock newClock(String timeType, int allowedLatenessInSec, Clock clock) {
+        switch (timeType) {
+            case PROCESSING_TIME:
+                return processingTime(clock);
+            case EVENT_TIME:
+                return eventTime(allowedLatenessInSec);
+            default:
+                throw new IllegalArgumentException("Unknown statistics time " + timeType);
+        }
+    }
+
+    public static WindowClock processingTime() {
+        return processingTime(Clock.systemUTC());
+    }
+
+    public static WindowClock processingTime(Clock clock) {
+        return new ProcessingTime(clock);
+    }
+
+    public static WindowClock eventTime(int allowedLatenessInSec) {
+        Preconditions.checkArgument(allowedLatenessInSec >= 0, "Allowed lateness should not be negative.");
+        return new EventTime(allowedLatenessInSec);
+    }
+
+    /**
+     * Return the current second, the last second of a "last n seconds" query.
+     */
+    abstract long currentTime();
+
+    /**
+     * Observe the timestamp of an incoming record and return the current second after it, a record without timestamp
+     * does not move the clock.
+     */
+    abstract long observe(LogRecord record);
+
+    /**
+     * Observe the timestamps of a batch of records and return the current second after them.
+     */
+    abstract long observe(List<LogRecord> records);
+
+    /**
+     * Observe a second restored from a snapshot and return the current second after it.
+     */
+    abstract long observe(long timestamp);
+
+    /**
+     * Return how many seconds the window is kept open behind the current second for the late records, 0 in
+     * processing time.
+     */
+    abstract int getAllowedLatenessInSec();
+
+    private static final class ProcessingTime extends WindowClock {
+
+        private final Clock clock;
+
+        private ProcessingTime(Clock clock) {
+            this.clock = clock;
+        }
+
+        @Override
+        long currentTime() {
+            // millis() does not create an Instant for every record
+            return Math.floorDiv(clock.millis(), 1000L);
+        }
+
+        @Override
+        long observe(LogRecord record) {
+            return currentTime();
+        }
+
+        @Override
+        long observe(List<LogRecord> records) {
+            return currentTime();
+        }
+
+        @Override
+        long observe(long timestamp) {
+            return currentTime();
+        }
+
+        @Override
+        int getAllowedLatenessInSec() {
+            return 0;
+        }
+    }
+
+    private static final class EventTime extends WindowClock {
+
+        private final int allowedLatenessInSec;
+
+        // the max timestamp observed, 0 before the first record
+        private final AtomicLong maxTimestamp;
+
+        private EventTime(int allowedLatenessInSec) {
+            this.allowedLatenessInSec = allowedLatenessInSec;
+            this.maxTimestamp = new AtomicLong(0L);
+        }
+
+        @Override
+        long currentTime() {
+            return maxTimestamp.get();
+        }
+
+        @Override
+        long observe(LogRecord record) {
+            if (record == null || record.getTimestamp() == null) {
+                return maxTimestamp.get();
+            }
+            return advanceTo(record.getTimestamp());
+        }
+
+        @Override
+        long observe(List<LogRecord> records) {
+            long max = Long.MIN_VALUE;
+            for (LogRecord record : records) {
+                if (record != null && record.getTimestamp() != null) {
+                    max = Math.max(max, record.getTimestamp());
+                }
+            }
+            return advanceTo(max);
+        }
+
+        @Override
+        long observe(long timestamp) {
+            return advanceTo(timestamp);
+        }
+
+        private long advanceTo(long timestamp) {
+            long current = maxTimestamp.get();
+            while (timestamp > current && !maxTimestamp.compareAndSet(current, timestamp)) {
+                current = maxTimestamp.get();
+            }
+            return Math.max(current, timestamp);
+        }
+
+        @Override
+        int getAllowedLatenessInSec() {
+            return allowedLatenessInSec;
+        }
+    }
+}
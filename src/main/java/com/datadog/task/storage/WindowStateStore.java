@@ -0,0 +1,190 @@
+package com.datadog.task.storage;
+
+import com.datadog.task.model.Counter;
+import com.datadog.task.model.ExactCounter;
+import com.datadog.task.model.Statistic;
+import com.datadog.task.model.StringDictionary;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Save the window of a {@link StatisticsRepository} to a compact binary file and restore it, so a restarted monitor
+ * reports the top k and alerts on the window of the previous run at once instead of after a full window.
+ * <p>
+ * The file starts with a magic number and a version, then every item counted (sections, client IPs, auths) once in a
+ * string table, then for every second its timestamp, its request number and its three counters as pairs of string id
+ * and count. It is written to a temporary file which is synced and moved over the previous snapshot, so a crash leaves
+ * either the previous or the new snapshot. The error bounds of approximate counters are not saved.
+ */
+public class WindowStateStore {
+
+    private static final int MAGIC = 0x574e4453;
+
+    private static final int VERSION = 1;
+
+    private static final int BUFFER_SIZE = 64 << 10;
+
+    private final Path path;
+
+    private final Path temporaryPath;
+
+    public WindowStateStore(Path path) {
+        this.path = path.toAbsolutePath();
+        this.temporaryPath = this.path.resolveSibling(this.path.getFileName() + ".tmp");
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * Replace the snapshot with the current window of the repository.
+     *
+     * @param statisticsRepository the repository.
+     * @return the number of seconds saved.
+     * @throws IOException if the snapshot cannot be written.
+     */
+    public int save(StatisticsRepository statisticsRepository) throws IOException {
+        return save(statisticsRepository.snapshot());
+    }
+
+    /**
+     * Replace the snapshot with a window captured by {@link StatisticsRepository#snapshot()}.
+     *
+     * @param statistics the seconds of the window.
+     * @return the number of seconds saved.
+     * @throws IOException if the snapshot cannot be written.
+     */
+    public int save(List<Statistic> statistics) throws IOException {
+        try (FileChannel channel = FileChannel.open(temporaryPath, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            final OutputStream outputStream = new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE);
+            write(statistics, outputStream);
+            outputStream.flush();
+            channel.force(true);
+        }
+        try {
+            Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return statistics.size();
+    }
+
+    /**
+     * Restore the saved window into the repository, the seconds which already left the window are discarded.
+     *
+     * @param statisticsRepository the repository, usually empty.
+     * @return the number of seconds restored, 0 if there is no snapshot.
+     * @throws IOException if the snapshot cannot be read or is not a window snapshot.
+     */
+    public int restore(StatisticsRepository statisticsRepository) throws IOException {
+        final List<Statistic> statistics;
+        try (InputStream inputStream = new BufferedInputStream(Files.newInputStream(path), BUFFER_SIZE)) {
+            statistics = read(inputStream);
+        } catch (NoSuchFileException e) {
+            return 0;
+        }
+        return statisticsRepository.restore(statistics);
+    }
+
+    static void write(List<Statistic> statistics, OutputStream outputStream) throws IOException {
+        final DataOutputStream output = new DataOutputStream(outputStream);
+        final Map<String, Integer> ids = new HashMap<>();
+        final List<String> items = new ArrayList<>();
+        for (Statistic statistic : statistics) {
+            for (Counter counter : counters(statistic)) {
+                for (String item : counter.getAllItemCounts().keySet()) {
+                    if (ids.putIfAbsent(item, items.size()) == null) {
+                        items.add(item);
+                    }
+                }
+            }
+        }
+        output.writeInt(MAGIC);
+        output.writeInt(VERSION);
+        output.writeInt(items.size());
+        for (String item : items) {
+            output.writeUTF(item);
+        }
+        output.writeInt(statistics.size());
+        for (Statistic statistic : statistics) {
+            output.writeLong(statistic.getTimestamp());
+            output.writeLong(statistic.getRequestNumber());
+            for (Counter counter : counters(statistic)) {
+                final Map<String, Integer> itemCounts = counter.getAllItemCounts();
+                output.writeInt(itemCounts.size());
+                for (Map.Entry<String, Integer> itemCount : itemCounts.entrySet()) {
+                    output.writeInt(ids.get(itemCount.getKey()));
+                    output.writeInt(itemCount.getValue());
+                }
+            }
+        }
+        output.flush();
+    }
+
+    static List<Statistic> read(InputStream inputStream) throws IOException {
+        final DataInputStream input = new DataInputStream(inputStream);
+        if (input.readInt() != MAGIC) {
+            throw new IOException("Not a window snapshot");
+        }
+        final int version = input.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported window snapshot version " + version);
+        }
+        final String[] items = new String[input.readInt()];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = input.readUTF();
+        }
+        // the counters of the snapshot share one dictionary, they are merged into the counters of the repository
+        final StringDictionary dictionary = new StringDictionary();
+        final int statisticNumber = input.readInt();
+        final List<Statistic> statistics = new ArrayList<>(statisticNumber);
+        for (int i = 0; i < statisticNumber; i++) {
+            final long timestamp = input.readLong();
+            final long requestNumber = input.readLong();
+            final ExactCounter sectionCounter = readCounter(input, items, dictionary);
+            final ExactCounter clientIpCounter = readCounter(input, items, dictionary);
+            final ExactCounter authCounter = readCounter(input, items, dictionary);
+            statistics.add(new Statistic(timestamp, requestNumber, sectionCounter, clientIpCounter, authCounter));
+        }
+        return Collections.unmodifiableList(statistics);
+    }
+
+    private static ExactCounter readCounter(DataInputStream input, String[] items, StringDictionary dictionary)
+            throws IOException {
+        final ExactCounter counter = new ExactCounter(dictionary);
+        final int size = input.readInt();
+        for (int i = 0; i < size; i++) {
+            final int id = input.readInt();
+            if (id < 0 || id >= items.length) {
+                throw new IOException("Invalid item id " + id + " in the window snapshot");
+            }
+            counter.add(items[id], input.readInt());
+        }
+        return counter;
+    }
+
+    private static Counter[] counters(Statistic statistic) {
+        return new Counter[]{statistic.getSectionCounter(), statistic.getClientIpCounter(),
+                statistic.getAuthCounter()};
+    }
+}
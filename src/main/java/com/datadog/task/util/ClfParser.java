@@ -0,0 +1,270 @@
+package com.datadog.task.util;
+
+import com.datadog.task.model.LogRecord;
+import com.datadog.task.model.LogRecord.LogRecordBuilder;
+
+/**
+ * A single pass, index based parser for the Common Log Format:
+ * <pre>
+ * 127.0.0.1 - james [09/May/2018:16:00:39 +0000] "GET /report HTTP/1.0" 200 123
+ * </pre>
+ * It walks the line once and only creates the substrings that end up in the {@link LogRecord}. Anything after the
+ * bytes field (e.g. the referer and user agent of the combined format) is ignored. Lines which do not strictly follow
+ * the format are rejected, the caller is expected to fall back to a more lenient parser for them.
+ * <p>
+ * The same grammar is also parsed from a range of bytes, the values of the record are then interned through bounded
+ * {@link SymbolTable}s, so a line whose client IP, auth, request and timestamp have been seen recently does not
+ * allocate anything but the record itself.
+ */
+final class ClfParser {
+
+    private static final SymbolTable CLIENT_IPS = new SymbolTable(4096);
+
+    private static final SymbolTable AUTHS = new SymbolTable(1024);
+
+    private static final SymbolTable REQUESTS = new SymbolTable(8192);
+
+    private static final SymbolTable SECTIONS = new SymbolTable(1024);
+
+    private static final byte[] HTTP_VERSION_PREFIX = {' ', 'H', 'T', 'T', 'P', '/'};
+
+    private ClfParser() {
+
+    }
+
+    /**
+     * Parse one line of CLF access log.
+     *
+     * @param line the log line.
+     * @return the parsed {@link LogRecord}, or null if the line is not a conforming CLF line.
+     */
+    static LogRecord parse(String line) {
+        final int length = line.length();
+        // clientip ident auth
+        final int clientIpEnd = line.indexOf(' ');
+        if (clientIpEnd <= 0) {
+            return null;
+        }
+        final int identEnd = line.indexOf(' ', clientIpEnd + 1);
+        if (identEnd <= clientIpEnd + 1) {
+            return null;
+        }
+        final int authEnd = line.indexOf(' ', identEnd + 1);
+        if (authEnd <= identEnd + 1) {
+            return null;
+        }
+        // [timestamp]
+        final int timestampStart = authEnd + 2;
+        if (timestampStart >= length || line.charAt(authEnd + 1) != '[') {
+            return null;
+        }
+        final int timestampEnd = line.indexOf(']', timestampStart);
+        if (timestampEnd < 0) {
+            return null;
+        }
+        // "verb request HTTP/version"
+        final int requestLineStart = timestampEnd + 3;
+        if (requestLineStart >= length || line.charAt(timestampEnd + 1) != ' '
+                || line.charAt(timestampEnd + 2) != '"') {
+            return null;
+        }
+        final int requestLineEnd = line.indexOf('"', requestLineStart);
+        if (requestLineEnd < 0) {
+            return null;
+        }
+        final int verbEnd = line.indexOf(' ', requestLineStart);
+        if (verbEnd <= requestLineStart || verbEnd >= requestLineEnd || !isWord(line, requestLineStart, verbEnd)) {
+            return null;
+        }
+        final int requestStart = verbEnd + 1;
+        int requestEnd = line.indexOf(' ', requestStart);
+        if (requestEnd < 0 || requestEnd > requestLineEnd) {
+            requestEnd = requestLineEnd;
+        } else if (!line.startsWith(" HTTP/", requestEnd)) {
+            return null;
+        }
+        if (requestEnd == requestStart) {
+            return null;
+        }
+        // response bytes
+        final int responseStart = requestLineEnd + 2;
+        if (responseStart >= length || line.charAt(requestLineEnd + 1) != ' ') {
+            return null;
+        }
+        final int responseEnd = skipDigits(line, responseStart);
+        if (responseEnd == responseStart || responseEnd >= length || line.charAt(responseEnd) != ' ') {
+            return null;
+        }
+        final int bytesStart = responseEnd + 1;
+        final int bytesEnd = bytesStart < length && line.charAt(bytesStart) == '-' ? bytesStart + 1
+                : skipDigits(line, bytesStart);
+        if (bytesEnd == bytesStart || (bytesEnd < length && line.charAt(bytesEnd) != ' ')) {
+            return null;
+        }
+
+        final String request = line.substring(requestStart, requestEnd);
+        return LogRecordBuilder.aLogRecord()
+                .withClientIp(line.substring(0, clientIpEnd))
+                .withAuth(line.substring(identEnd + 1, authEnd))
+                .withRequest(request)
+                .withSection(LogParser.parseSection(request))
+                .withTimestamp(LogParser.parseTimeStamp(line.substring(timestampStart, timestampEnd)))
+                .build();
+    }
+
+    /**
+     * Parse one line of CLF access log held in the bytes in the range [from, to).
+     *
+     * @param line the buffer holds the log line.
+     * @param from the index of the first byte of the line.
+     * @param to   the index after the last byte of the line.
+     * @return the parsed {@link LogRecord}, or null if the line is not a conforming CLF line.
+     */
+    static LogRecord parse(byte[] line, int from, int to) {
+        // clientip ident auth
+        final int clientIpEnd = indexOf(line, ' ', from, to);
+        if (clientIpEnd <= from) {
+            return null;
+        }
+        final int identEnd = indexOf(line, ' ', clientIpEnd + 1, to);
+        if (identEnd <= clientIpEnd + 1) {
+            return null;
+        }
+        final int authEnd = indexOf(line, ' ', identEnd + 1, to);
+        if (authEnd <= identEnd + 1) {
+            return null;
+        }
+        // [timestamp]
+        final int timestampStart = authEnd + 2;
+        if (timestampStart >= to || line[authEnd + 1] != '[') {
+            return null;
+        }
+        final int timestampEnd = indexOf(line, ']', timestampStart, to);
+        if (timestampEnd < 0) {
+            return null;
+        }
+        // "verb request HTTP/version"
+        final int requestLineStart = timestampEnd + 3;
+        if (requestLineStart >= to || line[timestampEnd + 1] != ' ' || line[timestampEnd + 2] != '"') {
+            return null;
+        }
+        final int requestLineEnd = indexOf(line, '"', requestLineStart, to);
+        if (requestLineEnd < 0) {
+            return null;
+        }
+        final int verbEnd = indexOf(line, ' ', requestLineStart, to);
+        if (verbEnd <= requestLineStart || verbEnd >= requestLineEnd || !isWord(line, requestLineStart, verbEnd)) {
+            return null;
+        }
+        final int requestStart = verbEnd + 1;
+        int requestEnd = indexOf(line, ' ', requestStart, to);
+        if (requestEnd < 0 || requestEnd > requestLineEnd) {
+            requestEnd = requestLineEnd;
+        } else if (!startsWith(line, HTTP_VERSION_PREFIX, requestEnd, to)) {
+            return null;
+        }
+        if (requestEnd == requestStart) {
+            return null;
+        }
+        // response bytes
+        final int responseStart = requestLineEnd + 2;
+        if (responseStart >= to || line[requestLineEnd + 1] != ' ') {
+            return null;
+        }
+        final int responseEnd = skipDigits(line, responseStart, to);
+        if (responseEnd == responseStart || responseEnd >= to || line[responseEnd] != ' ') {
+            return null;
+        }
+        final int bytesStart = responseEnd + 1;
+        final int bytesEnd = bytesStart < to && line[bytesStart] == '-' ? bytesStart + 1
+                : skipDigits(line, bytesStart, to);
+        if (bytesEnd == bytesStart || (bytesEnd < to && line[bytesEnd] != ' ')) {
+            return null;
+        }
+
+        return LogRecordBuilder.aLogRecord()
+                .withClientIp(CLIENT_IPS.intern(line, from, clientIpEnd))
+                .withAuth(AUTHS.intern(line, identEnd + 1, authEnd))
+                .withRequest(REQUESTS.intern(line, requestStart, requestEnd))
+                .withSection(parseSection(line, requestStart, requestEnd))
+                .withTimestamp(LogParser.parseTimeStamp(line, timestampStart, timestampEnd))
+                .build();
+    }
+
+    /**
+     * The byte version of {@link LogParser#parseSection(String)}.
+     */
+    private static String parseSection(byte[] line, int requestStart, int requestEnd) {
+        if (line[requestStart] != '/') {
+            return null;
+        }
+        int start = requestStart + 1;
+        while (start < requestEnd && line[start] == '/') {
+            start++;
+        }
+        if (start == requestEnd) {
+            return null;
+        }
+        if (start > requestStart + 1) {
+            return LogParser.PATH_DELIMITER;
+        }
+        final int end = indexOf(line, '/', requestStart + 1, requestEnd);
+        return SECTIONS.intern(line, requestStart, end < 0 ? requestEnd : end);
+    }
+
+    private static int indexOf(byte[] line, char c, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (line[i] == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean startsWith(byte[] line, byte[] prefix, int from, int to) {
+        if (to - from < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (line[from + i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isWord(byte[] line, int start, int end) {
+        for (int i = start; i < end; i++) {
+            final byte c = line[i];
+            if (!(c >= 'a' && c <= 'z') && !(c >= 'A' && c <= 'Z') && !(c >= '0' && c <= '9') && c != '_') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int skipDigits(byte[] line, int index, int to) {
+        while (index < to && line[index] >= '0' && line[index] <= '9') {
+            index++;
+        }
+        return index;
+    }
+
+    private static boolean isWord(String line, int start, int end) {
+        for (int i = start; i < end; i++) {
+            final char c = line.charAt(i);
+            if (!Character.isLetterOrDigit(c) && c != '_') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int skipDigits(String line, int index) {
+        final int length = line.length();
+        while (index < length && Character.isDigit(line.charAt(index))) {
+            index++;
+        }
+        return index;
+    }
+}
@@ -0,0 +1,176 @@
+package com.datadog.task.util;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+/**
+ * Decode CLF timestamps like "09/May/2018:16:00:39 +0000" into epoch seconds.
+ * <p>
+ * Consecutive log lines usually share the same second, so the decoder remembers the last timestamp string and its
+ * epoch second, a cache hit is a string comparison and does not allocate. On a miss the fixed width fields are decoded
+ * arithmetically, only strings which are not in the canonical form (e.g. an unusual timezone offset) go through the
+ * {@link DateTimeFormatter}. This class is thread safe.
+ */
+public class ClfTimestampDecoder {
+
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("dd/MMM/yyyy:HH:mm:ss Z", Locale.US)
+            .withZone(ZoneId.systemDefault());
+
+    private static final String MONTHS = "JanFebMarAprMayJunJulAugSepOctNovDec";
+
+    private static final int TIMESTAMP_LENGTH = 26;
+
+    private static final int SECONDS_PER_DAY = 86400;
+
+    private volatile Entry last;
+
+    public ClfTimestampDecoder() {
+        this.last = new Entry("", 0L);
+    }
+
+    /**
+     * Decode a CLF timestamp.
+     *
+     * @param timestamp the timestamp string, e.g. "09/May/2018:16:00:39 +0000".
+     * @return the epoch second.
+     * @throws java.time.format.DateTimeParseException if the string is not a valid timestamp.
+     */
+    public Long decode(String timestamp) {
+        final Entry entry = last;
+        if (entry.text.equals(timestamp)) {
+            return entry.epochSecond;
+        }
+        long epochSecond = decodeFixedWidth(timestamp);
+        if (epochSecond == Long.MIN_VALUE) {
+            epochSecond = OffsetDateTime.parse(timestamp, FORMATTER).toEpochSecond();
+        }
+        final Entry newEntry = new Entry(timestamp, epochSecond);
+        last = newEntry;
+        return newEntry.epochSecond;
+    }
+
+    /**
+     * Decode a CLF timestamp held in the ASCII bytes in the range [from, to), a cache hit does not allocate.
+     *
+     * @return the epoch second.
+     * @throws java.time.format.DateTimeParseException if the bytes are not a valid timestamp.
+     */
+    public Long decode(byte[] bytes, int from, int to) {
+        final Entry entry = last;
+        if (entry.matches(bytes, from, to)) {
+            return entry.epochSecond;
+        }
+        return decode(new String(bytes, from, to - from, StandardCharsets.ISO_8859_1));
+    }
+
+    /**
+     * Decode the canonical form "dd/MMM/yyyy:HH:mm:ss +hhmm" without any intermediate object.
+     *
+     * @return the epoch second, or Long.MIN_VALUE if the string is not in the canonical form.
+     */
+    static long decodeFixedWidth(CharSequence s) {
+        if (s.length() != TIMESTAMP_LENGTH || s.charAt(2) != '/' || s.charAt(6) != '/' || s.charAt(11) != ':'
+                || s.charAt(14) != ':' || s.charAt(17) != ':' || s.charAt(20) != ' ') {
+            return Long.MIN_VALUE;
+        }
+        final int day = twoDigits(s, 0);
+        final int month = month(s, 3);
+        final int year = fourDigits(s, 7);
+        final int hour = twoDigits(s, 12);
+        final int minute = twoDigits(s, 15);
+        final int second = twoDigits(s, 18);
+        final char sign = s.charAt(21);
+        final int offsetHour = twoDigits(s, 22);
+        final int offsetMinute = twoDigits(s, 24);
+        if (day < 1 || month < 1 || year < 0 || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0
+                || second > 59 || (sign != '+' && sign != '-') || offsetHour < 0 || offsetHour > 18
+                || offsetMinute < 0 || offsetMinute > 59 || day > daysInMonth(year, month)) {
+            return Long.MIN_VALUE;
+        }
+        final int offsetSeconds = (sign == '-' ? -1 : 1) * (offsetHour * 3600 + offsetMinute * 60);
+        return epochDay(year, month, day) * SECONDS_PER_DAY + hour * 3600 + minute * 60 + second - offsetSeconds;
+    }
+
+    private static int twoDigits(CharSequence s, int index) {
+        final int d1 = s.charAt(index) - '0';
+        final int d2 = s.charAt(index + 1) - '0';
+        if (d1 < 0 || d1 > 9 || d2 < 0 || d2 > 9) {
+            return -1;
+        }
+        return d1 * 10 + d2;
+    }
+
+    private static int fourDigits(CharSequence s, int index) {
+        final int high = twoDigits(s, index);
+        final int low = twoDigits(s, index + 2);
+        if (high < 0 || low < 0) {
+            return -1;
+        }
+        return high * 100 + low;
+    }
+
+    private static int month(CharSequence s, int index) {
+        final char c1 = s.charAt(index);
+        final char c2 = s.charAt(index + 1);
+        final char c3 = s.charAt(index + 2);
+        for (int i = 0; i < MONTHS.length(); i += 3) {
+            if (MONTHS.charAt(i) == c1 && MONTHS.charAt(i + 1) == c2 && MONTHS.charAt(i + 2) == c3) {
+                return i / 3 + 1;
+            }
+        }
+        return -1;
+    }
+
+    private static int daysInMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                return (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    /**
+     * Days since 1970-01-01 of a proleptic Gregorian date, see "days_from_civil" by Howard Hinnant.
+     */
+    private static long epochDay(int year, int month, int day) {
+        final int y = month <= 2 ? year - 1 : year;
+        final int era = (y >= 0 ? y : y - 399) / 400;
+        final int yearOfEra = y - era * 400;
+        final int dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        final int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097L + dayOfEra - 719468L;
+    }
+
+    private static final class Entry {
+
+        private final String text;
+
+        private final Long epochSecond;
+
+        private Entry(String text, Long epochSecond) {
+            this.text = text;
+            this.epochSecond = epochSecond;
+        }
+
+        private boolean matches(byte[] bytes, int from, int to) {
+            if (to - from != text.length()) {
+                return false;
+            }
+            for (int i = 0; i < text.length(); i++) {
+                if (text.charAt(i) != (bytes[from + i] & 0xff)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
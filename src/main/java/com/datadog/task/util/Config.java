@@ -6,6 +6,9 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
 import org.apache.commons.configuration2.Configuration;
 import org.apache.commons.configuration2.PropertiesConfiguration;
 import org.apache.commons.configuration2.builder.FileBasedConfigurationBuilder;
@@ -20,10 +23,52 @@ public class Config {
     private static final String DEFAULT_LOG_PATH = "/tmp/access.log";
     private static final String STATISTICS_REPORT_INTERVAL_IN_SEC = "statistics.interval.sec";
     private static final String ALERT_THRESHOLD_QPS = "alert.threshold.qps";
+    private static final String LOG_FILE_FOLLOWER = "logfile.follower";
+    private static final String LOG_FILE_READER_THREADS = "logfile.reader.threads";
+    private static final String LOG_FILE_CHECKPOINT_PATH = "logfile.checkpoint.path";
+    private static final String STATISTICS_REPOSITORY = "statistics.repository";
+    private static final String STATISTICS_COUNTER = "statistics.counter";
+    private static final String STATISTICS_COUNTER_CAPACITY = "statistics.counter.capacity";
+    private static final String STATISTICS_INCREMENTAL = "statistics.incremental";
+    private static final String STATISTICS_TIERS = "statistics.tiers";
+    private static final String STATISTICS_TIME = "statistics.time";
+    private static final String STATISTICS_ALLOWED_LATENESS_IN_SEC = "statistics.allowed.lateness.sec";
+    private static final String STATISTICS_SNAPSHOT_PATH = "statistics.snapshot.path";
+    private static final String STATISTICS_SNAPSHOT_INTERVAL_IN_SEC = "statistics.snapshot.interval.sec";
+    private static final String PIPELINE_ENABLED = "pipeline.enabled";
+    private static final String HTTP_ENABLED = "http.enabled";
+    private static final String HTTP_HOST = "http.host";
+    private static final String HTTP_PORT = "http.port";
+    private static final String HEADLESS_ENABLED = "headless.enabled";
+    private static final String HEADLESS_OUTPUT = "headless.output";
+    private static final String HEADLESS_OUTPUT_MAX_BYTES = "headless.output.max.bytes";
+    private static final String HEADLESS_OUTPUT_MAX_FILES = "headless.output.max.files";
+    private static final String HEADLESS_QUEUE_CAPACITY = "headless.queue.capacity";
+    private static final String PIPELINE_QUEUE_CAPACITY = "pipeline.queue.capacity";
+    private static final String PIPELINE_BATCH_SIZE = "pipeline.batch.size";
+    private static final String PIPELINE_BATCH_MAX_LATENCY_IN_MS = "pipeline.batch.max.latency.ms";
+    private static final String PIPELINE_PARSER_THREADS = "pipeline.parser.threads";
     private static final int DEFAULT_TIME_WINDOW_LENGTH_IN_SEC = 120;
     private static final int DEFAULT_TOP_K = 5;
     private static final int DEFAULT_STATISTICS_REPORT_INTERVAL_IN_SEC = 10;
     private static final int DEFAULT_THRESHOLD_QPS = 20;
+    private static final String DEFAULT_LOG_FILE_FOLLOWER = "nio";
+    private static final int DEFAULT_LOG_FILE_READER_THREADS = 2;
+    private static final String DEFAULT_STATISTICS_REPOSITORY = "ring";
+    private static final String DEFAULT_STATISTICS_COUNTER = "exact";
+    private static final int DEFAULT_STATISTICS_COUNTER_CAPACITY = 1000;
+    private static final String DEFAULT_STATISTICS_TIME = "processing";
+    private static final int DEFAULT_STATISTICS_ALLOWED_LATENESS_IN_SEC = 5;
+    private static final int DEFAULT_STATISTICS_SNAPSHOT_INTERVAL_IN_SEC = 10;
+    private static final int DEFAULT_PIPELINE_QUEUE_CAPACITY = 65536;
+    private static final int DEFAULT_PIPELINE_BATCH_SIZE = 1024;
+    private static final long DEFAULT_PIPELINE_BATCH_MAX_LATENCY_IN_MS = 50L;
+    private static final int DEFAULT_PIPELINE_PARSER_THREADS = 1;
+    private static final String DEFAULT_HTTP_HOST = "127.0.0.1";
+    private static final int DEFAULT_HTTP_PORT = 9464;
+    private static final long DEFAULT_HEADLESS_OUTPUT_MAX_BYTES = 100L * 1024 * 1024;
+    private static final int DEFAULT_HEADLESS_OUTPUT_MAX_FILES = 5;
+    private static final int DEFAULT_HEADLESS_QUEUE_CAPACITY = 4096;
     private final Configuration configuration;
 
     public Config(String propertiesFilePath) throws IOException, ConfigurationException {
@@ -56,6 +101,38 @@ public class Config {
         return configuration.getString(LOG_FILE_PATH, DEFAULT_LOG_PATH);
     }
 
+    /**
+     * The files to follow, {@link #getFilePath()} split on commas, every item is a path or a glob pattern such as
+     * "/var/log/nginx/*.access.log".
+     */
+    public List<String> getFilePaths() {
+        return Arrays.stream(getFilePath().split(",")).map(String::trim).filter(p -> !p.isEmpty())
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * The number of threads polling the files, shared by all the files.
+     */
+    public int getLogFileReaderThreads() {
+        return configuration.getInt(LOG_FILE_READER_THREADS, DEFAULT_LOG_FILE_READER_THREADS);
+    }
+
+    /**
+     * The file where the read offsets are saved, so a restart resumes where the previous run stopped, empty to read
+     * the files from the beginning on every start.
+     */
+    public String getCheckpointPath() {
+        return configuration.getString(LOG_FILE_CHECKPOINT_PATH, "");
+    }
+
+    /**
+     * How the log file is followed, "nio" for the {@link com.datadog.task.controller.FileFollower}, "tailer" for the
+     * commons-io tailer.
+     */
+    public String getLogFileFollower() {
+        return configuration.getString(LOG_FILE_FOLLOWER, DEFAULT_LOG_FILE_FOLLOWER);
+    }
+
     public int getStatisticIntervalInSec() {
         return configuration.getInt(STATISTICS_REPORT_INTERVAL_IN_SEC, DEFAULT_STATISTICS_REPORT_INTERVAL_IN_SEC);
     }
@@ -67,4 +144,142 @@ public class Config {
     public int getAlertThresholdPerSec() {
         return configuration.getInt(ALERT_THRESHOLD_QPS, DEFAULT_THRESHOLD_QPS);
     }
-}
\ No newline at end of file
+
+    /**
+     * The implementation of {@link com.datadog.task.storage.StatisticsRepository}, "ring" for the ring buffer guarded
+     * by one monitor, "striped" for the ring buffer with one lock per slot.
+     */
+    public String getRepositoryType() {
+        return configuration.getString(STATISTICS_REPOSITORY, DEFAULT_STATISTICS_REPOSITORY);
+    }
+
+    /**
+     * How the sections, client IPs and auths are counted, "exact" to count every item, "approximate" to only keep the
+     * most frequent {@link #getCounterCapacity()} items of every second with the Space-Saving algorithm.
+     */
+    public String getCounterType() {
+        return configuration.getString(STATISTICS_COUNTER, DEFAULT_STATISTICS_COUNTER);
+    }
+
+    public int getCounterCapacity() {
+        return configuration.getInt(STATISTICS_COUNTER_CAPACITY, DEFAULT_STATISTICS_COUNTER_CAPACITY);
+    }
+
+    /**
+     * Whether the "ring" repository keeps the statistics of the last {@link #getStatisticIntervalInSec()} seconds
+     * incrementally instead of merging every slot for each report, only supported with the exact counters.
+     */
+    public boolean isIncrementalAggregationEnabled() {
+        return configuration.getBoolean(STATISTICS_INCREMENTAL, false);
+    }
+
+    /**
+     * Whether the seconds leaving the time window are rolled up into 10 seconds, 1 minute and 1 hour buckets, so
+     * ranges up to a week old can be queried.
+     */
+    public boolean isTieredStatisticsEnabled() {
+        return configuration.getBoolean(STATISTICS_TIERS, false);
+    }
+
+    /**
+     * Which time slides the window, "processing" for the wall clock, "event" for the max timestamp of the records, so
+     * a replayed or backfilled log produces the same statistics as when it was written.
+     */
+    public String getStatisticsTime() {
+        return configuration.getString(STATISTICS_TIME, DEFAULT_STATISTICS_TIME);
+    }
+
+    /**
+     * How many seconds a record may arrive behind the max timestamp in event time and still be counted.
+     */
+    public int getAllowedLatenessInSec() {
+        return configuration.getInt(STATISTICS_ALLOWED_LATENESS_IN_SEC, DEFAULT_STATISTICS_ALLOWED_LATENESS_IN_SEC);
+    }
+
+    /**
+     * The file where the window is saved and restored from on the next start, empty to start with an empty window.
+     */
+    public String getSnapshotPath() {
+        return configuration.getString(STATISTICS_SNAPSHOT_PATH, "");
+    }
+
+    public int getSnapshotIntervalInSec() {
+        return configuration.getInt(STATISTICS_SNAPSHOT_INTERVAL_IN_SEC, DEFAULT_STATISTICS_SNAPSHOT_INTERVAL_IN_SEC);
+    }
+
+    /**
+     * Whether the lines are parsed and added to the repository in batches by a {@link
+     * com.datadog.task.controller.LogPipeline} instead of one by one on the reader thread.
+     */
+    public boolean isPipelineEnabled() {
+        return configuration.getBoolean(PIPELINE_ENABLED, false);
+    }
+
+    public int getPipelineQueueCapacity() {
+        return configuration.getInt(PIPELINE_QUEUE_CAPACITY, DEFAULT_PIPELINE_QUEUE_CAPACITY);
+    }
+
+    public int getPipelineBatchSize() {
+        return configuration.getInt(PIPELINE_BATCH_SIZE, DEFAULT_PIPELINE_BATCH_SIZE);
+    }
+
+    public long getPipelineBatchMaxLatencyInMs() {
+        return configuration.getLong(PIPELINE_BATCH_MAX_LATENCY_IN_MS, DEFAULT_PIPELINE_BATCH_MAX_LATENCY_IN_MS);
+    }
+
+    public int getPipelineParserThreads() {
+        return configuration.getInt(PIPELINE_PARSER_THREADS, DEFAULT_PIPELINE_PARSER_THREADS);
+    }
+
+    /**
+     * Whether the statistics, the alert and the metrics of the monitor are served over HTTP, in the Prometheus text
+     * format on /metrics and in JSON on /metrics.json.
+     */
+    public boolean isHttpEnabled() {
+        return configuration.getBoolean(HTTP_ENABLED, false);
+    }
+
+    public String getHttpHost() {
+        return configuration.getString(HTTP_HOST, DEFAULT_HTTP_HOST);
+    }
+
+    public int getHttpPort() {
+        return configuration.getInt(HTTP_PORT, DEFAULT_HTTP_PORT);
+    }
+
+    /**
+     * Whether the monitor runs as a daemon without the terminal console, writing the statistics and the alert
+     * transitions as newline delimited JSON. It can also be selected with the --headless argument.
+     */
+    public boolean isHeadlessEnabled() {
+        return configuration.getBoolean(HEADLESS_ENABLED, false);
+    }
+
+    /**
+     * Return the file the headless mode writes to, empty to write to stdout.
+     */
+    public String getHeadlessOutput() {
+        return configuration.getString(HEADLESS_OUTPUT, "");
+    }
+
+    /**
+     * Return the size over which the output file of the headless mode is rolled.
+     */
+    public long getHeadlessOutputMaxBytes() {
+        return configuration.getLong(HEADLESS_OUTPUT_MAX_BYTES, DEFAULT_HEADLESS_OUTPUT_MAX_BYTES);
+    }
+
+    /**
+     * Return the number of rolled output files the headless mode keeps.
+     */
+    public int getHeadlessOutputMaxFiles() {
+        return configuration.getInt(HEADLESS_OUTPUT_MAX_FILES, DEFAULT_HEADLESS_OUTPUT_MAX_FILES);
+    }
+
+    /**
+     * Return the number of lines which can wait to be written in the headless mode, more are dropped.
+     */
+    public int getHeadlessQueueCapacity() {
+        return configuration.getInt(HEADLESS_QUEUE_CAPACITY, DEFAULT_HEADLESS_QUEUE_CAPACITY);
+    }
+}
@@ -5,11 +5,9 @@ import com.datadog.task.model.LogRecord.LogRecordBuilder;
 import com.google.common.annotations.VisibleForTesting;
 import io.krakens.grok.api.Grok;
 import io.krakens.grok.api.GrokCompiler;
-import java.time.OffsetDateTime;
-import java.time.ZoneId;
-import java.time.format.DateTimeFormatter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.time.format.DateTimeParseException;
-import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import org.slf4j.Logger;
@@ -24,20 +22,68 @@ public class LogParser {
     public static final String TIMESTAMP = "timestamp";
     public static final String PATH_DELIMITER = "/";
     private static final Grok GROK;
-    private static final DateTimeFormatter FORMATTER;
+    private static final ClfTimestampDecoder TIMESTAMP_DECODER;
 
     static {
         GrokCompiler grokCompiler = GrokCompiler.newInstance();
         grokCompiler.registerDefaultPatterns();
         GROK = grokCompiler.compile("%{COMMONAPACHELOG}");
-        FORMATTER = DateTimeFormatter.ofPattern("dd/MMM/yyyy:HH:mm:ss Z", Locale.US).withZone(ZoneId.systemDefault());
+        TIMESTAMP_DECODER = new ClfTimestampDecoder();
     }
 
     private LogParser() {
 
     }
 
+    /**
+     * Parse one line of access log. Lines in the Common Log Format are handled by the index based {@link ClfParser},
+     * anything it rejects falls back to the Grok pattern.
+     *
+     * @param log the log line.
+     * @return the parsed {@link LogRecord}, or empty if the line can not be parsed.
+     */
     public static Optional<LogRecord> parse(String log) {
+        final LogRecord record = ClfParser.parse(log);
+        if (record != null) {
+            return Optional.of(record);
+        }
+        return parseWithGrok(log);
+    }
+
+    /**
+     * Parse one line of access log held in a range of bytes, without decoding the whole line into a String. Only a
+     * line rejected by the {@link ClfParser} is decoded, to fall back to the Grok pattern.
+     *
+     * @param bytes  the buffer holds the UTF-8 log line.
+     * @param offset the offset of the first byte of the line.
+     * @param length the length of the line in bytes.
+     * @return the parsed {@link LogRecord}, or empty if the line can not be parsed.
+     */
+    public static Optional<LogRecord> parse(byte[] bytes, int offset, int length) {
+        final LogRecord record = ClfParser.parse(bytes, offset, offset + length);
+        if (record != null) {
+            return Optional.of(record);
+        }
+        return parseWithGrok(new String(bytes, offset, length, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Parse one line of access log held in the remaining bytes of a buffer, the position of the buffer is not changed.
+     *
+     * @param buffer the buffer holds the UTF-8 log line.
+     * @return the parsed {@link LogRecord}, or empty if the line can not be parsed.
+     */
+    public static Optional<LogRecord> parse(ByteBuffer buffer) {
+        if (buffer.hasArray()) {
+            return parse(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+        }
+        final byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return parse(bytes, 0, bytes.length);
+    }
+
+    @VisibleForTesting
+    static Optional<LogRecord> parseWithGrok(String log) {
         final Map<String, Object> capture = GROK.capture(log);
         if (capture.isEmpty()) {
             return Optional.empty();
@@ -57,22 +103,40 @@ public class LogParser {
     @VisibleForTesting
     static Long parseTimeStamp(String timestamp) {
         try {
-            return OffsetDateTime.parse(timestamp, FORMATTER).toEpochSecond();
+            return TIMESTAMP_DECODER.decode(timestamp);
         } catch (DateTimeParseException e) {
             log.error("Can not parse {}, {}", timestamp, e.getMessage());
             return null;
         }
     }
 
+    static Long parseTimeStamp(byte[] bytes, int from, int to) {
+        try {
+            return TIMESTAMP_DECODER.decode(bytes, from, to);
+        } catch (DateTimeParseException e) {
+            log.error("Can not parse {}, {}", new String(bytes, from, to - from, StandardCharsets.UTF_8),
+                    e.getMessage());
+            return null;
+        }
+    }
+
     @VisibleForTesting
     static String parseSection(String request) {
         if (request == null || request.length() == 0 || !request.startsWith(PATH_DELIMITER)) {
             return null;
         }
-        final String[] paths = request.split(PATH_DELIMITER);
-        if (paths.length >= 2) {
-            return PATH_DELIMITER + paths[1];
+        // the section is the first path segment, skip the leading empty segments like String.split does.
+        int start = 1;
+        while (start < request.length() && request.charAt(start) == '/') {
+            start++;
+        }
+        if (start == request.length()) {
+            return null;
+        }
+        if (start > 1) {
+            return PATH_DELIMITER;
         }
-        return null;
+        final int end = request.indexOf('/', 1);
+        return end < 0 ? request : request.substring(0, end);
     }
 }
@@ -0,0 +1,66 @@
+package com.datadog.task.util;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link Clock} which only moves when it is told to, for replays, tests and load tests which advance the time in
+ * virtual steps instead of waiting for the wall clock. The clocks returned by {@link #withZone(ZoneId)} share the time
+ * of this clock. This class is thread safe.
+ */
+public class SimulatedClock extends Clock {
+
+    private final AtomicLong epochMilli;
+
+    private final ZoneId zone;
+
+    public SimulatedClock(Instant instant) {
+        this(new AtomicLong(instant.toEpochMilli()), ZoneId.systemDefault());
+    }
+
+    private SimulatedClock(AtomicLong epochMilli, ZoneId zone) {
+        this.epochMilli = epochMilli;
+        this.zone = zone;
+    }
+
+    /**
+     * Move the clock to the given instant, which may be in the past.
+     */
+    public void setInstant(Instant instant) {
+        epochMilli.set(instant.toEpochMilli());
+    }
+
+    /**
+     * Move the clock to the start of the given epoch second.
+     */
+    public void setEpochSecond(long epochSecond) {
+        epochMilli.set(epochSecond * 1000L);
+    }
+
+    public void advance(Duration duration) {
+        epochMilli.addAndGet(duration.toMillis());
+    }
+
+    @Override
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+        return new SimulatedClock(epochMilli, zone);
+    }
+
+    @Override
+    public long millis() {
+        return epochMilli.get();
+    }
+
+    @Override
+    public Instant instant() {
+        return Instant.ofEpochMilli(millis());
+    }
+}
@@ -0,0 +1,87 @@
+package com.datadog.task.util;
+
+import com.google.common.base.Preconditions;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A bounded cache from byte sequences to strings, used to turn the repeated values of the log lines (client IPs,
+ * sections, ...) into shared {@link String} instances without decoding them again.
+ * <p>
+ * The table is direct mapped: every byte sequence has exactly one slot chosen by its hash, a miss replaces whatever the
+ * slot held. A lookup is a hash and a byte comparison, so once the working set fits into the table, interning does not
+ * allocate. The memory is bounded by the number of slots whatever the input is. The entries are immutable and published
+ * through a plain array, a race between two threads can only cause an extra miss. This class is thread safe.
+ */
+public class SymbolTable {
+
+    private final Entry[] entries;
+
+    private final int mask;
+
+    /**
+     * Construct a symbol table.
+     *
+     * @param capacity the number of slots, rounded up to a power of two.
+     */
+    public SymbolTable(int capacity) {
+        Preconditions.checkArgument(capacity > 0 && capacity <= 1 << 30, "Capacity should be a positive number.");
+        final int size = Integer.highestOneBit(capacity - 1) << 1;
+        this.entries = new Entry[Math.max(size, 1)];
+        this.mask = entries.length - 1;
+    }
+
+    /**
+     * Get the string of the UTF-8 bytes in the range [from, to).
+     *
+     * @return the cached string if the same bytes have been interned before and the slot has not been reused since,
+     * otherwise a new string.
+     */
+    public String intern(byte[] bytes, int from, int to) {
+        final int hash = hash(bytes, from, to);
+        final int index = hash & mask;
+        final Entry entry = entries[index];
+        if (entry != null && entry.hash == hash && entry.matches(bytes, from, to)) {
+            return entry.value;
+        }
+        final Entry newEntry = new Entry(hash, bytes, from, to);
+        entries[index] = newEntry;
+        return newEntry.value;
+    }
+
+    private static int hash(byte[] bytes, int from, int to) {
+        int hash = 0;
+        for (int i = from; i < to; i++) {
+            hash = 31 * hash + bytes[i];
+        }
+        // spread the high bits, the table only uses the low ones
+        return hash ^ (hash >>> 16);
+    }
+
+    private static final class Entry {
+
+        private final int hash;
+
+        private final byte[] key;
+
+        private final String value;
+
+        private Entry(int hash, byte[] bytes, int from, int to) {
+            this.hash = hash;
+            this.key = new byte[to - from];
+            System.arraycopy(bytes, from, key, 0, key.length);
+            this.value = new String(key, StandardCharsets.UTF_8);
+        }
+
+        private boolean matches(byte[] bytes, int from, int to) {
+            if (to - from != key.length) {
+                return false;
+            }
+            for (int i = 0; i < key.length; i++) {
+                if (key[i] != bytes[from + i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
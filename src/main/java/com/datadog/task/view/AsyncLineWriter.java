@@ -0,0 +1,258 @@
+package com.datadog.task.view;
+
+import com.google.common.base.Preconditions;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Write lines from a bounded queue on a dedicated thread, so the callers never wait on the output. The lines are
+ * written in batches through a buffer which is flushed whenever the queue is empty. A line offered to a full queue is
+ * dropped and counted. A batch which cannot be written is dropped and counted too, and the output is opened again for
+ * the next batch, so a full disk or a deleted directory only loses the lines written while it lasts. The first drop
+ * of a run of drops is logged.
+ * <p>
+ * The output is either a stream such as stdout, which is flushed but never closed, or a rolling file: when the file
+ * would grow over the max size it is renamed to file.1, file.1 to file.2 and so on, and the oldest is deleted.
+ */
+public class AsyncLineWriter implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(AsyncLineWriter.class);
+
+    private static final int BATCH_SIZE = 256;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final long POLL_TIMEOUT_IN_MS = 100L;
+
+    private final BlockingQueue<String> queue;
+
+    private final OutputStream stream;
+
+    private final Path path;
+
+    private final long maxBytes;
+
+    private final int maxFiles;
+
+    private final Thread thread;
+
+    private final LongAdder droppedLines;
+
+    private volatile boolean running;
+
+    private volatile boolean queueFull;
+
+    // only used by the writer thread
+    private OutputStream outputStream;
+
+    private OutputStream fileStream;
+
+    private long fileBytes;
+
+    private boolean failing;
+
+    /**
+     * Construct a writer to a stream.
+     *
+     * @param outputStream the stream, flushed but not closed by the writer.
+     * @param capacity     the number of lines which can wait to be written.
+     */
+    public AsyncLineWriter(OutputStream outputStream, int capacity) {
+        this(outputStream, null, Long.MAX_VALUE, 0, capacity);
+    }
+
+    /**
+     * Construct a writer to a rolling file, appended to if it exists.
+     *
+     * @param path     the file.
+     * @param maxBytes the size over which the file is rolled.
+     * @param maxFiles the number of rolled files kept.
+     * @param capacity the number of lines which can wait to be written.
+     */
+    public AsyncLineWriter(Path path, long maxBytes, int maxFiles, int capacity) {
+        this(null, path, maxBytes, maxFiles, capacity);
+    }
+
+    private AsyncLineWriter(OutputStream stream, Path path, long maxBytes, int maxFiles, int capacity) {
+        Preconditions.checkArgument(maxBytes > 0, "maxBytes must be positive");
+        Preconditions.checkArgument(maxFiles >= 0, "maxFiles must not be negative");
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.stream = stream;
+        this.path = path;
+        this.maxBytes = maxBytes;
+        this.maxFiles = maxFiles;
+        this.thread = new Thread(this::run, "line-writer");
+        this.droppedLines = new LongAdder();
+    }
+
+    public void start() {
+        running = true;
+        thread.start();
+    }
+
+    /**
+     * Queue a line, without its line separator.
+     *
+     * @return false if the queue is full and the line is dropped.
+     */
+    public boolean write(String line) {
+        if (queue.offer(line)) {
+            queueFull = false;
+            return true;
+        }
+        droppedLines.increment();
+        if (!queueFull) {
+            queueFull = true;
+            log.warn("The output is too slow, drop the lines until it catches up");
+        }
+        return false;
+    }
+
+    /**
+     * Return the number of lines dropped because the queue was full or the output failed.
+     */
+    public long getDroppedLines() {
+        return droppedLines.sum();
+    }
+
+    /**
+     * Write the lines still queued and stop the writer thread.
+     */
+    @Override
+    public void close() {
+        running = false;
+        try {
+            thread.join();
+        } catch (final InterruptedException e) {
+            log.error("Error while waiting for the line writer to stop");
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        final List<String> batch = new ArrayList<>(BATCH_SIZE);
+        try {
+            while (running || !queue.isEmpty()) {
+                final String line = queue.poll(POLL_TIMEOUT_IN_MS, TimeUnit.MILLISECONDS);
+                if (line == null) {
+                    continue;
+                }
+                batch.add(line);
+                queue.drainTo(batch, BATCH_SIZE - 1);
+                writeBatch(batch);
+                batch.clear();
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            closeOutput();
+        }
+    }
+
+    private void writeBatch(List<String> batch) {
+        try {
+            if (outputStream == null) {
+                open();
+            }
+            for (String queued : batch) {
+                writeLine(queued.getBytes(StandardCharsets.UTF_8));
+            }
+            if (queue.isEmpty()) {
+                outputStream.flush();
+            }
+            failing = false;
+        } catch (final IOException e) {
+            droppedLines.add(batch.size());
+            if (!failing) {
+                failing = true;
+                log.error("Error while writing the lines to {}, drop them until the output recovers",
+                        path == null ? "the output stream" : path, e);
+            }
+            discardOutput();
+        }
+    }
+
+    private void writeLine(byte[] line) throws IOException {
+        if (fileBytes > 0 && fileBytes + line.length + 1 > maxBytes) {
+            roll();
+        }
+        outputStream.write(line);
+        outputStream.write('\n');
+        fileBytes += line.length + 1;
+    }
+
+    private void open() throws IOException {
+        if (path == null) {
+            outputStream = new BufferedOutputStream(stream, BUFFER_SIZE);
+            return;
+        }
+        fileStream = Files.newOutputStream(path, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        outputStream = new BufferedOutputStream(fileStream, BUFFER_SIZE);
+        fileBytes = Files.size(path);
+    }
+
+    private void roll() throws IOException {
+        outputStream.close();
+        if (maxFiles == 0) {
+            Files.delete(path);
+        } else {
+            Files.deleteIfExists(rolledPath(maxFiles));
+            for (int i = maxFiles - 1; i >= 1; i--) {
+                if (Files.exists(rolledPath(i))) {
+                    Files.move(rolledPath(i), rolledPath(i + 1), StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            Files.move(path, rolledPath(1), StandardCopyOption.REPLACE_EXISTING);
+        }
+        open();
+    }
+
+    private Path rolledPath(int index) {
+        return path.resolveSibling(path.getFileName() + "." + index);
+    }
+
+    /**
+     * Drop what the buffer still holds without writing it, the output is opened again for the next batch.
+     */
+    private void discardOutput() {
+        if (fileStream != null) {
+            try {
+                fileStream.close();
+            } catch (final IOException e) {
+                log.debug("Error while closing {}", path, e);
+            }
+            fileStream = null;
+        }
+        outputStream = null;
+    }
+
+    private void closeOutput() {
+        if (outputStream == null) {
+            return;
+        }
+        try {
+            if (path == null) {
+                outputStream.flush();
+            } else {
+                outputStream.close();
+            }
+        } catch (final IOException e) {
+            log.error("Error while closing the output of the line writer", e);
+        }
+    }
+}
@@ -1,6 +1,9 @@
 package com.datadog.task.view;
 
+import com.datadog.task.controller.FileStatus;
 import com.datadog.task.controller.HttpTrafficLogMonitor;
+import com.datadog.task.metrics.LatencyHistogram;
+import com.datadog.task.metrics.MetricsRegistry;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
 import com.googlecode.lanterna.SGR;
@@ -19,6 +22,9 @@ import java.io.IOException;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import org.slf4j.Logger;
@@ -36,7 +42,7 @@ public class LanternConsole {
     private static final String WELCOME_MESSAGE = ">_ SYSTEM ON，WELCOME";
     private static final String GOODBYE = ">_ GOODBYE";
     private static final String EXIT_MESSAGE = ">_ SYSTEM EXIT HOTKEY ON";
-    private static final String QUIT_HINT = "Press F10 to quit";
+    private static final String QUIT_HINT = "Press F2 to show or hide the diagnostics, F10 to quit";
     private static final int HEADER_START_ROW = 1;
     private static final int STATISTICS_START_ROW = 3;
     private static final Long REFRESH_INTERVAL = 500L;
@@ -48,6 +54,8 @@ public class LanternConsole {
     private Long alertOnTime;
     //the timestamp when the last alert recovered.
     private Instant alertRecoveredTime;
+    //whether the diagnostics of the monitor are shown instead of the statistics.
+    private boolean showDiagnostics;
 
     /**
      * Construct a terminal with width and height.
@@ -83,8 +91,15 @@ public class LanternConsole {
                 screenWait(REFRESH_INTERVAL * 2);
                 break;
             }
+            if (keyStroke != null && keyStroke.getKeyType() == KeyType.F2) {
+                showDiagnostics = !showDiagnostics;
+            }
             showHeader();
-            showStatistics();
+            if (showDiagnostics) {
+                showDiagnostics(terminalSize.getRows() * 4 / 5 - STATISTICS_START_ROW);
+            } else {
+                showStatistics();
+            }
             screen.newTextGraphics()
                     .putString(1, terminalSize.getRows() * 4 / 5, Strings.repeat("-", terminalSize.getColumns() - 2));
             showAlert(terminalSize.getRows() * 4 / 5 + 1);
@@ -131,6 +146,33 @@ public class LanternConsole {
         }
     }
 
+    /**
+     * Show the counters, the latency percentiles and the progress of every file, in at most maxRows rows.
+     */
+    private void showDiagnostics(int maxRows) {
+        final MetricsRegistry metrics = httpTrafficLogMonitor.getMetrics();
+        final List<String> lines = new ArrayList<>();
+        for (Map.Entry<String, Long> value : metrics.getValues().entrySet()) {
+            lines.add(String.format("%-24s %,d", value.getKey(), value.getValue()));
+        }
+        lines.add(String.format("%-24s %10s %10s %10s %10s %10s", "latency (us)", "count", "p50", "p99", "p99.9",
+                "max"));
+        for (Map.Entry<String, LatencyHistogram.Snapshot> histogram : metrics.getHistograms().entrySet()) {
+            final LatencyHistogram.Snapshot snapshot = histogram.getValue();
+            lines.add(String.format("%-24s %10d %10.1f %10.1f %10.1f %10.1f", histogram.getKey(), snapshot.getCount(),
+                    snapshot.getValueAtPercentileInMicros(50), snapshot.getValueAtPercentileInMicros(99),
+                    snapshot.getValueAtPercentileInMicros(99.9), snapshot.getMax() / 1000.0));
+        }
+        for (FileStatus fileStatus : httpTrafficLogMonitor.getFileStatuses()) {
+            lines.add(fileStatus.toString());
+        }
+        TextGraphics diagnosticsGraph = screen.newTextGraphics();
+        diagnosticsGraph.setForegroundColor(ANSI.CYAN);
+        for (int i = 0; i < Math.min(maxRows, lines.size()); i++) {
+            diagnosticsGraph.putString(1, LanternConsole.STATISTICS_START_ROW + i, lines.get(i));
+        }
+    }
+
     private void showHeader() {
         TextGraphics header = screen.newTextGraphics();
         header.setForegroundColor(ANSI.GREEN);
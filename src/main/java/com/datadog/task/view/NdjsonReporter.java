@@ -0,0 +1,113 @@
+package com.datadog.task.view;
+
+import com.datadog.task.controller.HttpTrafficLogMonitor;
+import com.datadog.task.http.JsonWriter;
+import com.datadog.task.http.MetricsFormatter;
+import com.datadog.task.model.AlertEvent;
+import com.datadog.task.model.StatisticsSnapshot;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.eventbus.Subscribe;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.io.Closeable;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The headless view of the monitor for servers without a terminal. It writes newline delimited JSON: one object of
+ * type "statistics" per report and one of type "alert" per alert transition. A single thread polls the snapshots the
+ * monitor publishes and hands the lines to an {@link AsyncLineWriter}, so neither the readers nor the repository ever
+ * wait on the output. The alert transitions are queued as {@link AlertEvent}s when they happen and written with their
+ * own time at the next poll, so an alert which fires and recovers between two polls is written too.
+ */
+public class NdjsonReporter implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(NdjsonReporter.class);
+
+    private static final long POLL_INTERVAL_IN_MS = 500L;
+
+    private final HttpTrafficLogMonitor httpTrafficLogMonitor;
+
+    private final AsyncLineWriter writer;
+
+    private final ScheduledExecutorService executorService;
+
+    private final Queue<AlertEvent> alertEvents;
+
+    // only used by the polling thread
+    private long reportedGeneration;
+
+    public NdjsonReporter(HttpTrafficLogMonitor httpTrafficLogMonitor, AsyncLineWriter writer) {
+        this.httpTrafficLogMonitor = httpTrafficLogMonitor;
+        this.writer = writer;
+        this.executorService = Executors.newSingleThreadScheduledExecutor(
+                new ThreadFactoryBuilder().setNameFormat("ndjson-reporter-%d").build());
+        this.alertEvents = new ConcurrentLinkedQueue<>();
+        httpTrafficLogMonitor.registerAlertListener(this);
+    }
+
+    /**
+     * Queue an alert transition until the next poll, called on the thread of the alert.
+     */
+    @Subscribe
+    public void onAlert(AlertEvent event) {
+        alertEvents.add(event);
+    }
+
+    public void start() {
+        writer.start();
+        executorService.scheduleWithFixedDelay(() -> {
+            // an exception would cancel the schedule and silence the daemon
+            try {
+                poll();
+            } catch (final RuntimeException e) {
+                log.error("Error while reporting the statistics", e);
+            }
+        }, 0L, POLL_INTERVAL_IN_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Write the report and the alert transitions published since the last poll, if any.
+     */
+    @VisibleForTesting
+    void poll() {
+        final StatisticsSnapshot snapshot = httpTrafficLogMonitor.getStatisticsSnapshot();
+        if (snapshot != null && snapshot.getGeneration() != reportedGeneration) {
+            reportedGeneration = snapshot.getGeneration();
+            writer.write(MetricsFormatter.writeStatistics(
+                    new JsonWriter().beginObject().name("type").value("statistics"), snapshot)
+                    .endObject().toString());
+        }
+        for (AlertEvent event = alertEvents.poll(); event != null; event = alertEvents.poll()) {
+            writer.write(new JsonWriter().beginObject()
+                    .name("type").value("alert")
+                    .name("time").value(event.getTime().toString())
+                    .name("active").value(event.isActive())
+                    .name("message").value(event.getMessage())
+                    .endObject().toString());
+        }
+    }
+
+    /**
+     * Stop polling, write the last report and alert transitions and wait for the lines to be written.
+     */
+    @Override
+    public void close() {
+        executorService.shutdown();
+        try {
+            executorService.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (final InterruptedException e) {
+            log.error("Error while stopping the reporter thread");
+            Thread.currentThread().interrupt();
+        }
+        poll();
+        writer.close();
+        if (writer.getDroppedLines() > 0) {
+            log.warn("{} lines dropped because the output was too slow or failed", writer.getDroppedLines());
+        }
+    }
+}
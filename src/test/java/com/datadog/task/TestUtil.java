@@ -19,8 +19,12 @@ public class TestUtil {
     }
 
     public static LogRecord randomLogRecordNSecondAgo(long n) {
+        return randomLogRecordAt(Instant.now().getEpochSecond() - n);
+    }
+
+    public static LogRecord randomLogRecordAt(long epochSecond) {
         LogRecordBuilder builder = LogRecordBuilder.aLogRecord();
-        return builder.withTimestamp(Instant.now().getEpochSecond() - n)
+        return builder.withTimestamp(epochSecond)
                 .withSection(random(SECTIONS)).withRequest(random(SECTIONS)).withClientIp(random(CLIENT_IPS))
                 .withAuth(random(AUTHS)).build();
     }
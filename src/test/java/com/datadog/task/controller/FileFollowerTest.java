@@ -0,0 +1,192 @@
+package com.datadog.task.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.common.base.Strings;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class FileFollowerTest {
+
+    private final List<String> lines = new ArrayList<>();
+
+    private Path directory;
+
+    private Path file;
+
+    private FileFollower fileFollower;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("follower");
+        file = directory.resolve("access.log");
+        fileFollower = new FileFollower(file, lines::add, 16);
+    }
+
+    @Test
+    void shouldOnlyHandleCompleteLines() throws IOException {
+        fileFollower.poll();
+        assertEquals(Collections.emptyList(), lines);
+        append("first line\r\nsecond");
+        fileFollower.poll();
+        assertEquals(Collections.singletonList("first line"), lines);
+        append(" line which is longer than the buffer\n\nthird\n");
+        fileFollower.poll();
+        assertEquals(Arrays.asList("first line", "second line which is longer than the buffer", "third"), lines);
+    }
+
+    @Test
+    void shouldDropTheWholeLineLongerThanTheMaxBufferSize() throws IOException {
+        fileFollower = new FileFollower(file, lines::add, 16, 32);
+        append("first\n" + Strings.repeat("x", 40));
+        fileFollower.poll();
+        append(Strings.repeat("y", 40) + "\nnext\n");
+        fileFollower.poll();
+        assertEquals(Arrays.asList("first", "next"), lines);
+    }
+
+    @Test
+    void shouldReadAgainFromTheBeginningAfterTruncation() throws IOException {
+        append("first\nsecond\n");
+        fileFollower.poll();
+        Files.write(file, "new\n".getBytes(StandardCharsets.UTF_8), StandardOpenOption.TRUNCATE_EXISTING);
+        fileFollower.poll();
+        assertEquals(Arrays.asList("first", "second", "new"), lines);
+    }
+
+    @Test
+    void shouldDrainTheOldFileAfterRotation() throws IOException {
+        append("first\n");
+        fileFollower.poll();
+        append("second\nlast");
+        Files.move(file, directory.resolve("access.log.1"));
+        fileFollower.poll();
+        assertEquals(Arrays.asList("first", "second"), lines);
+        append("new\n");
+        fileFollower.poll();
+        assertEquals(Arrays.asList("first", "second"), lines);
+        // the old file stayed quiet for a whole poll
+        fileFollower.poll();
+        assertEquals(Arrays.asList("first", "second", "last", "new"), lines);
+    }
+
+    @Test
+    void shouldKeepReadingTheRenamedFileUntilItsWriterReopensThePath() throws IOException {
+        append("first\n");
+        fileFollower.poll();
+        final Path rotated = directory.resolve("access.log.1");
+        Files.move(file, rotated);
+        append("new\n");
+        fileFollower.poll();
+        // the writer still appends to the renamed file
+        append(rotated, "late\nhalf");
+        fileFollower.poll();
+        append(rotated, " line\n");
+        fileFollower.poll();
+        assertEquals(Arrays.asList("first", "late", "half line"), lines);
+        fileFollower.poll();
+        assertEquals(Arrays.asList("first", "late", "half line", "new"), lines);
+    }
+
+    @Test
+    void shouldResumeAfterTheLastLineHandedOver() throws IOException {
+        append("first\nsecond\nthi");
+        fileFollower.poll();
+        final FileOffset checkpoint = fileFollower.getCheckpoint();
+        assertEquals(13L, checkpoint.getOffset());
+        fileFollower.close();
+        append("rd\n");
+        lines.clear();
+        fileFollower = new FileFollower(file, lines::add, 16);
+        fileFollower.resumeFrom(checkpoint);
+        fileFollower.poll();
+        assertEquals(Collections.singletonList("third"), lines);
+    }
+
+    @Test
+    void shouldReadTheRestOfTheFileRotatedSinceTheCheckpoint() throws IOException {
+        append("first\n");
+        fileFollower.poll();
+        final FileOffset checkpoint = fileFollower.getCheckpoint();
+        fileFollower.close();
+        append("second\n");
+        Files.move(file, directory.resolve("access.log.1"));
+        append("new\n");
+        lines.clear();
+        fileFollower = new FileFollower(file, lines::add, 16);
+        fileFollower.resumeFrom(checkpoint);
+        fileFollower.poll();
+        assertEquals(Arrays.asList("second", "new"), lines);
+    }
+
+    @Test
+    void shouldResumeFromTheCheckpointAfterAReadError() throws IOException {
+        // an interrupt closes the channel, the next read fails
+        fileFollower = new FileFollower(file, line -> {
+            lines.add(line);
+            if (line.equals("first")) {
+                Thread.currentThread().interrupt();
+            }
+        }, 16);
+        append("first\nsecond\nthi");
+        fileFollower.poll();
+        assertTrue(Thread.interrupted());
+        append("rd\n");
+        fileFollower.poll();
+        assertEquals(Arrays.asList("first", "second", "third"), lines);
+
+        // the file rotated after an error is read to its end before the new file
+        fileFollower.close();
+        lines.clear();
+        fileFollower = new FileFollower(file, line -> {
+            lines.add(line);
+            if (line.equals("fourth")) {
+                Thread.currentThread().interrupt();
+            }
+        }, 16);
+        fileFollower.resumeFrom(new FileOffset(fileKey(file), Files.size(file)));
+        append("fourth\nfifth\nsix");
+        fileFollower.poll();
+        assertTrue(Thread.interrupted());
+        append("th\n");
+        Files.move(file, directory.resolve("access.log.1"));
+        append("new\n");
+        fileFollower.poll();
+        assertEquals(Arrays.asList("fourth", "fifth", "sixth", "new"), lines);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        fileFollower.close();
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    private void append(String content) throws IOException {
+        append(file, content);
+    }
+
+    private static String fileKey(Path file) throws IOException {
+        return Files.readAttributes(file, BasicFileAttributes.class).fileKey().toString();
+    }
+
+    private static void append(Path file, String content) throws IOException {
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND);
+    }
+}
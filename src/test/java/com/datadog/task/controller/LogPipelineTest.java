@@ -0,0 +1,144 @@
+package com.datadog.task.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.datadog.task.model.AggregatedStatistics;
+import com.datadog.task.model.LogRecord;
+import com.datadog.task.model.NewLogReceivedEvent;
+import com.datadog.task.model.Statistic;
+import com.datadog.task.storage.StatisticsRepository;
+import com.datadog.task.util.LogParser;
+import com.google.common.eventbus.EventBus;
+import com.google.common.eventbus.Subscribe;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class LogPipelineTest {
+
+    private final int batchSize = 10;
+    private final List<LogRecord> records = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicInteger batches = new AtomicInteger();
+    private final AtomicInteger events = new AtomicInteger();
+
+    @Subscribe
+    public void onNewLog(NewLogReceivedEvent event) {
+        events.incrementAndGet();
+    }
+
+    @Test
+    void shouldAddAllLinesInBatches() throws IOException {
+        final List<String> lines = readAccessLog();
+        runPipeline(1, lines);
+        assertEquals(511, records.size());
+        assertTrue(batches.get() >= 511 / batchSize + 1);
+        assertEquals(batches.get(), events.get());
+    }
+
+    @Test
+    void parallelParsersShouldKeepTheOrderOfTheLines() throws IOException {
+        final List<String> lines = readAccessLog();
+        runPipeline(4, lines);
+        final List<LogRecord> expected = new ArrayList<>();
+        lines.forEach(line -> LogParser.parse(line).ifPresent(expected::add));
+        assertEquals(expected, records);
+        assertEquals(batches.get(), events.get());
+    }
+
+    @Test
+    void awaitAppliedShouldWaitForTheLinesStillInABatch() throws IOException, InterruptedException {
+        final List<String> lines = readAccessLog();
+        for (int parserThreads : new int[]{1, 4}) {
+            records.clear();
+            // the batch of all the lines waits for its max latency before it is added
+            final LogPipeline logPipeline = new LogPipeline(1000, 1000, 200L, parserThreads,
+                    new RecordingRepository(), new EventBus());
+            logPipeline.initialize();
+            try {
+                lines.forEach(logPipeline::offer);
+                assertTrue(logPipeline.awaitApplied(5000L));
+                assertEquals(511, records.size());
+            } finally {
+                logPipeline.close();
+            }
+        }
+    }
+
+    private void runPipeline(int parserThreads, List<String> lines) {
+        final EventBus eventBus = new EventBus();
+        eventBus.register(this);
+        final LogPipeline logPipeline = new LogPipeline(1000, batchSize, 10L, parserThreads,
+                new RecordingRepository(), eventBus);
+        logPipeline.initialize();
+        lines.forEach(logPipeline::offer);
+        //closing the pipeline flushes all the queued lines.
+        logPipeline.close();
+    }
+
+    private List<String> readAccessLog() throws IOException {
+        final List<String> lines = new ArrayList<>();
+        try (BufferedReader br = new BufferedReader(
+                new InputStreamReader(LogPipelineTest.class.getResourceAsStream("/access.log")))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                lines.add(line);
+            }
+        }
+        return lines;
+    }
+
+    private class RecordingRepository implements StatisticsRepository {
+
+        @Override
+        public void addRecord(LogRecord record) {
+            records.add(record);
+        }
+
+        @Override
+        public void addRecords(List<LogRecord> logRecords) {
+            records.addAll(logRecords);
+            batches.incrementAndGet();
+        }
+
+        @Override
+        public AggregatedStatistics getAggregatedStatics(int timeRangeInSec) {
+            return new AggregatedStatistics(timeRangeInSec);
+        }
+
+        @Override
+        public AggregatedStatistics getAggregatedStatics(long fromEpochSecond, long toEpochSecond) {
+            return new AggregatedStatistics((int) (toEpochSecond - fromEpochSecond));
+        }
+
+        @Override
+        public Long getTotalRequests(int timeRangeInSec) {
+            return 0L;
+        }
+
+        @Override
+        public List<Statistic> snapshot() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public int restore(List<Statistic> statistics) {
+            return 0;
+        }
+
+        @Override
+        public long getDroppedLateRecords() {
+            return 0L;
+        }
+
+        @Override
+        public long getDroppedFutureRecords() {
+            return 0L;
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.datadog.task.controller;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
@@ -8,7 +10,24 @@ import static org.mockito.Mockito.verify;
 import com.datadog.task.model.LogRecord;
 import com.datadog.task.storage.StatisticsRepository;
 import com.google.common.eventbus.EventBus;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -34,6 +53,158 @@ class LogReaderTest {
         verify(statisticsRepository, times(511)).addRecord(any(LogRecord.class));
     }
 
+    @Test
+    void globShouldOnlyMatchTheFilesOfThePattern() throws IOException {
+        final Path directory = Files.createTempDirectory("reader");
+        for (String name : Arrays.asList("a.access.log", "b.access.log", "a.error.log", "vhost/c.access.log")) {
+            Files.createDirectories(directory.resolve(name).getParent());
+            Files.createFile(directory.resolve(name));
+        }
+        assertEquals(new HashSet<>(Arrays.asList(directory.resolve("a.access.log"), directory.resolve("b.access.log"))),
+                LogReader.resolve(Collections.singletonList(directory + "/*.access.log")));
+        assertEquals(
+                new HashSet<>(Arrays.asList(directory.resolve("vhost/c.access.log"), directory.resolve("none.log"))),
+                LogReader.resolve(Arrays.asList(directory + "/**/*.access.log", directory + "/none.log")));
+    }
+
+    @Test
+    void shouldFollowEveryFileMatchingTheGlob() throws IOException, InterruptedException {
+        final Path directory = Files.createTempDirectory("reader");
+        Files.write(directory.resolve("a.access.log"), Arrays.asList("a1", "a2"));
+        Files.write(directory.resolve("b.access.log"), Collections.singletonList("b1"));
+        final Queue<String> lines = new ConcurrentLinkedQueue<>();
+        final LogReader globReader = new LogReader(Collections.singletonList(directory + "/*.access.log"),
+                LogReader.NIO, lines::add, 2);
+        try {
+            globReader.initialize();
+            // a new file is picked up by the next scan
+            Files.write(directory.resolve("c.access.log"), Collections.singletonList("c1"));
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5L);
+            while (lines.size() < 4 && System.nanoTime() < deadline) {
+                TimeUnit.MILLISECONDS.sleep(10L);
+            }
+            assertEquals(new HashSet<>(Arrays.asList("a1", "a2", "b1", "c1")), new HashSet<>(lines));
+
+            globReader.updateFileStatuses();
+            final List<FileStatus> statuses = globReader.getFileStatuses();
+            assertEquals(3, statuses.size());
+            assertEquals(directory.resolve("a.access.log"), statuses.get(0).getPath());
+            assertEquals(2L, statuses.get(0).getLineNumber());
+            assertEquals(6L, statuses.get(0).getByteNumber());
+            assertEquals(0L, statuses.get(0).getLagInBytes());
+        } finally {
+            globReader.close();
+        }
+    }
+
+    @Test
+    void shouldStopFollowingAFileWhichNoLongerMatches() throws IOException, InterruptedException {
+        final Path directory = Files.createTempDirectory("reader");
+        Files.write(directory.resolve("a.access.log"), Arrays.asList("a1", "a2"));
+        Files.write(directory.resolve("b.access.log"), Collections.singletonList("b1"));
+        final Queue<String> lines = new ConcurrentLinkedQueue<>();
+        final LogReader globReader = new LogReader(Collections.singletonList(directory + "/*.access.log"),
+                LogReader.NIO, lines::add, 2);
+        try {
+            globReader.initialize();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5L);
+            while (lines.size() < 3 && System.nanoTime() < deadline) {
+                TimeUnit.MILLISECONDS.sleep(10L);
+            }
+            Files.delete(directory.resolve("b.access.log"));
+            // the file is dropped after it is missing from two scans
+            deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5L);
+            do {
+                TimeUnit.MILLISECONDS.sleep(100L);
+                globReader.updateFileStatuses();
+            } while (globReader.getFileStatuses().size() > 1 && System.nanoTime() < deadline);
+            assertEquals(1, globReader.getFileStatuses().size());
+            assertEquals(directory.resolve("a.access.log"), globReader.getFileStatuses().get(0).getPath());
+            // the lines of the dropped file are still counted
+            assertEquals(3L, globReader.getLineNumber());
+            assertEquals(9L, globReader.getByteNumber());
+        } finally {
+            globReader.close();
+        }
+    }
+
+    @Test
+    void shouldNotReadASegmentAgainWhenARotationRenamesIt() throws IOException, InterruptedException {
+        final Path directory = Files.createTempDirectory("reader");
+        final Path segment = directory.resolve("access.log.2.gz");
+        try (OutputStream outputStream = new GZIPOutputStream(Files.newOutputStream(segment))) {
+            outputStream.write("s1\ns2\n".getBytes(StandardCharsets.UTF_8));
+        }
+        // an archive whose compression is complete
+        Files.setLastModifiedTime(segment, FileTime.fromMillis(System.currentTimeMillis() - 60_000L));
+        final Queue<String> lines = new ConcurrentLinkedQueue<>();
+        final LogReader globReader = new LogReader(Collections.singletonList(directory + "/access.log.*.gz"),
+                LogReader.NIO, lines::add, 1);
+        try {
+            globReader.initialize();
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5L);
+            while (lines.size() < 2 && System.nanoTime() < deadline) {
+                TimeUnit.MILLISECONDS.sleep(10L);
+            }
+            Files.move(segment, directory.resolve("access.log.3.gz"));
+            // a few scans
+            TimeUnit.MILLISECONDS.sleep(2500L);
+            assertEquals(Arrays.asList("s1", "s2"), new ArrayList<>(lines));
+            assertEquals(Collections.singleton(directory.resolve("access.log.3.gz").toAbsolutePath()),
+                    globReader.captureCheckpoint(() -> { }).keySet());
+        } finally {
+            globReader.close();
+        }
+    }
+
+    @Test
+    void checkpointShouldOnlyCoverTheLinesApplied() throws IOException, InterruptedException {
+        final Path directory = Files.createTempDirectory("reader");
+        final Path file = directory.resolve("access.log");
+        Files.write(file, Arrays.asList("a1", "a2", "a3"));
+        final AtomicLong offered = new AtomicLong();
+        final AtomicLong applied = new AtomicLong();
+        // a handler which only applies the lines when it is told to
+        final LogLineHandler handler = new LogLineHandler() {
+            @Override
+            public void handle(String logLine) {
+                offered.incrementAndGet();
+            }
+
+            @Override
+            public long getOfferedLines() {
+                return offered.get();
+            }
+
+            @Override
+            public long getAppliedLines() {
+                return applied.get();
+            }
+        };
+        final LogReader checkpointReader = new LogReader(Collections.singletonList(file.toString()), LogReader.NIO,
+                handler, 1, new ReadCheckpoint(directory.resolve("access.log.checkpoint")));
+        try {
+            checkpointReader.initialize();
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5L);
+            while (offered.get() < 3 && System.nanoTime() < deadline) {
+                TimeUnit.MILLISECONDS.sleep(10L);
+            }
+            // the followers are not paused, the action runs at once
+            final AtomicInteger actions = new AtomicInteger();
+            assertFalse(checkpointReader.captureCheckpoint(actions::incrementAndGet).containsKey(
+                    file.toAbsolutePath()));
+            applied.set(2L);
+            assertFalse(checkpointReader.captureCheckpoint(actions::incrementAndGet).containsKey(
+                    file.toAbsolutePath()));
+            applied.set(3L);
+            final Map<Path, FileOffset> offsets = checkpointReader.captureCheckpoint(actions::incrementAndGet);
+            assertEquals(3, actions.get());
+            assertEquals(9L, offsets.get(file.toAbsolutePath()).getOffset());
+        } finally {
+            checkpointReader.close();
+        }
+    }
+
     @AfterEach
     void tearDown() {
         logReader.close();
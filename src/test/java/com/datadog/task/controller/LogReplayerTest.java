@@ -0,0 +1,62 @@
+package com.datadog.task.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.datadog.task.util.Config;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import org.junit.jupiter.api.Test;
+
+class LogReplayerTest {
+
+    // 12 requests within one second at 19:44:06
+    private static final String PROPERTIES = "statistics.interval.sec=3600\nalert.threshold.qps=1\n"
+            + "time.window.sec=10\n";
+
+    @Test
+    void shouldReplayTheWholeLogWithTheAlertTransitions() throws Exception {
+        final Config config = new Config(new ByteArrayInputStream(PROPERTIES.getBytes(StandardCharsets.UTF_8)));
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        final LogReplayer logReplayer = new LogReplayer(config, new PrintStream(output, true, "UTF-8"));
+        final Path accessLog = Paths.get(getClass().getResource("/access.log").toURI());
+
+        logReplayer.replay(accessLog);
+
+        final String printed = new String(output.toByteArray(), StandardCharsets.UTF_8);
+        assertEquals(511L, logReplayer.getRecordNumber());
+        // from 18:25:11 to 06:23:27 the next day, one report every full hour and the last one
+        assertEquals(11L + 1L, logReplayer.getReportNumber());
+        assertTrue(printed.contains("High traffic generated an alert"));
+        assertTrue(printed.contains("High traffic alert recovered"));
+        assertTrue(printed.indexOf("High traffic generated an alert")
+                < printed.indexOf("High traffic alert recovered"));
+    }
+
+    @Test
+    void shouldReplayTheRotatedSegmentsInOrder() throws Exception {
+        final List<String> lines = Files.readAllLines(Paths.get(getClass().getResource("/access.log").toURI()));
+        final Path directory = Files.createTempDirectory("replay");
+        try (OutputStream outputStream = new GZIPOutputStream(
+                Files.newOutputStream(directory.resolve("access.log.2.gz")))) {
+            outputStream.write(String.join("\n", lines.subList(0, 200)).getBytes(StandardCharsets.UTF_8));
+        }
+        Files.write(directory.resolve("access.log.1"), lines.subList(200, 400));
+        Files.write(directory.resolve("access.log"), lines.subList(400, lines.size()));
+        final Config config = new Config(new ByteArrayInputStream(PROPERTIES.getBytes(StandardCharsets.UTF_8)));
+        final LogReplayer logReplayer = new LogReplayer(config, new PrintStream(new ByteArrayOutputStream()));
+
+        logReplayer.replay(directory.resolve("access.log"));
+
+        assertEquals(511L, logReplayer.getRecordNumber());
+        assertEquals(11L + 1L, logReplayer.getReportNumber());
+    }
+}
@@ -0,0 +1,84 @@
+package com.datadog.task.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.google.common.base.Strings;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class LogSegmentReaderTest {
+
+    private final List<String> lines = new ArrayList<>();
+
+    private Path directory;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("segments");
+    }
+
+    @Test
+    void shouldSplitLinesLongerThanTheBuffer() throws IOException {
+        final String content = "first\r\n\nsecond line which is longer than the buffer\nlast";
+        final long lineNumber = LogSegmentReader.read(
+                new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), lines::add, 4);
+        assertEquals(3L, lineNumber);
+        assertEquals(Arrays.asList("first", "second line which is longer than the buffer", "last"), lines);
+    }
+
+    @Test
+    void shouldDropTheWholeLineLongerThanTheMaxBufferSize() throws IOException {
+        final String content = "first\n" + Strings.repeat("x", 40) + "\nnext\n" + Strings.repeat("y", 40);
+        final long lineNumber = LogSegmentReader.read(
+                new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), lines::add, 16, 32);
+        assertEquals(2L, lineNumber);
+        assertEquals(Arrays.asList("first", "next"), lines);
+    }
+
+    @Test
+    void shouldDecompressGzipSegments() throws IOException {
+        final Path segment = directory.resolve("access.log.1.gz");
+        // two gzip members, like a segment compressed again after being appended to
+        try (OutputStream outputStream = Files.newOutputStream(segment)) {
+            for (String member : Arrays.asList("a\nb\n", "c\nd")) {
+                final GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream);
+                gzipOutputStream.write(member.getBytes(StandardCharsets.UTF_8));
+                gzipOutputStream.finish();
+            }
+        }
+        assertEquals(4L, LogSegmentReader.read(segment, lines::add, 16));
+        assertEquals(Arrays.asList("a", "b", "c", "d"), lines);
+    }
+
+    @Test
+    void shouldRejectZstdSegments() throws IOException {
+        final Path segment = directory.resolve("access.log.1.zst");
+        Files.write(segment, new byte[]{(byte) 0x28, (byte) 0xb5, (byte) 0x2f, (byte) 0xfd, 0});
+        assertThrows(IOException.class, () -> LogSegmentReader.read(segment, lines::add, 16));
+    }
+
+    @Test
+    void rotationChainShouldStartFromTheOldestSegment() throws IOException {
+        for (String name : Arrays.asList("access.log", "access.log.1", "access.log.2.gz", "access.log.10.gz",
+                "access.log-20200102.gz", "access.log-20200101", "access.log.bak", "error.log.1")) {
+            Files.createFile(directory.resolve(name));
+        }
+        final List<Path> expected = new ArrayList<>();
+        for (String name : Arrays.asList("access.log-20200101", "access.log-20200102.gz", "access.log.10.gz",
+                "access.log.2.gz", "access.log.1", "access.log")) {
+            expected.add(directory.resolve(name).toAbsolutePath());
+        }
+        assertEquals(expected, LogSegmentReader.rotationChain(directory.resolve("access.log")));
+    }
+}
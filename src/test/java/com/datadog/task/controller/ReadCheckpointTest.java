@@ -0,0 +1,46 @@
+package com.datadog.task.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ReadCheckpointTest {
+
+    private Path directory;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("checkpoint");
+    }
+
+    @Test
+    void shouldLoadTheOffsetsSaved() throws IOException {
+        final ReadCheckpoint checkpoint = new ReadCheckpoint(directory.resolve("access.log.checkpoint"));
+        assertTrue(checkpoint.load().isEmpty());
+        final Map<Path, FileOffset> offsets = new HashMap<>();
+        offsets.put(Paths.get("/var/log/nginx/access log=1"), new FileOffset("(dev=803,ino=1234)", 42L));
+        offsets.put(Paths.get("/var/log/nginx/error.log"), new FileOffset(null, 7L));
+        checkpoint.save(offsets);
+        offsets.put(Paths.get("/var/log/nginx/error.log"), new FileOffset(null, 8L));
+        checkpoint.save(offsets);
+        assertEquals(offsets, checkpoint.load());
+        assertFalse(Files.exists(directory.resolve("access.log.checkpoint.tmp")));
+    }
+
+    @Test
+    void shouldMatchTheSameFileOnly() {
+        final FileOffset offset = new FileOffset("(dev=803,ino=1234)", 42L);
+        assertTrue(offset.matches("(dev=803,ino=1234)", 42L));
+        assertFalse(offset.matches("(dev=803,ino=1234)", 41L));
+        assertFalse(offset.matches("(dev=803,ino=5678)", 100L));
+    }
+}
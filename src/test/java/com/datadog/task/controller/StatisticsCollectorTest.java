@@ -1,5 +1,9 @@
 package com.datadog.task.controller;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -36,6 +40,25 @@ public class StatisticsCollectorTest {
         assertTrue(message.contains(String.valueOf(requestNumber)));
     }
 
+    @Test
+    void collectShouldPublishANewGenerationFormattedOnlyWhenAsked() {
+        //given
+        final StatisticsCollector collector = new StatisticsCollector(timeRangeInSec, 5, statisticsRepository);
+        AggregatedStatistics aggregatedStatistics = new AggregatedStatistics(timeRangeInSec);
+        aggregatedStatistics.increaseRequests(42L);
+        when(statisticsRepository.getAggregatedStatics(timeRangeInSec)).thenReturn(aggregatedStatistics);
+        assertNull(collector.getStatisticsMessage());
+        //when
+        collector.collect();
+        final String message = collector.getStatisticsMessage();
+        collector.collect();
+        //then
+        assertEquals(2L, collector.getStatisticsSnapshot().getGeneration());
+        assertEquals(42L, collector.getStatisticsSnapshot().getTotalRequests());
+        assertNotSame(message, collector.getStatisticsMessage());
+        assertSame(collector.getStatisticsMessage(), collector.getStatisticsMessage());
+    }
+
     @AfterEach
     void tearDown() {
         statisticsCollector.close();
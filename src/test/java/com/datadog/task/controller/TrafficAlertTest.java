@@ -9,9 +9,17 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 import com.datadog.task.model.AggregatedStatistics;
+import com.datadog.task.model.AlertEvent;
 import com.datadog.task.model.NewLogReceivedEvent;
 import com.datadog.task.storage.StatisticsRepository;
-import java.util.concurrent.TimeUnit;
+import com.datadog.task.util.SimulatedClock;
+import com.google.common.eventbus.Subscribe;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -22,12 +30,14 @@ class TrafficAlertTest {
     final int timeWindowInSec = 10;
     private TrafficAlert trafficAlert;
     private StatisticsRepository statisticsRepository;
+    private SimulatedClock clock;
 
     @BeforeEach
     void setUp() {
         statisticsRepository = mock(StatisticsRepository.class);
-        trafficAlert = new TrafficAlert(thresholdPerSec, timeWindowInSec, statisticsRepository);
-        trafficAlert.initialize();
+        clock = new SimulatedClock(Instant.parse("2020-01-01T00:00:00Z"));
+        // not initialized, the tests run the ticks of the scheduler themselves
+        trafficAlert = new TrafficAlert(thresholdPerSec, timeWindowInSec, statisticsRepository, clock);
     }
 
     @Test
@@ -58,6 +68,8 @@ class TrafficAlertTest {
         assertTrue(trafficAlert.inAlert());
         String alertMessage = trafficAlert.getAlertMessage();
         assertNotNull(alertMessage);
+        assertTrue(alertMessage.endsWith(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")
+                .withZone(ZoneId.systemDefault()).format(clock.instant())));
 
         //when receive another new message, the alert message should not change
         trafficAlert.checkTraffic(new NewLogReceivedEvent());
@@ -67,7 +79,7 @@ class TrafficAlertTest {
     }
 
     @Test
-    void trafficAlertShouldEndWhenTrafficDrops() throws InterruptedException {
+    void trafficAlertShouldEndWhenTrafficDrops() {
         //given
         long highTraffic = (long) thresholdPerSec * timeWindowInSec;
         when(statisticsRepository.getTotalRequests(timeWindowInSec))
@@ -78,11 +90,41 @@ class TrafficAlertTest {
 
         assertTrue(trafficAlert.inAlert());
 
-        //give the background sometime to reset the alert
-        TimeUnit.SECONDS.sleep(2L);
+        //the next tick of the scheduler resets the alert
+        trafficAlert.checkRecovery();
         assertFalse(trafficAlert.inAlert());
     }
 
+    @Test
+    void everyTransitionShouldBePostedWithItsOwnTime() {
+        //given
+        long highTraffic = (long) thresholdPerSec * timeWindowInSec;
+        when(statisticsRepository.getTotalRequests(timeWindowInSec))
+                .thenReturn(highTraffic, highTraffic - 1L);
+        final List<AlertEvent> events = new ArrayList<>();
+        trafficAlert.register(new Object() {
+            @Subscribe
+            public void onAlert(AlertEvent event) {
+                events.add(event);
+            }
+        });
+
+        //when the alert fires and recovers a second later
+        final Instant firedTime = clock.instant();
+        trafficAlert.checkTraffic(new NewLogReceivedEvent());
+        clock.advance(Duration.ofSeconds(1L));
+        trafficAlert.checkRecovery();
+
+        //then
+        assertEquals(2, events.size());
+        assertTrue(events.get(0).isActive());
+        assertEquals(firedTime, events.get(0).getTime());
+        assertEquals(trafficAlert.getAlertMessage(), events.get(0).getMessage());
+        assertFalse(events.get(1).isActive());
+        assertEquals(firedTime.plusSeconds(1L), events.get(1).getTime());
+        assertTrue(events.get(1).getMessage().startsWith("High traffic alert recovered - hits = 99,"));
+    }
+
     @AfterEach
     void tearDown() {
         trafficAlert.close();
@@ -0,0 +1,19 @@
+package com.datadog.task.http;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+class JsonWriterTest {
+
+    @Test
+    void writerShouldSeparateMembersAndEscapeStrings() {
+        final String json = new JsonWriter().beginObject()
+                .name("a").value(1)
+                .name("b").beginArray().value("x\"\n").value(true).beginObject().endObject().endArray()
+                .name("c").value(Double.NaN)
+                .name("d").value((String) null)
+                .endObject().toString();
+        assertEquals("{\"a\":1,\"b\":[\"x\\\"\\n\",true,{}],\"c\":null,\"d\":null}", json);
+    }
+}
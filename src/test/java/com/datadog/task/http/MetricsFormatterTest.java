@@ -0,0 +1,67 @@
+package com.datadog.task.http;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.datadog.task.metrics.MetricsRegistry;
+import com.datadog.task.model.AggregatedStatistics;
+import com.datadog.task.model.StatisticsSnapshot;
+import java.time.Instant;
+import org.junit.jupiter.api.Test;
+
+class MetricsFormatterTest {
+
+    private static StatisticsSnapshot snapshot() {
+        final AggregatedStatistics statistics = new AggregatedStatistics(10);
+        statistics.increaseRequests(3);
+        statistics.getSectionCounter().increase("/api");
+        statistics.getSectionCounter().increase("/api");
+        statistics.getSectionCounter().increase("/\"quoted\"");
+        statistics.getClientIpCounter().increase("127.0.0.1");
+        statistics.getAuthCounter().increase("frank");
+        return StatisticsSnapshot.of(7L, Instant.ofEpochSecond(1000), 10, statistics, 10, 1, 2);
+    }
+
+    @Test
+    void prometheusShouldExposeTheStatisticsAndTheMonitorMetrics() {
+        final MetricsRegistry metrics = new MetricsRegistry();
+        metrics.counter(MetricsRegistry.LINES_PARSED).add(5);
+        metrics.counter(MetricsRegistry.LINES_READ, () -> 9L);
+        metrics.gauge(MetricsRegistry.LAG_IN_BYTES, () -> 42L);
+        metrics.histogram(MetricsRegistry.PARSE_LATENCY).record(1000);
+        final String text = MetricsFormatter.toPrometheus(snapshot(), true, metrics);
+        assertTrue(text.contains("http_traffic_alert_active 1\n"));
+        assertTrue(text.contains("http_traffic_report_generation 7\n"));
+        assertTrue(text.contains("http_traffic_report_requests 3\n"));
+        assertTrue(text.contains("http_traffic_top_section_hits{section=\"/api\"} 2\n"));
+        assertTrue(text.contains("http_traffic_top_section_hits{section=\"/\\\"quoted\\\"\"} 1\n"));
+        assertTrue(text.contains("http_traffic_dropped_records_total{reason=\"future\"} 2\n"));
+        assertTrue(text.contains("# TYPE http_traffic_monitor_parse_success_total counter\n"));
+        assertTrue(text.contains("http_traffic_monitor_parse_success_total 5\n"));
+        assertTrue(text.contains("# TYPE http_traffic_monitor_reader_lines_total counter\n"));
+        assertTrue(text.contains("http_traffic_monitor_reader_lines_total 9\n"));
+        assertTrue(text.contains("# TYPE http_traffic_monitor_reader_lag_bytes gauge\n"));
+        assertTrue(text.contains("http_traffic_monitor_reader_lag_bytes 42\n"));
+        assertTrue(text.contains("http_traffic_monitor_parse_seconds_count 1\n"));
+    }
+
+    @Test
+    void prometheusShouldOnlyExposeTheAlertBeforeTheFirstReport() {
+        final String text = MetricsFormatter.toPrometheus(null, false, new MetricsRegistry());
+        assertEquals("# HELP http_traffic_alert_active Whether the high traffic alert is on.\n"
+                + "# TYPE http_traffic_alert_active gauge\n"
+                + "http_traffic_alert_active 0\n", text);
+    }
+
+    @Test
+    void jsonShouldBeOneObject() {
+        final String json = MetricsFormatter.toJson(snapshot(), false, "a \"message\"", new MetricsRegistry());
+        assertTrue(json.startsWith("{\"alert\":{\"active\":false,\"message\":\"a \\\"message\\\"\"},"));
+        assertTrue(json.contains("\"generation\":7,"));
+        assertTrue(json.contains("\"windowStart\":\"1970-01-01T00:16:30Z\",\"windowEnd\":\"1970-01-01T00:16:40Z\""));
+        assertTrue(json.contains("\"totalRequests\":3,"));
+        assertTrue(json.contains("\"topSections\":{\"errorBound\":0,\"items\":[{\"item\":\"/api\",\"hits\":2},"));
+        assertTrue(json.contains("\"droppedRecords\":{\"late\":1,\"future\":2}"));
+        assertTrue(json.endsWith(",\"metrics\":{},\"latencies\":{}}"));
+    }
+}
@@ -0,0 +1,56 @@
+package com.datadog.task.http;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.datadog.task.controller.HttpTrafficLogMonitor;
+import com.datadog.task.util.Config;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+class MetricsHttpServerTest {
+
+    @Test
+    void serverShouldServeTheMetricsOnGetOnly() throws Exception {
+        final Config config = new Config(new ByteArrayInputStream(
+                "logfile.path=/tmp/metrics-http-server-test.log\n".getBytes(StandardCharsets.UTF_8)));
+        final HttpTrafficLogMonitor httpTrafficLogMonitor = new HttpTrafficLogMonitor(config);
+        try (MetricsHttpServer server = new MetricsHttpServer("127.0.0.1", 0, httpTrafficLogMonitor)) {
+            server.start();
+            final String base = "http://127.0.0.1:" + server.getPort();
+
+            final HttpURLConnection prometheus = (HttpURLConnection) new URL(base + "/metrics").openConnection();
+            assertEquals(200, prometheus.getResponseCode());
+            assertTrue(prometheus.getContentType().startsWith("text/plain; version=0.0.4"));
+            assertTrue(read(prometheus.getInputStream()).contains("http_traffic_alert_active 0\n"));
+
+            final HttpURLConnection json = (HttpURLConnection) new URL(base + "/metrics.json").openConnection();
+            assertEquals(200, json.getResponseCode());
+            assertTrue(read(json.getInputStream()).startsWith("{\"alert\":{\"active\":false,"));
+
+            final HttpURLConnection post = (HttpURLConnection) new URL(base + "/metrics").openConnection();
+            post.setRequestMethod("POST");
+            assertEquals(405, post.getResponseCode());
+
+            final HttpURLConnection unknown = (HttpURLConnection) new URL(base + "/metrics/x").openConnection();
+            assertEquals(404, unknown.getResponseCode());
+        }
+    }
+
+    private static String read(InputStream inputStream) throws Exception {
+        try (InputStream in = inputStream) {
+            final ByteArrayOutputStream output = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[4096];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                output.write(buffer, 0, read);
+            }
+            return new String(output.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.datadog.task.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class LatencyHistogramTest {
+
+    @Test
+    void everyValueShouldFallIntoABucketWhichHoldsIt() {
+        for (long value : new long[]{0L, 1L, 7L, 8L, 9L, 15L, 16L, 17L, 1000L, 123_456_789L, Long.MAX_VALUE}) {
+            final int index = LatencyHistogram.bucketIndex(value);
+            assertTrue(value <= LatencyHistogram.bucketUpperBound(index), "upper bound of " + value);
+            assertTrue(index == 0 || value > LatencyHistogram.bucketUpperBound(index - 1), "lower bound of " + value);
+        }
+    }
+
+    @Test
+    void percentilesShouldBeWithinTheBucketPrecision() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1L; value <= 10_000L; value++) {
+            histogram.record(value * 1000L);
+        }
+        final LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(10_000L, snapshot.getCount());
+        assertEquals(5000.5, snapshot.getMeanInMicros(), 0.001);
+        for (double percentile : new double[]{50.0, 99.0, 99.9, 100.0}) {
+            final double expected = percentile * 100_000.0;
+            final long actual = snapshot.getValueAtPercentile(percentile);
+            assertTrue(actual >= expected && actual <= expected * 1.125, percentile + ": " + actual);
+        }
+        assertEquals(snapshot.getValueAtPercentile(100.0), snapshot.getMax());
+    }
+}
@@ -0,0 +1,32 @@
+package com.datadog.task.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import org.junit.jupiter.api.Test;
+
+class MetricsRegistryTest {
+
+    @Test
+    void registryShouldReturnTheSameMetricForTheSameName() {
+        final MetricsRegistry metrics = new MetricsRegistry();
+        final InstrumentedLogParser parser = new InstrumentedLogParser(metrics);
+        parser.parse("not an access log line");
+        metrics.counter(MetricsRegistry.PARSE_FAILURES).increment();
+        metrics.gauge(MetricsRegistry.LAG_IN_BYTES, () -> 42L);
+        assertEquals(2L, metrics.getValues().get(MetricsRegistry.PARSE_FAILURES));
+        assertEquals(0L, metrics.getValues().get(MetricsRegistry.LINES_PARSED));
+        assertEquals(42L, metrics.getValues().get(MetricsRegistry.LAG_IN_BYTES));
+        assertEquals(1L, metrics.getHistograms().get(MetricsRegistry.PARSE_LATENCY).getCount());
+    }
+
+    @Test
+    void aTotalReadWhenShownShouldBeACounter() {
+        final MetricsRegistry metrics = new MetricsRegistry();
+        metrics.counter(MetricsRegistry.LINES_READ, () -> 7L);
+        metrics.gauge(MetricsRegistry.LAG_IN_BYTES, () -> 42L);
+        assertEquals(7L, metrics.getCounterValues().get(MetricsRegistry.LINES_READ));
+        assertFalse(metrics.getGaugeValues().containsKey(MetricsRegistry.LINES_READ));
+        assertEquals(7L, metrics.getValues().get(MetricsRegistry.LINES_READ));
+    }
+}
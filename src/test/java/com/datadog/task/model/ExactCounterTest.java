@@ -0,0 +1,94 @@
+package com.datadog.task.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+class ExactCounterTest {
+
+    @Test
+    void increaseShouldCountEveryItem() {
+        final Counter counter = new ExactCounter();
+        final Map<String, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            final String item = "/section" + i % 37;
+            counter.increase(item);
+            expected.merge(item, 1, Integer::sum);
+        }
+        counter.increase(null);
+        assertEquals(expected, counter.getAllItemCounts());
+    }
+
+    @Test
+    void mergeShouldWorkWithSharedAndSeparateDictionaries() {
+        final StringDictionary dictionary = new StringDictionary();
+        final Counter shared = new ExactCounter(dictionary);
+        final Counter separate = new ExactCounter();
+        for (String item : Arrays.asList("b", "a", "b", "c")) {
+            shared.increase(item);
+            separate.increase(item);
+        }
+        final Counter merged = new ExactCounter(dictionary);
+        merged.increase("a");
+        merged.merge(shared);
+        merged.merge(separate);
+        final Map<String, Integer> expected = new HashMap<>();
+        expected.put("a", 3);
+        expected.put("b", 4);
+        expected.put("c", 2);
+        assertEquals(expected, merged.getAllItemCounts());
+    }
+
+    @Test
+    void subtractShouldRemoveTheItemsWhichDropToZero() {
+        final StringDictionary dictionary = new StringDictionary();
+        final ExactCounter total = new ExactCounter(dictionary);
+        final ExactCounter[] parts = new ExactCounter[]{new ExactCounter(dictionary), new ExactCounter(dictionary)};
+        for (int i = 0; i < 1000; i++) {
+            parts[i % 2].increase("10.0.0." + i % 300);
+        }
+        total.merge(parts[0]);
+        total.merge(parts[1]);
+        total.subtract(parts[0]);
+        assertEquals(parts[1].getAllItemCounts(), total.getAllItemCounts());
+        total.subtract(parts[1]);
+        assertEquals(0, total.getAllItemCounts().size());
+        assertEquals(0, total.topK(5).size());
+    }
+
+    @Test
+    void topKShouldSortByCountThenByName() {
+        final Counter counter = new ExactCounter();
+        for (String item : Arrays.asList("d", "c", "b", "a", "e", "e", "c", "b", "f", "f", "f")) {
+            counter.increase(item);
+        }
+        assertEquals(Arrays.<Entry<String, Integer>>asList(new SimpleImmutableEntry<>("f", 3),
+                new SimpleImmutableEntry<>("b", 2), new SimpleImmutableEntry<>("c", 2),
+                new SimpleImmutableEntry<>("e", 2), new SimpleImmutableEntry<>("a", 1)), counter.topK(5));
+        assertEquals(6, counter.topK(10).size());
+        assertEquals(0, counter.topK(0).size());
+    }
+
+    @Test
+    void topKShouldAgreeWithAFullSort() {
+        final Counter counter = new ExactCounter();
+        final Random random = new Random(42L);
+        for (int i = 0; i < 10000; i++) {
+            counter.increase("10.0.0." + (int) Math.abs(random.nextGaussian() * 50));
+        }
+        final List<Entry<String, Integer>> expected = counter.getAllItemCounts().entrySet().stream()
+                .sorted(Comparator.<Entry<String, Integer>, Integer>comparing(Entry::getValue).reversed()
+                        .thenComparing(Entry::getKey))
+                .limit(20).collect(Collectors.toList());
+        assertEquals(expected, counter.topK(20));
+    }
+}
@@ -0,0 +1,79 @@
+package com.datadog.task.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+class SpaceSavingCounterTest {
+
+    @Test
+    void shouldBeExactUnderTheCapacity() {
+        final Counter counter = new SpaceSavingCounter(10);
+        for (String item : Arrays.asList("d", "c", "b", "a", "e", "e", "c", "b", "f", "f", "f")) {
+            counter.increase(item);
+        }
+        assertEquals(0L, counter.getErrorBound());
+        assertEquals(Arrays.<Entry<String, Integer>>asList(new SimpleImmutableEntry<>("f", 3),
+                new SimpleImmutableEntry<>("b", 2), new SimpleImmutableEntry<>("c", 2)), counter.topK(3));
+    }
+
+    @Test
+    void shouldKeepTheHeavyHittersWithinTheErrorBound() {
+        final Counter counter = new SpaceSavingCounter(50);
+        final ExactCounter exact = new ExactCounter();
+        feed(new Random(7L), 100000, counter, exact);
+        assertEquals(50, counter.getAllItemCounts().size());
+        assertBounded(counter, exact);
+        assertEquals(items(exact.topK(5)), items(counter.topK(5)));
+    }
+
+    @Test
+    void mergedCountersShouldKeepTheHeavyHittersWithinTheErrorBound() {
+        final Counter merged = new SpaceSavingCounter(50);
+        final ExactCounter exact = new ExactCounter();
+        final Random random = new Random(11L);
+        for (int i = 0; i < 20; i++) {
+            final Counter counter = new SpaceSavingCounter(50);
+            feed(random, 5000, counter, exact);
+            merged.merge(counter);
+        }
+        assertTrue(merged.getAllItemCounts().size() <= 50);
+        assertBounded(merged, exact);
+        assertEquals(items(exact.topK(3)), items(merged.topK(3)));
+    }
+
+    private static void feed(Random random, int n, Counter counter, Counter exact) {
+        for (int i = 0; i < n; i++) {
+            // a few heavy hitters among a long tail of scanning clients
+            final String item = random.nextInt(4) == 0 ? "10.0.0." + random.nextInt(5)
+                    : "192.168." + random.nextInt(256) + "." + random.nextInt(256);
+            counter.increase(item);
+            exact.increase(item);
+        }
+    }
+
+    private static List<String> items(List<Entry<String, Integer>> entries) {
+        return entries.stream().map(Entry::getKey).collect(Collectors.toList());
+    }
+
+    private static void assertBounded(Counter counter, Counter exact) {
+        final long errorBound = counter.getErrorBound();
+        final Map<String, Integer> counts = counter.getAllItemCounts();
+        exact.getAllItemCounts().forEach((item, count) -> {
+            final Integer estimate = counts.get(item);
+            if (estimate == null) {
+                assertTrue(count <= errorBound, item);
+            } else {
+                assertTrue(estimate >= count && estimate - count <= errorBound, item);
+            }
+        });
+    }
+}
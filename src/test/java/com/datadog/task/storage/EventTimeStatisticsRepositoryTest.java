@@ -0,0 +1,161 @@
+package com.datadog.task.storage;
+
+import static com.datadog.task.TestUtil.randomLogRecordAt;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.datadog.task.model.Counter;
+import com.datadog.task.model.ExactCounterFactory;
+import com.datadog.task.model.LogRecord;
+import com.datadog.task.model.LogRecord.LogRecordBuilder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class EventTimeStatisticsRepositoryTest {
+
+    private final int windowSize = 60;
+
+    private final int allowedLateness = 5;
+
+    // a day long ago, replayed at full speed
+    private final long start = 1_500_000_000L;
+
+    private List<StatisticsRepository> createRepositories() {
+        return Arrays.asList(
+                new RingBufferStatisticsRepository(windowSize, Counter.newFactory(Counter.EXACT, 0), 0, false,
+                        WindowClock.eventTime(allowedLateness)),
+                new RingBufferStatisticsRepository(windowSize, Counter.newFactory(Counter.EXACT, 0), 10, false,
+                        WindowClock.eventTime(allowedLateness)),
+                new StripedStatisticsRepository(windowSize, Counter.newFactory(Counter.EXACT, 0), false,
+                        WindowClock.eventTime(allowedLateness)));
+    }
+
+    @Test
+    void replayedRecordsShouldSlideTheWindow() {
+        for (StatisticsRepository repository : createRepositories()) {
+            for (int i = 0; i < windowSize * 3; i++) {
+                repository.addRecord(randomLogRecordAt(start + i));
+            }
+            assertEquals(windowSize, repository.getTotalRequests(windowSize));
+            assertEquals(windowSize, repository.getAggregatedStatics(windowSize).getTotalRequest());
+            assertEquals(10L, repository.getAggregatedStatics(10).getTotalRequest());
+            assertEquals(0L, repository.getDroppedLateRecords());
+            assertEquals(0L, repository.getDroppedFutureRecords());
+        }
+    }
+
+    @Test
+    void emptyRepositoryShouldBeQueriedBeforeTheFirstRecord() {
+        for (StatisticsRepository repository : createRepositories()) {
+            assertEquals(0L, repository.getTotalRequests(windowSize));
+            assertEquals(0L, repository.getAggregatedStatics(10).getTotalRequest());
+            repository.addRecord(randomLogRecordAt(start));
+            assertEquals(1L, repository.getAggregatedStatics(10).getTotalRequest());
+        }
+    }
+
+    @Test
+    void dictionaryShouldStayBoundedAsItemsLeaveTheWindow() {
+        final List<ExactCounterFactory> factories = new ArrayList<>();
+        final List<StatisticsRepository> repositories = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            factories.add(new ExactCounterFactory(100));
+        }
+        repositories.add(new RingBufferStatisticsRepository(windowSize, factories.get(0), 0, false,
+                WindowClock.eventTime(allowedLateness)));
+        repositories.add(new RingBufferStatisticsRepository(windowSize, factories.get(1), 10, false,
+                WindowClock.eventTime(allowedLateness)));
+        repositories.add(new RingBufferStatisticsRepository(windowSize, factories.get(2), 0, true,
+                WindowClock.eventTime(allowedLateness)));
+        repositories.add(new StripedStatisticsRepository(windowSize, factories.get(3), false,
+                WindowClock.eventTime(allowedLateness)));
+        // a new client IP for every record, 10 records per second for 100 windows
+        final int recordsPerSecond = 10;
+        for (int second = 0; second < windowSize * 100; second++) {
+            for (int i = 0; i < recordsPerSecond; i++) {
+                final LogRecord record = LogRecordBuilder.aLogRecord().withTimestamp(start + second)
+                        .withSection("/api").withAuth("-").withClientIp("10.0." + second + "." + i).build();
+                repositories.forEach(repository -> repository.addRecord(record));
+            }
+            // the collector reports every 10 seconds, the striped repository only expires on queries
+            if (second % 10 == 0) {
+                repositories.forEach(repository -> repository.getAggregatedStatics(10));
+            }
+        }
+        final int liveItems = (windowSize + allowedLateness) * recordsPerSecond + 2;
+        for (int i = 0; i < repositories.size(); i++) {
+            // the tiers keep every item of the last week, they are only re-encoded
+            if (i != 2) {
+                final int dictionarySize = factories.get(i).getDictionarySize();
+                assertTrue(dictionarySize <= 4 * liveItems, "dictionary size " + dictionarySize);
+            }
+            assertEquals(windowSize * recordsPerSecond,
+                    repositories.get(i).getAggregatedStatics(windowSize).getClientIpCounter().getAllItemCounts()
+                            .size());
+            assertEquals(recordsPerSecond, repositories.get(i).getAggregatedStatics(10).getClientIpCounter()
+                    .topK(100).stream().filter(entry -> entry.getKey().startsWith(
+                            "10.0." + (windowSize * 100 - 1) + ".")).count());
+        }
+    }
+
+    @Test
+    void recordsWithinTheAllowedLatenessShouldBeAccepted() {
+        for (StatisticsRepository repository : createRepositories()) {
+            final long last = start + windowSize * 2;
+            repository.addRecord(randomLogRecordAt(last));
+            // the first second of the window, and the oldest second kept open for the late records
+            repository.addRecord(randomLogRecordAt(last - windowSize + 1));
+            repository.addRecord(randomLogRecordAt(last - windowSize - allowedLateness + 1));
+            // already retired
+            repository.addRecord(randomLogRecordAt(last - windowSize - allowedLateness));
+            repository.addRecord(randomLogRecordAt(start));
+            assertEquals(2L, repository.getTotalRequests(windowSize));
+            assertEquals(2L, repository.getAggregatedStatics(windowSize).getTotalRequest());
+            assertEquals(1L, repository.getAggregatedStatics(last - windowSize - allowedLateness, last - windowSize + 1)
+                    .getTotalRequest());
+            assertEquals(2L, repository.getDroppedLateRecords());
+        }
+    }
+
+    @Test
+    void windowTotalShouldNotCountTheSecondsKeptForTheLateRecords() {
+        for (StatisticsRepository repository : createRepositories()) {
+            for (int i = 0; i < windowSize * 3; i++) {
+                repository.addRecord(randomLogRecordAt(start + i));
+                // late, only the first one is still inside the window
+                repository.addRecord(randomLogRecordAt(start + i - windowSize + 1));
+                repository.addRecord(randomLogRecordAt(start + i - windowSize - allowedLateness + 1));
+                assertEquals(repository.getAggregatedStatics(windowSize).getTotalRequest(),
+                        repository.getTotalRequests(windowSize).longValue(), "second " + i);
+            }
+            // the seconds of the window hold their own records, and the first one also a late record
+            assertEquals(windowSize + 1L, repository.getTotalRequests(windowSize));
+            assertEquals(0L, repository.getDroppedLateRecords());
+        }
+    }
+
+    @Test
+    void batchesShouldBeTheSameAsAddingOneByOne() {
+        final List<LogRecord> records = new ArrayList<>();
+        for (int i = 0; i < windowSize * 3; i++) {
+            // out of order by up to 3 seconds, and one record much too late
+            records.add(randomLogRecordAt(start + i - (i % 4 == 0 ? 3 : 0)));
+        }
+        records.add(windowSize * 2, randomLogRecordAt(start));
+        final List<StatisticsRepository> batched = createRepositories();
+        final List<StatisticsRepository> oneByOne = createRepositories();
+        for (int i = 0; i < batched.size(); i++) {
+            for (int from = 0; from < records.size(); from += windowSize) {
+                batched.get(i).addRecords(records.subList(from, Math.min(records.size(), from + windowSize)));
+            }
+            records.forEach(oneByOne.get(i)::addRecord);
+            assertEquals(oneByOne.get(i).getTotalRequests(windowSize), batched.get(i).getTotalRequests(windowSize));
+            assertEquals(oneByOne.get(i).getAggregatedStatics(windowSize).getTotalRequest(),
+                    batched.get(i).getAggregatedStatics(windowSize).getTotalRequest());
+            assertEquals(1L, batched.get(i).getDroppedLateRecords());
+            assertEquals(1L, oneByOne.get(i).getDroppedLateRecords());
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.datadog.task.storage;
+
+import static com.datadog.task.TestUtil.randomLogRecordAt;
+import static com.datadog.task.TestUtil.randomLogRecordNSecondAgo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.datadog.task.model.AggregatedStatistics;
+import com.datadog.task.model.Counter;
+import com.datadog.task.model.LogRecord;
+import com.datadog.task.util.SimulatedClock;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class IncrementalRingBufferStatisticsRepositoryTest extends StatisticsRepositoryTest {
+
+    private final int aggregateRange = 10;
+
+    @Override
+    StatisticsRepository createRepository(int timeWindowLengthInSec, WindowClock clock) {
+        return new RingBufferStatisticsRepository(timeWindowLengthInSec,
+                Counter.newFactory(Counter.EXACT, 0), aggregateRange, false, clock);
+    }
+
+    @Test
+    void incrementalAggregateShouldBeTheSameAsMergingTheSlots() throws InterruptedException {
+        final StatisticsRepository merging = new RingBufferStatisticsRepository(windowSize);
+        for (int i = 0; i < aggregateRange * 3; i++) {
+            final LogRecord record = randomLogRecordNSecondAgo(i % (aggregateRange + 2));
+            window.addRecord(record);
+            merging.addRecord(record);
+        }
+        assertSameStatistics(merging.getAggregatedStatics(aggregateRange), window.getAggregatedStatics(aggregateRange));
+        // let the oldest aggregated second fall out of the range
+        TimeUnit.MILLISECONDS.sleep(1000L - Instant.now().toEpochMilli() % 1000L + 10L);
+        assertSameStatistics(merging.getAggregatedStatics(aggregateRange), window.getAggregatedStatics(aggregateRange));
+    }
+
+    @Test
+    void aggregateShouldForgetTheSecondsSkippedByAGapLongerThanTheWindow() {
+        final long start = 1_500_000_000L;
+        final SimulatedClock simulatedClock = new SimulatedClock(Instant.ofEpochSecond(start));
+        final List<StatisticsRepository> repositories = Arrays.asList(
+                createRepository(windowSize, WindowClock.eventTime(5)),
+                createRepository(windowSize, WindowClock.processingTime(simulatedClock)));
+        for (StatisticsRepository repository : repositories) {
+            for (int i = 0; i < 5; i++) {
+                repository.addRecord(randomLogRecordAt(start - i));
+            }
+        }
+        // an hour without any record, in event time and in processing time
+        simulatedClock.setEpochSecond(start + 3600L);
+        for (StatisticsRepository repository : repositories) {
+            repository.addRecord(randomLogRecordAt(start + 3600L));
+            assertEquals(1L, repository.getAggregatedStatics(aggregateRange).getTotalRequest());
+            assertEquals(1, repository.getAggregatedStatics(aggregateRange).getSectionCounter().getAllItemCounts()
+                    .size());
+        }
+    }
+
+    @Test
+    void aggregateShouldOnlyCopyTheTopKItems() {
+        final long start = 1_500_000_000L;
+        final StatisticsRepository merging = createRepository(windowSize, WindowClock.eventTime(0));
+        final StatisticsRepository topK = new RingBufferStatisticsRepository(windowSize,
+                Counter.newFactory(Counter.EXACT, 0), aggregateRange, false, WindowClock.eventTime(0), 3);
+        for (int i = 0; i < aggregateRange * 10; i++) {
+            final LogRecord record = randomLogRecordAt(start - i % aggregateRange);
+            merging.addRecord(record);
+            topK.addRecord(record);
+        }
+        final AggregatedStatistics expected = merging.getAggregatedStatics(aggregateRange);
+        final AggregatedStatistics actual = topK.getAggregatedStatics(aggregateRange);
+        assertEquals(expected.getTotalRequest(), actual.getTotalRequest());
+        assertEquals(expected.getSectionCounter().topK(3), actual.getSectionCounter().topK(5));
+        assertEquals(expected.getClientIpCounter().topK(3), actual.getClientIpCounter().topK(5));
+        assertEquals(expected.getAuthCounter().topK(3), actual.getAuthCounter().topK(5));
+    }
+
+    private static void assertSameStatistics(AggregatedStatistics expected, AggregatedStatistics actual) {
+        assertEquals(expected.getTotalRequest(), actual.getTotalRequest());
+        assertEquals(expected.getSectionCounter().getAllItemCounts(), actual.getSectionCounter().getAllItemCounts());
+        assertEquals(expected.getClientIpCounter().getAllItemCounts(), actual.getClientIpCounter().getAllItemCounts());
+        assertEquals(expected.getAuthCounter().getAllItemCounts(), actual.getAuthCounter().getAllItemCounts());
+    }
+}
@@ -1,23 +1,33 @@
 package com.datadog.task.storage;
 
 import static com.datadog.task.TestUtil.randomLogRecord;
+import static com.datadog.task.TestUtil.randomLogRecordAt;
 import static com.datadog.task.TestUtil.randomLogRecordNSecondAgo;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import com.datadog.task.model.AggregatedStatistics;
 import com.datadog.task.model.LogRecord;
+import com.datadog.task.model.Statistic;
+import com.datadog.task.util.SimulatedClock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
-class StatisticsRepositoryTest {
+abstract class StatisticsRepositoryTest {
 
-    private final int windowSize = 120;
-    private StatisticsRepository window;
+    final int windowSize = 120;
+    StatisticsRepository window;
+
+    abstract StatisticsRepository createRepository(int timeWindowLengthInSec, WindowClock clock);
 
     @BeforeEach
     void setUp() {
-        window = new StatisticsRepository(windowSize);
+        window = createRepository(windowSize, WindowClock.processingTime());
     }
 
     @Test
@@ -60,6 +70,68 @@ class StatisticsRepositoryTest {
         assertEquals(kSecond, aggregatedStatistics.getTotalRequest());
     }
 
+    @Test
+    void aggregatedStatisticsOfARangeShouldOnlyContainTheRange() {
+        final long now = Instant.now().getEpochSecond();
+        for (int i = 0; i < 10; i++) {
+            window.addRecord(randomLogRecordNSecondAgo(i));
+        }
+        assertEquals(3L, window.getAggregatedStatics(now - 5, now - 2).getTotalRequest());
+        assertEquals(10L, window.getAggregatedStatics(now - 1000, now + 1000).getTotalRequest());
+    }
+
+    @Test
+    void droppedRecordsShouldBeCounted() {
+        window.addRecord(randomLogRecordNSecondAgo(windowSize));
+        window.addRecord(randomLogRecordNSecondAgo(-100));
+        window.addRecords(Arrays.asList(randomLogRecordNSecondAgo(windowSize * 2),
+                randomLogRecordNSecondAgo(windowSize * 2), randomLogRecordNSecondAgo(0)));
+        assertEquals(3L, window.getDroppedLateRecords());
+        assertEquals(1L, window.getDroppedFutureRecords());
+    }
+
+    @Test
+    void windowShouldSlideWithTheSimulatedClock() {
+        final long start = 1_500_000_000L;
+        final SimulatedClock clock = new SimulatedClock(Instant.ofEpochSecond(start));
+        final StatisticsRepository repository = createRepository(windowSize, WindowClock.processingTime(clock));
+        repository.addRecord(randomLogRecordAt(start));
+        repository.addRecord(randomLogRecordAt(start + 1));
+        assertEquals(1L, repository.getTotalRequests(windowSize));
+        assertEquals(1L, repository.getDroppedFutureRecords());
+
+        clock.advance(Duration.ofSeconds(windowSize - 1));
+        repository.addRecord(randomLogRecordAt(start + 1));
+        assertEquals(2L, repository.getTotalRequests(windowSize));
+
+        clock.advance(Duration.ofSeconds(1));
+        assertEquals(1L, repository.getTotalRequests(windowSize));
+        assertEquals(1L, repository.getAggregatedStatics(windowSize).getTotalRequest());
+    }
+
+    @Test
+    void restoredSnapshotShouldOnlyKeepTheSecondsInsideTheWindow() {
+        final long start = 1_500_000_000L;
+        final SimulatedClock clock = new SimulatedClock(Instant.ofEpochSecond(start));
+        final StatisticsRepository repository = createRepository(windowSize, WindowClock.processingTime(clock));
+        final LogRecord logRecord = randomLogRecordAt(start - 5);
+        repository.addRecords(Arrays.asList(randomLogRecordAt(start - 10), randomLogRecordAt(start - 10), logRecord,
+                randomLogRecordAt(start)));
+        final List<Statistic> snapshot = repository.snapshot();
+        assertEquals(3, snapshot.size());
+        assertEquals(start, snapshot.get(0).getTimestamp());
+
+        clock.advance(Duration.ofSeconds(windowSize - 7));
+        final StatisticsRepository restored = createRepository(windowSize, WindowClock.processingTime(clock));
+        assertEquals(2, restored.restore(snapshot));
+        assertEquals(2L, restored.getTotalRequests(windowSize));
+        restored.addRecord(randomLogRecordAt(start - 5));
+        final AggregatedStatistics aggregatedStatistics = restored.getAggregatedStatics(windowSize);
+        assertEquals(3L, aggregatedStatistics.getTotalRequest());
+        assertTrue(aggregatedStatistics.getSectionCounter().getAllItemCounts().containsKey(logRecord.getSection()));
+        assertEquals(0L, restored.getDroppedLateRecords());
+    }
+
     @Test
     void slideWindowShouldOnlyContainsLastKSecondStatistics() {
         // add records number which is twice of window size
@@ -69,4 +141,47 @@ class StatisticsRepositoryTest {
         AggregatedStatistics aggregatedStatistics = window.getAggregatedStatics(windowSize);
         assertEquals(windowSize, aggregatedStatistics.getTotalRequest());
     }
-}
\ No newline at end of file
+
+    @Test
+    void totalRequestsOfTheWholeWindowShouldOnlyCountLastKSecond() {
+        // records from 0 to 2 * windowSize - 1 seconds ago, then from 2 * windowSize to 1 second ago
+        for (int i = 0; i < windowSize * 2; i++) {
+            window.addRecord(randomLogRecordNSecondAgo(i));
+            window.addRecord(randomLogRecordNSecondAgo(windowSize * 2 - i));
+        }
+        assertEquals(windowSize * 2 - 1, window.getTotalRequests(windowSize));
+        assertEquals(window.getAggregatedStatics(windowSize).getTotalRequest(), window.getTotalRequests(windowSize));
+    }
+
+    @Test
+    void addRecordsShouldBeTheSameAsAddingOneByOne() {
+        final List<LogRecord> records = new ArrayList<>();
+        for (int i = 0; i < windowSize * 2; i++) {
+            records.add(randomLogRecordNSecondAgo(i / 3));
+        }
+        records.add(null);
+        window.addRecords(records);
+        assertEquals(windowSize * 2, window.getTotalRequests(windowSize));
+        assertEquals(windowSize * 2, window.getAggregatedStatics(windowSize).getTotalRequest());
+    }
+
+    @Test
+    void concurrentWritersShouldNotLoseRecords() throws InterruptedException {
+        final int writers = 4;
+        final int recordsPerWriter = 10000;
+        final List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < writers; i++) {
+            threads.add(new Thread(() -> {
+                for (int j = 0; j < recordsPerWriter; j++) {
+                    window.addRecord(randomLogRecordNSecondAgo(j % 10 + 1));
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(writers * recordsPerWriter, window.getTotalRequests(windowSize));
+        assertEquals(writers * recordsPerWriter, window.getAggregatedStatics(windowSize).getTotalRequest());
+    }
+}
@@ -0,0 +1,12 @@
+package com.datadog.task.storage;
+
+import com.datadog.task.model.Counter;
+
+class StripedStatisticsRepositoryTest extends StatisticsRepositoryTest {
+
+    @Override
+    StatisticsRepository createRepository(int timeWindowLengthInSec, WindowClock clock) {
+        return new StripedStatisticsRepository(timeWindowLengthInSec, Counter.newFactory(Counter.EXACT, 0), false,
+                clock);
+    }
+}
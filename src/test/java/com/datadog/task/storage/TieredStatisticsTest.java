@@ -0,0 +1,57 @@
+package com.datadog.task.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.datadog.task.model.AggregatedStatistics;
+import com.datadog.task.model.Counter;
+import com.datadog.task.model.LogRecord.LogRecordBuilder;
+import com.datadog.task.model.Statistic;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class TieredStatisticsTest {
+
+    // an hour aligned second
+    private final long start = 1525881600L;
+
+    private final Supplier<Counter> counterFactory = Counter.newFactory(Counter.EXACT, 0);
+
+    private TieredStatistics tiers;
+
+    @BeforeEach
+    void setUp() {
+        tiers = new TieredStatistics(counterFactory);
+        // two hours of traffic, one request per second
+        for (long second = start; second < start + 7200; second++) {
+            final Statistic statistic = new Statistic(second, counterFactory);
+            statistic.update(LogRecordBuilder.aLogRecord().withTimestamp(second).withSection("/api")
+                    .withClientIp("10.0.0." + second % 3).withAuth("james").build());
+            tiers.seal(statistic);
+        }
+    }
+
+    @Test
+    void collectShouldMergeTheBucketsInTheRange() {
+        assertEquals(7200L, collect(start, start + 7200).getTotalRequest());
+        assertEquals(3600L, collect(start + 1800, start + 5400).getTotalRequest());
+        assertEquals(60L, collect(start + 7140, start + 7200).getTotalRequest());
+        final AggregatedStatistics lastHour = collect(start + 3600, start + 7200);
+        assertEquals(3600, lastHour.getSectionCounter().getAllItemCounts().get("/api"));
+        assertEquals(1200, lastHour.getClientIpCounter().getAllItemCounts().get("10.0.0.1"));
+    }
+
+    @Test
+    void collectShouldRoundTheBoundariesToTenSeconds() {
+        assertEquals(20L, collect(start + 3615, start + 3625).getTotalRequest());
+        // the 10 seconds buckets only cover the last hour
+        assertEquals(0L, collect(start + 15, start + 25).getTotalRequest());
+        assertEquals(0L, collect(start + 7200, start + 7300).getTotalRequest());
+    }
+
+    private AggregatedStatistics collect(long from, long to) {
+        final AggregatedStatistics aggregatedStatistics = new AggregatedStatistics((int) (to - from), counterFactory);
+        tiers.collect(from, to, aggregatedStatistics);
+        return aggregatedStatistics;
+    }
+}
@@ -0,0 +1,57 @@
+package com.datadog.task.storage;
+
+import static com.datadog.task.TestUtil.randomLogRecordNSecondAgo;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.datadog.task.model.AggregatedStatistics;
+import com.datadog.task.model.Counter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class WindowStateStoreTest {
+
+    private static final int WINDOW_SIZE = 120;
+
+    private WindowStateStore windowStateStore;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        windowStateStore = new WindowStateStore(Files.createTempDirectory("window").resolve("access.log.window"));
+    }
+
+    @Test
+    void restoredWindowShouldHaveTheSameStatistics() throws IOException {
+        final StatisticsRepository repository = new RingBufferStatisticsRepository(WINDOW_SIZE);
+        for (int i = 0; i < 100; i++) {
+            repository.addRecord(randomLogRecordNSecondAgo(i % 20));
+        }
+        assertEquals(20, windowStateStore.save(repository));
+
+        final StatisticsRepository restored = new StripedStatisticsRepository(WINDOW_SIZE,
+                Counter.newFactory(Counter.APPROXIMATE, 100));
+        assertEquals(20, windowStateStore.restore(restored));
+        final AggregatedStatistics expected = repository.getAggregatedStatics(WINDOW_SIZE);
+        final AggregatedStatistics actual = restored.getAggregatedStatics(WINDOW_SIZE);
+        assertEquals(expected.getTotalRequest(), actual.getTotalRequest());
+        assertEquals(expected.getSectionCounter().getAllItemCounts(), actual.getSectionCounter().getAllItemCounts());
+        assertEquals(expected.getClientIpCounter().getAllItemCounts(),
+                actual.getClientIpCounter().getAllItemCounts());
+        assertEquals(expected.getAuthCounter().getAllItemCounts(), actual.getAuthCounter().getAllItemCounts());
+    }
+
+    @Test
+    void missingSnapshotShouldRestoreNothing() throws IOException {
+        assertEquals(0, windowStateStore.restore(new RingBufferStatisticsRepository(WINDOW_SIZE)));
+    }
+
+    @Test
+    void shouldRejectAFileWhichIsNotASnapshot() throws IOException {
+        Files.write(windowStateStore.getPath(), "not a snapshot".getBytes(StandardCharsets.UTF_8));
+        assertThrows(IOException.class,
+                () -> windowStateStore.restore(new RingBufferStatisticsRepository(WINDOW_SIZE)));
+    }
+}
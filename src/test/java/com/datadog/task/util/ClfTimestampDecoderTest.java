@@ -0,0 +1,61 @@
+package com.datadog.task.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class ClfTimestampDecoderTest {
+
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("dd/MMM/yyyy:HH:mm:ss Z",
+            Locale.US);
+
+    private final ClfTimestampDecoder decoder = new ClfTimestampDecoder();
+
+    @Test
+    void decodeShouldReturnRightValue() {
+        assertEquals(1525881639L, decoder.decode("09/May/2018:16:00:39 +0000"));
+        assertEquals(1449941111L, decoder.decode("12/Dec/2015:18:25:11 +0100"));
+        assertEquals(1330518600L, decoder.decode("29/Feb/2012:07:00:00 -0530"));
+    }
+
+    @Test
+    void decodeShouldAgreeWithFormatter() {
+        final Random random = new Random(42L);
+        for (int i = 0; i < 10000; i++) {
+            final Instant instant = Instant.ofEpochSecond(random.nextInt(Integer.MAX_VALUE));
+            final ZoneOffset offset = ZoneOffset.ofTotalSeconds((random.nextInt(37) - 18) * 1800);
+            final String timestamp = FORMATTER.format(instant.atOffset(offset));
+            assertEquals(instant.getEpochSecond(), (long) decoder.decode(timestamp), timestamp);
+        }
+    }
+
+    @Test
+    void decodeShouldReuseTheCachedValueForTheSameTimestamp() {
+        final Long first = decoder.decode("09/May/2018:16:00:39 +0000");
+        final Long second = decoder.decode(new String("09/May/2018:16:00:39 +0000"));
+        assertSame(first, second);
+    }
+
+    @Test
+    void decodeShouldFallbackToFormatterForNonCanonicalValues() {
+        for (String timestamp : new String[]{"31/Apr/2018:16:00:39 +0000", "09/May/2018:24:00:00 +0000"}) {
+            assertEquals(OffsetDateTime.parse(timestamp, FORMATTER).toEpochSecond(), (long) decoder.decode(timestamp));
+        }
+    }
+
+    @Test
+    void decodeShouldThrowForInvalidTimestamp() {
+        assertThrows(DateTimeParseException.class, () -> decoder.decode("2020-10-15T12:55:49.357610Z"));
+        assertThrows(DateTimeParseException.class, () -> decoder.decode("09/May/2018:16:00:39 +00:00"));
+        assertThrows(DateTimeParseException.class, () -> decoder.decode("09/May/2018:16:00:39 +1900"));
+    }
+}
@@ -9,6 +9,7 @@ import com.datadog.task.model.LogRecord;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.Optional;
 import org.junit.jupiter.api.Test;
 
@@ -39,6 +40,54 @@ class LogParserTest {
         }
     }
 
+    @Test
+    void clfParserShouldAgreeWithGrokForRealAccessLog() throws IOException {
+        try (BufferedReader br = new BufferedReader(
+                new InputStreamReader(LogParserTest.class.getResourceAsStream("/access.log")))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                assertEquals(LogParser.parseWithGrok(line).orElse(null), ClfParser.parse(line), line);
+            }
+        }
+    }
+
+    @Test
+    void byteParserShouldAgreeWithStringParserForRealAccessLog() throws IOException {
+        try (BufferedReader br = new BufferedReader(
+                new InputStreamReader(LogParserTest.class.getResourceAsStream("/access.log")))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                final byte[] bytes = ("padding" + line + "padding").getBytes(StandardCharsets.UTF_8);
+                assertEquals(LogParser.parse(line), LogParser.parse(bytes, 7, bytes.length - 14), line);
+            }
+        }
+    }
+
+    @Test
+    void byteParserShouldShareTheRepeatedValues() {
+        final byte[] line = "127.0.0.1 - james [09/May/2018:16:00:39 +0000] \"GET /api/users HTTP/1.0\" 200 123"
+                .getBytes(StandardCharsets.UTF_8);
+        final LogRecord first = LogParser.parse(line, 0, line.length).get();
+        final LogRecord second = LogParser.parse(line, 0, line.length).get();
+        assertEquals(first, second);
+        assertTrue(first.getClientIp() == second.getClientIp());
+        assertTrue(first.getSection() == second.getSection());
+        assertTrue(first.getTimestamp() == second.getTimestamp());
+    }
+
+    @Test
+    void parseRecordShouldFallbackToGrokForNonConformingLine() {
+        final String logLine = "127.0.0.1 - james [09/May/2018:16:00:39 +0000] \"-\" 400 0";
+        assertNull(ClfParser.parse(logLine));
+        final Optional<LogRecord> recordOpt = LogParser.parse(logLine);
+        assertTrue(recordOpt.isPresent());
+        assertEquals("127.0.0.1", recordOpt.get().getClientIp());
+        assertNull(recordOpt.get().getRequest());
+        final byte[] bytes = logLine.getBytes(StandardCharsets.UTF_8);
+        assertNull(ClfParser.parse(bytes, 0, bytes.length));
+        assertEquals(recordOpt, LogParser.parse(bytes, 0, bytes.length));
+    }
+
     @Test
     void parseRecordShouldReturnEmptyIfTheLogIsInvalid() {
         final String logLine = "127.0.0.1 - james [2020-10-15T12:55:49.357610Z]";
@@ -69,6 +118,13 @@ class LogParserTest {
         assertEquals("/api", LogParser.parseSection("/api"));
     }
 
+    @Test
+    void parseSectionShouldIgnoreEmptyPaths() {
+        assertEquals("/", LogParser.parseSection("//api"));
+        assertNull(LogParser.parseSection("/"));
+        assertNull(LogParser.parseSection("//"));
+    }
+
     @Test
     void parseSectionShouldReturnNullIfDataIsInvalid() {
         assertNull(LogParser.parseSection("api"));
@@ -0,0 +1,35 @@
+package com.datadog.task.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+class SymbolTableTest {
+
+    @Test
+    void internShouldReturnTheSameInstanceForTheSameBytes() {
+        final SymbolTable symbolTable = new SymbolTable(16);
+        final byte[] bytes = "GET /api/users /api".getBytes(StandardCharsets.UTF_8);
+        final String first = symbolTable.intern(bytes, 4, 8);
+        assertEquals("/api", first);
+        assertTrue(first == symbolTable.intern(bytes, 15, 19));
+    }
+
+    @Test
+    void internShouldDecodeUtf8() {
+        final SymbolTable symbolTable = new SymbolTable(16);
+        final byte[] bytes = "/café".getBytes(StandardCharsets.UTF_8);
+        assertEquals("/café", symbolTable.intern(bytes, 0, bytes.length));
+    }
+
+    @Test
+    void internShouldStayCorrectWhenSlotsAreReused() {
+        final SymbolTable symbolTable = new SymbolTable(1);
+        for (int i = 0; i < 100; i++) {
+            final byte[] bytes = ("10.0.0." + i % 7).getBytes(StandardCharsets.UTF_8);
+            assertEquals("10.0.0." + i % 7, symbolTable.intern(bytes, 0, bytes.length));
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.datadog.task.view;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.Test;
+
+class AsyncLineWriterTest {
+
+    @Test
+    void writerShouldWriteEveryLineToTheStreamOnClose() {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        final AsyncLineWriter writer = new AsyncLineWriter(output, 1000);
+        writer.start();
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(writer.write("line " + i));
+        }
+        writer.close();
+        final String[] lines = new String(output.toByteArray(), StandardCharsets.UTF_8).split("\n");
+        assertEquals(1000, lines.length);
+        assertEquals("line 999", lines[999]);
+        assertEquals(0L, writer.getDroppedLines());
+    }
+
+    @Test
+    void writerShouldRollTheFileAndKeepTheLastFiles() throws Exception {
+        final Path directory = Files.createTempDirectory("ndjson");
+        final Path path = directory.resolve("monitor.ndjson");
+        // 10 bytes per line, 5 lines per file
+        final AsyncLineWriter writer = new AsyncLineWriter(path, 50, 2, 1000);
+        writer.start();
+        for (int i = 0; i < 20; i++) {
+            writer.write(String.format("line %04d", i));
+        }
+        writer.close();
+
+        assertFalse(Files.exists(directory.resolve("monitor.ndjson.3")));
+        final List<String> lines = new ArrayList<>();
+        lines.addAll(Files.readAllLines(directory.resolve("monitor.ndjson.2")));
+        lines.addAll(Files.readAllLines(directory.resolve("monitor.ndjson.1")));
+        lines.addAll(Files.readAllLines(path));
+        assertEquals(15, lines.size());
+        assertEquals("line 0005", lines.get(0));
+        assertEquals("line 0019", lines.get(14));
+        assertTrue(Files.size(path) <= 50);
+    }
+
+    @Test
+    void writerShouldDropTheBatchWhichFailedAndWriteTheNextOnes() throws Exception {
+        final ByteArrayOutputStream written = new ByteArrayOutputStream();
+        final AtomicBoolean failing = new AtomicBoolean(true);
+        final OutputStream output = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] bytes, int offset, int length) throws IOException {
+                if (failing.get()) {
+                    throw new IOException("broken pipe");
+                }
+                written.write(bytes, offset, length);
+            }
+        };
+        final AsyncLineWriter writer = new AsyncLineWriter(output, 1000);
+        writer.start();
+        writer.write("lost");
+        while (writer.getDroppedLines() == 0) {
+            Thread.sleep(10L);
+        }
+        failing.set(false);
+        writer.write("kept");
+        writer.close();
+        assertEquals("kept\n", new String(written.toByteArray(), StandardCharsets.UTF_8));
+        assertEquals(1L, writer.getDroppedLines());
+    }
+}
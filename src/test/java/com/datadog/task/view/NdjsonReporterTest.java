@@ -0,0 +1,71 @@
+package com.datadog.task.view;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.datadog.task.controller.HttpTrafficLogMonitor;
+import com.datadog.task.model.AlertEvent;
+import com.datadog.task.util.Config;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import org.junit.jupiter.api.Test;
+
+class NdjsonReporterTest {
+
+    @Test
+    void reporterShouldWriteEachReportOnce() throws Exception {
+        final Path accessLog = Files.createTempFile("access", ".log");
+        final Config config = new Config(new ByteArrayInputStream(("logfile.path=" + accessLog + "\n")
+                .getBytes(StandardCharsets.UTF_8)));
+        final HttpTrafficLogMonitor httpTrafficLogMonitor = new HttpTrafficLogMonitor(config);
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        final AsyncLineWriter writer = new AsyncLineWriter(output, 100);
+        final NdjsonReporter reporter = new NdjsonReporter(httpTrafficLogMonitor, writer);
+        writer.start();
+
+        reporter.poll();
+        // the collector publishes its first report when it starts
+        httpTrafficLogMonitor.initialize();
+        while (httpTrafficLogMonitor.getStatisticsSnapshot() == null) {
+            Thread.sleep(10L);
+        }
+        reporter.poll();
+        reporter.poll();
+        reporter.close();
+        httpTrafficLogMonitor.close();
+
+        final String[] lines = new String(output.toByteArray(), StandardCharsets.UTF_8).split("\n");
+        assertEquals(1, lines.length);
+        assertTrue(lines[0].startsWith("{\"type\":\"statistics\",\"generation\":1,"));
+        assertTrue(lines[0].contains("\"totalRequests\":0,"));
+        assertTrue(lines[0].endsWith("\"droppedRecords\":{\"late\":0,\"future\":0}}"));
+    }
+
+    @Test
+    void reporterShouldWriteAnAlertWhichRecoveredBetweenTwoPolls() throws Exception {
+        final Path accessLog = Files.createTempFile("access", ".log");
+        final Config config = new Config(new ByteArrayInputStream(("logfile.path=" + accessLog + "\n")
+                .getBytes(StandardCharsets.UTF_8)));
+        final HttpTrafficLogMonitor httpTrafficLogMonitor = new HttpTrafficLogMonitor(config);
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        final AsyncLineWriter writer = new AsyncLineWriter(output, 100);
+        final NdjsonReporter reporter = new NdjsonReporter(httpTrafficLogMonitor, writer);
+        writer.start();
+
+        reporter.onAlert(new AlertEvent(true, Instant.ofEpochSecond(1000L), "fired"));
+        reporter.onAlert(new AlertEvent(false, Instant.ofEpochSecond(1001L), "recovered"));
+        reporter.poll();
+        reporter.close();
+
+        final String[] lines = new String(output.toByteArray(), StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("{\"type\":\"alert\",\"time\":\"1970-01-01T00:16:40Z\",\"active\":true,\"message\":\"fired\"}",
+                lines[0]);
+        assertEquals("{\"type\":\"alert\",\"time\":\"1970-01-01T00:16:41Z\",\"active\":false,"
+                + "\"message\":\"recovered\"}", lines[1]);
+    }
+}